@@ -0,0 +1,124 @@
+package org.example.masterdetail.benchmark;
+
+import org.example.masterdetail.MasterDetailApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Контекст приложения (по умолчанию без веб-сервера) и набор данных для одного прогона бенчмарка.
+ *
+ * <p>h2 — встроенная база профиля test, postgres — настройки по умолчанию из application.yml
+ * (адрес можно переопределить через -jvmArgsAppend -Dspring.datasource.url=...).</p>
+ *
+ * <p>Все документы прогона имеют общий префикс номера и удаляются при закрытии.
+ * «Горячий» документ содержит detailsPerDocument спецификаций и стоит первым в списке
+ * по убыванию даты; остальные documentCount - 1 документов содержат по одной спецификации.</p>
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    private static final int INSERT_BATCH = 1000;
+
+    private final ConfigurableApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String prefix = "BENCH-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    private long hotDocumentId;
+
+    BenchmarkDatabase(String database) {
+        this(database, WebApplicationType.NONE);
+    }
+
+    /**
+     * @param webApplicationType SERVLET — поднять Tomcat на случайном порту ({@link #serverPort()})
+     * @param properties         дополнительные свойства приложения в формате key=value
+     */
+    BenchmarkDatabase(String database, WebApplicationType webApplicationType, String... properties) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(MasterDetailApplication.class)
+                .web(webApplicationType)
+                .properties("spring.main.banner-mode=off", "logging.level.root=WARN", "spring.jpa.show-sql=false",
+                        "server.port=0")
+                .properties(properties);
+        if ("h2".equals(database)) {
+            builder.profiles("test");
+        } else if (!"postgres".equals(database)) {
+            throw new IllegalArgumentException("Unknown database: " + database);
+        }
+        this.context = builder.run();
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    int serverPort() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    String prefix() {
+        return prefix;
+    }
+
+    long hotDocumentId() {
+        return hotDocumentId;
+    }
+
+    void seed(int documentCount, int detailsPerDocument) {
+        LocalDateTime base = LocalDateTime.of(2099, 1, 1, 0, 0);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO documents (doc_number, doc_date, total_sum, notes) VALUES (?, ?, ?, ?)",
+                    prefix + "HOT", Timestamp.valueOf(base.plusYears(1)), BigDecimal.valueOf(detailsPerDocument), "hot");
+            hotDocumentId = jdbcTemplate.queryForObject("SELECT document_id FROM documents WHERE doc_number = ?",
+                    Long.class, prefix + "HOT");
+            List<Object[]> details = new ArrayList<>(INSERT_BATCH);
+            for (int i = 0; i < detailsPerDocument; i++) {
+                details.add(new Object[]{hotDocumentId, "Item " + i, BigDecimal.ONE});
+                if (details.size() == INSERT_BATCH || i == detailsPerDocument - 1) {
+                    jdbcTemplate.batchUpdate("INSERT INTO document_detail (document_id, item_name, item_sum) VALUES (?, ?, ?)", details);
+                    details.clear();
+                }
+            }
+            List<Object[]> documents = new ArrayList<>(INSERT_BATCH);
+            for (int i = 1; i < documentCount; i++) {
+                documents.add(new Object[]{prefix + i, Timestamp.valueOf(base.minusMinutes(i)), BigDecimal.ONE, "background"});
+                if (documents.size() == INSERT_BATCH || i == documentCount - 1) {
+                    jdbcTemplate.batchUpdate("INSERT INTO documents (doc_number, doc_date, total_sum, notes) VALUES (?, ?, ?, ?)", documents);
+                    documents.clear();
+                }
+            }
+            jdbcTemplate.update("INSERT INTO document_detail (document_id, item_name, item_sum) " +
+                    "SELECT document_id, 'Item', 1 FROM documents WHERE doc_number LIKE ? AND document_id <> ?",
+                    prefix + "%", hotDocumentId);
+        });
+    }
+
+    List<Long> hotDetailIds(int limit) {
+        return jdbcTemplate.queryForList("SELECT detail_id FROM document_detail WHERE document_id = ? ORDER BY detail_id LIMIT " + limit,
+                Long.class, hotDocumentId);
+    }
+
+    @Override
+    public void close() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM document_detail WHERE document_id IN " +
+                        "(SELECT document_id FROM documents WHERE doc_number LIKE ?)", prefix + "%");
+                jdbcTemplate.update("DELETE FROM documents WHERE doc_number LIKE ?", prefix + "%");
+            });
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.masterdetail.benchmark;
+
+import org.example.masterdetail.config.DocumentListProperties;
+import org.example.masterdetail.dto.DocumentListPage;
+import org.example.masterdetail.dto.DocumentPageRequest;
+import org.example.masterdetail.dto.DocumentSearchCriteria;
+import org.example.masterdetail.enums.DocumentSortKey;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.service.DocumentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути {@link DocumentService}: создание документа, обновление реквизитов,
+ * сохранение формы со всеми спецификациями, где изменена одна строка, полная замена
+ * спецификаций, операции с одной спецификацией (чтение, добавление, изменение, удаление),
+ * первая страница списка и страница результатов поиска.
+ *
+ * <p>Каждый бенчмарк запускается в отдельном JVM со своим набором данных,
+ * поэтому изменения, накопленные одним методом, не влияют на другие.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DocumentServiceBenchmark {
+
+    @Param({"h2", "postgres"})
+    public String database;
+
+    @Param({"1000", "100000"})
+    public int documentCount;
+
+    @Param({"1", "100", "10000"})
+    public int detailsPerDocument;
+
+    private BenchmarkDatabase db;
+    private DocumentService documentService;
+    private DocumentPageRequest firstPage;
+    private DocumentPageRequest searchPage;
+    private long hotDocumentId;
+    private long hotDetailId;
+    private List<Long> hotDetailIds;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = new BenchmarkDatabase(database);
+        db.seed(documentCount, detailsPerDocument);
+        documentService = db.bean(DocumentService.class);
+        hotDocumentId = db.hotDocumentId();
+        hotDetailIds = db.hotDetailIds(detailsPerDocument);
+        hotDetailId = hotDetailIds.get(0);
+        firstPage = DocumentPageRequest.first(DocumentSortKey.DOC_DATE, Sort.Direction.DESC,
+                db.bean(DocumentListProperties.class).getDefaultPageSize());
+        // префикс номера + подстрока наименования: попадает только HOT-документ
+        searchPage = new DocumentPageRequest(DocumentSortKey.DOC_DATE, Sort.Direction.DESC, firstPage.size(), null,
+                new DocumentSearchCriteria(db.prefix() + "HOT", null, "item 1", null, null, null, null));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public Document addDocument() {
+        Document doc = new Document();
+        doc.setDocNumber(db.prefix() + "ADD-" + sequence++);
+        doc.setDocDate(LocalDateTime.now());
+        doc.setDetails(newDetails(doc));
+        return documentService.addDocument(doc);
+    }
+
+    @Benchmark
+    public Document updateDocumentHeader() {
+        Document update = new Document();
+        update.setDocNumber(db.prefix() + "HOT");
+        update.setNotes("notes " + sequence++);
+        update.setDetails(null);
+        return documentService.updateDocument(hotDocumentId, update);
+    }
+
+    @Benchmark
+    public Document updateDocumentWithDetails() {
+        long step = sequence++;
+        Document update = new Document();
+        update.setDocNumber(db.prefix() + "HOT");
+        update.setNotes("notes " + step);
+        // форма возвращает все строки с их id; меняется сумма только первой, остальные совпадают с засеянными
+        List<DocumentDetail> details = new ArrayList<>(hotDetailIds.size());
+        for (int i = 0; i < hotDetailIds.size(); i++) {
+            BigDecimal sum = i == 0 ? BigDecimal.valueOf(step % 100 + 2) : BigDecimal.ONE;
+            details.add(new DocumentDetail(hotDetailIds.get(i), null, "Item " + i, sum));
+        }
+        update.setDetails(details);
+        return documentService.updateDocument(hotDocumentId, update);
+    }
+
+    @Benchmark
+    public Document replaceDocumentDetails() {
+        Document update = new Document();
+        update.setDocNumber(db.prefix() + "HOT");
+        update.setNotes("notes " + sequence++);
+        update.setDetails(newDetails(update));
+        return documentService.updateDocument(hotDocumentId, update);
+    }
+
+    @Benchmark
+    public DocumentDetail addDetail() {
+        return documentService.addDetail(hotDocumentId, new DocumentDetail(null, null, "Added", BigDecimal.ONE));
+    }
+
+    @Benchmark
+    public DocumentDetail updateDetail() {
+        BigDecimal sum = BigDecimal.valueOf(sequence++ % 100);
+        return documentService.updateDetail(hotDocumentId, hotDetailId, new DocumentDetail(null, null, "Updated", sum));
+    }
+
+    @Benchmark
+    public DocumentDetail findDetail() {
+        return documentService.findDetail(hotDocumentId, hotDetailId);
+    }
+
+    @Benchmark
+    public void removeDetail(RemovableDetail removable) {
+        documentService.removeDetail(hotDocumentId, removable.detailId);
+    }
+
+    @Benchmark
+    public DocumentListPage listPage() {
+        return documentService.findDocumentListPage(firstPage);
+    }
+
+    @Benchmark
+    public DocumentListPage searchPage() {
+        return documentService.findDocumentListPage(searchPage);
+    }
+
+    private List<DocumentDetail> newDetails(Document doc) {
+        List<DocumentDetail> details = new ArrayList<>(detailsPerDocument);
+        for (int i = 0; i < detailsPerDocument; i++) {
+            details.add(new DocumentDetail(null, doc, "Item " + i, BigDecimal.ONE));
+        }
+        return details;
+    }
+
+    /**
+     * Спецификация, добавляемая перед каждым вызовом removeDetail, чтобы удалять было что.
+     */
+    @State(Scope.Thread)
+    public static class RemovableDetail {
+        long detailId;
+
+        @Setup(Level.Invocation)
+        public void add(DocumentServiceBenchmark benchmark) {
+            detailId = benchmark.documentService
+                    .addDetail(benchmark.hotDocumentId, new DocumentDetail(null, null, "Removable", BigDecimal.ONE))
+                    .getId();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.masterdetail.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочное сравнение режимов обработки запросов: пул платформенных потоков Tomcat
+ * против виртуальных потоков (spring.threads.virtual.enabled).
+ *
+ * <p>Приложение поднимается с Tomcat на случайном порту, 400 потоков JMH одновременно
+ * запрашивают страницу списка и форму редактирования документа — больше, чем 200 потоков
+ * Tomcat по умолчанию и 20 соединений Hikari. Кроме пропускной способности считаются
+ * ответы 503 от ограничителя параллелизма и прочие ошибки.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class RequestExecutionModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"h2", "postgres"})
+    public String database;
+
+    private BenchmarkDatabase db;
+    private HttpClient client;
+    private HttpRequest listRequest;
+    private HttpRequest editRequest;
+
+    @Setup
+    public void setUp() {
+        db = new BenchmarkDatabase(database, WebApplicationType.SERVLET,
+                "spring.threads.virtual.enabled=" + "virtual".equals(threads));
+        db.seed(1000, 20);
+        URI base = URI.create("http://localhost:" + db.serverPort());
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        listRequest = HttpRequest.newBuilder(base.resolve("/documents?sort=DOC_DATE&dir=DESC")).GET().build();
+        editRequest = HttpRequest.newBuilder(base.resolve("/documents/" + db.hotDocumentId() + "/edit")).GET().build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        db.close();
+    }
+
+    /**
+     * Исходы запросов одного потока JMH; в отчёте выводятся как отдельные строки.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+        public long ok;
+        public long rejected;
+        public long failed;
+
+        void record(int status) {
+            if (status == 200) {
+                ok++;
+            } else if (status == 503) {
+                rejected++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    @Benchmark
+    public int listPage(Responses responses) throws IOException, InterruptedException {
+        return send(listRequest, responses);
+    }
+
+    @Benchmark
+    public int editForm(Responses responses) throws IOException, InterruptedException {
+        return send(editRequest, responses);
+    }
+
+    private int send(HttpRequest request, Responses responses) throws IOException, InterruptedException {
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        responses.record(status);
+        return status;
+    }
+}
@@ -2,8 +2,10 @@ package org.example.masterdetail;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class MasterDetailApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,36 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки повтора операций при конфликте параллельных изменений (master-detail.retry.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.retry")
+public class ConflictRetryProperties {
+
+    /**
+     * Максимальное количество попыток, включая первую.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Пауза перед второй попыткой.
+     */
+    private Duration initialBackoff = Duration.ofMillis(10);
+
+    /**
+     * Во сколько раз растёт пауза с каждой попыткой.
+     */
+    private double multiplier = 2.0;
+
+    /**
+     * Верхняя граница паузы между попытками.
+     */
+    private Duration maxBackoff = Duration.ofMillis(200);
+}
@@ -0,0 +1,45 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.example.masterdetail.enums.ChangeBusTransport;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки шины изменений документов (master-detail.change-bus.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.change-bus")
+public class DocumentChangeBusProperties {
+
+    private ChangeBusTransport transport = ChangeBusTransport.POSTGRES;
+
+    /**
+     * Канал LISTEN/NOTIFY.
+     */
+    private String channel = "document_changes";
+
+    /**
+     * Сколько накапливаются изменения перед рассылкой: повторные изменения документа
+     * за это время уходят одним событием.
+     */
+    private Duration coalesceWindow = Duration.ofMillis(200);
+
+    /**
+     * Изменений в одном уведомлении; полезная нагрузка NOTIFY ограничена 8000 байт.
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * Если за окно изменилось больше документов, рассылается одно уведомление «сбросить всё».
+     */
+    private int maxPending = 10000;
+
+    /**
+     * Пауза перед повторным подключением слушателя после обрыва соединения.
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,19 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки потоковой выгрузки документов (master-detail.export.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.export")
+public class DocumentExportProperties {
+
+    /**
+     * JDBC fetch size курсора выгрузки: сколько строк драйвер читает за одно обращение к БД.
+     */
+    private int fetchSize = 1000;
+}
@@ -0,0 +1,25 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки массовой загрузки документов (master-detail.import.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.import")
+public class DocumentImportProperties {
+
+    /**
+     * Количество документов в одной транзакции. Внутри транзакции вставки
+     * группируются JDBC-пакетами размера hibernate.jdbc.batch_size.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Сколько ошибок по строкам возвращать в отчёте; остальные только подсчитываются.
+     */
+    private int maxReportedErrors = 1000;
+}
@@ -0,0 +1,56 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.example.masterdetail.enums.DetailFetchStrategy;
+import org.example.masterdetail.enums.DocumentSortKey;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Настройки постраничного списка документов (master-detail.documents.list.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.documents.list")
+public class DocumentListProperties {
+
+    /**
+     * Размер страницы, если он не передан в запросе.
+     */
+    private int defaultPageSize = 20;
+
+    /**
+     * Верхняя граница размера страницы, запрошенного клиентом.
+     */
+    private int maxPageSize = 200;
+
+    /**
+     * Размер страницы спецификации в форме документа, если он не передан в запросе.
+     */
+    private int defaultDetailPageSize = 50;
+
+    private DocumentSortKey defaultSort = DocumentSortKey.ID;
+
+    private Sort.Direction defaultDirection = Sort.Direction.ASC;
+
+    /**
+     * Способ загрузки деталей страницы. Для TWO_PHASE размер пакета задаётся
+     * свойством spring.jpa.properties.hibernate.default_batch_fetch_size.
+     */
+    private DetailFetchStrategy detailFetch = DetailFetchStrategy.TWO_PHASE;
+
+    public int resolvePageSize(Integer requested) {
+        if (requested == null || requested < 1) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    public int resolveDetailPageSize(Integer requested) {
+        if (requested == null || requested < 1) {
+            return defaultDetailPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+}
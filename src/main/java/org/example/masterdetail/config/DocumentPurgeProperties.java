@@ -0,0 +1,26 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки массового удаления документов (master-detail.purge.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.purge")
+public class DocumentPurgeProperties {
+
+    /**
+     * Сколько документов удаляется одной транзакцией: ограничивает время блокировок и объём WAL за раз.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Пауза между порциями, чтобы реплики и автоочистка успевали за удалением; 0 — без паузы.
+     */
+    private Duration pauseBetweenChunks = Duration.ofMillis(50);
+}
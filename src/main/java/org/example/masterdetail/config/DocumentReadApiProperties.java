@@ -0,0 +1,20 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки неблокирующего API чтения документов на R2DBC (master-detail.read-api.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.read-api")
+public class DocumentReadApiProperties {
+
+    /**
+     * Сколько строк драйвер запрашивает у БД за раз при потоковой выдаче.
+     * Следующая порция читается, только когда клиент забрал предыдущую.
+     */
+    private int fetchSize = 500;
+}
@@ -0,0 +1,36 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки итогов для отчётов (master-detail.reports.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.reports")
+public class DocumentReportProperties {
+
+    /**
+     * Пересчитывать ли итоги по расписанию.
+     */
+    private boolean refreshEnabled = true;
+
+    /**
+     * Пауза между пересчётами: на столько итоги могут отставать от документов.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(1);
+
+    /**
+     * Сколько отметок очереди обрабатывается одной транзакцией.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Наибольшее количество строк в одном ответе отчёта.
+     */
+    private int maxRows = 1000;
+}
@@ -0,0 +1,47 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.example.masterdetail.enums.ErrorLogOverflowPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки асинхронной записи журнала ошибок (master-detail.error-log.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.error-log")
+public class ErrorLogProperties {
+
+    /**
+     * Ёмкость очереди записей, ожидающих вставки в error_log.
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * Максимальное количество записей в одном пакетном INSERT.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Как долго фоновый писатель ждёт накопления пакета перед записью неполного.
+     */
+    private Duration flushInterval = Duration.ofMillis(500);
+
+    /**
+     * Что делать с записью, если очередь заполнена.
+     */
+    private ErrorLogOverflowPolicy overflowPolicy = ErrorLogOverflowPolicy.DROP;
+
+    /**
+     * Максимальное ожидание места в очереди для политики BLOCK.
+     */
+    private Duration blockTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Для политики SAMPLE: принимается одна запись из sample-rate при заполнении очереди больше чем наполовину.
+     */
+    private int sampleRate = 10;
+}
@@ -0,0 +1,41 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки обслуживания секций documents и document_detail (master-detail.partitioning.*).
+ * Секционирование есть только в схеме PostgreSQL; на других СУБД обслуживание пропускается.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.partitioning")
+public class PartitioningProperties {
+
+    /**
+     * Создавать ли секции заранее: при старте приложения и по расписанию.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Расписание создания секций (cron Spring).
+     */
+    private String cron = "0 0 2 * * *";
+
+    /**
+     * На сколько лет вперёд от текущего должны существовать секции documents.
+     */
+    private int documentYearsAhead = 2;
+
+    /**
+     * Количество document_id в одной секции document_detail. Должно совпадать с размером,
+     * с которым секции создавались миграцией: менять его после запуска нельзя.
+     */
+    private long detailRangeSize = 10_000_000L;
+
+    /**
+     * Сколько секций document_detail должно существовать сверх текущего значения последовательности документов.
+     */
+    private int detailRangesAhead = 2;
+}
@@ -0,0 +1,42 @@
+package org.example.masterdetail.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.masterdetail.datasource.ReplicaReadCacheGuard;
+import org.example.masterdetail.datasource.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Чтение с реплик.
+ *
+ * <p>Основной DataSource для JPA, JdbcTemplate и Liquibase заменяется ленивым прокси
+ * над {@link ReplicaRoutingDataSource}; пул основной базы из {@link PersistenceConfig}
+ * остаётся как есть и используется маршрутизатором для записи. Чтение с реплики не пополняет
+ * кэш второго уровня ({@link ReplicaReadCacheGuard}).</p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "master-detail.replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource dataSource,
+                                                             ReplicaRoutingProperties properties,
+                                                             ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        ReplicaRoutingDataSource router = new ReplicaRoutingDataSource(dataSource, properties);
+        router.setReplicaReadListener(new ReplicaReadCacheGuard(entityManagerFactory));
+        return router;
+    }
+
+    @Bean
+    @Primary
+    public DataSource routingDataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
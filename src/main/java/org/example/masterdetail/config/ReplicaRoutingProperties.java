@@ -0,0 +1,75 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки чтения с реплик (master-detail.replicas.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.replicas")
+public class ReplicaRoutingProperties {
+
+    /**
+     * true — транзакции только для чтения уходят на реплики из nodes.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Реплики; остальные настройки пула копируются с основного spring.datasource.hikari.
+     */
+    private List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Размер пула каждой реплики; 0 — как у основного пула.
+     */
+    private int poolSize = 0;
+
+    /**
+     * Сколько ждать соединения с репликой, прежде чем перейти на основную базу.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Пауза между проверками доступности и отставания реплик.
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * Запрос, возвращающий отставание реплики в секундах; пусто — отставание не проверяется.
+     */
+    private String lagQuery = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    /**
+     * Реплика с большим отставанием не получает запросов до следующей проверки.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * Сколько после собственного изменения клиент читает с основной базы; 0 — сразу с реплик.
+     */
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+    @Getter
+    @Setter
+    public static class Node {
+
+        /**
+         * Имя реплики в метриках и журнале; по умолчанию replica-N.
+         */
+        private String name;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
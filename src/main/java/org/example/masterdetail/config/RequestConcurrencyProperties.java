@@ -0,0 +1,28 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Ограничение одновременно обрабатываемых запросов в режиме виртуальных потоков
+ * (master-detail.concurrency.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.concurrency")
+public class RequestConcurrencyProperties {
+
+    /**
+     * Сколько запросов обрабатывается одновременно. 0 — по размеру пула Hikari
+     * за вычетом одного соединения для фоновой записи журнала ошибок.
+     */
+    private int maxConcurrentRequests = 0;
+
+    /**
+     * Сколько запрос ждёт своей очереди, прежде чем получить 503.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+}
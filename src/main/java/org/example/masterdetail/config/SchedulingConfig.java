@@ -0,0 +1,12 @@
+package org.example.masterdetail.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Фоновые задачи по расписанию (сверка итогов документов).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
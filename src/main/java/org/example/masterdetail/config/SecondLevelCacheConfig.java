@@ -0,0 +1,65 @@
+package org.example.masterdetail.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.example.masterdetail.model.CacheRegions;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.CacheSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Кэш второго уровня Hibernate на Caffeine (JCache).
+ *
+ * <p>Кэшируются документ, его коллекция спецификаций, спецификации и запросы
+ * по номеру документа. Регионы создаются заранее с ограничением размера и временем жизни;
+ * регион меток обновления таблиц не ограничивается, иначе кэш запросов мог бы
+ * вернуть устаревший результат.</p>
+ *
+ * <p>Каждый контекст получает собственный CacheManager: Hibernate закрывает его вместе
+ * с фабрикой сессий.</p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "master-detail.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+    private static final List<String> BOUNDED_REGIONS = List.of(
+            CacheRegions.DOCUMENTS,
+            CacheRegions.DOCUMENT_DETAILS_COLLECTION,
+            CacheRegions.DOCUMENT_DETAILS,
+            CacheRegions.DOC_NUMBER_QUERIES,
+            RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(SecondLevelCacheProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(CacheSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(CacheSettings.USE_QUERY_CACHE, true);
+            hibernateProperties.put(CacheSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+            hibernateProperties.put(CacheSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager(properties));
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CacheManager cacheManager(SecondLevelCacheProperties properties) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("urn:master-detail:" + UUID.randomUUID()), SecondLevelCacheConfig.class.getClassLoader());
+        CaffeineConfiguration<Object, Object> bounded = new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(properties.getMaximumSize()))
+                .setExpireAfterWrite(OptionalLong.of(properties.getTimeToLive().toNanos()));
+        BOUNDED_REGIONS.forEach(region -> cacheManager.createCache(region, bounded));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+}
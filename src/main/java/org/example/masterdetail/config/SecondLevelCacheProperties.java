@@ -0,0 +1,31 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша второго уровня Hibernate (master-detail.cache.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.cache")
+public class SecondLevelCacheProperties {
+
+    /**
+     * Включает кэш второго уровня и кэш запросов.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Максимальное количество записей в каждом регионе.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Время жизни записи после помещения в кэш.
+     */
+    private Duration timeToLive = Duration.ofMinutes(10);
+}
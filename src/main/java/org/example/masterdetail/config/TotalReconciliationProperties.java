@@ -0,0 +1,34 @@
+package org.example.masterdetail.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки фоновой сверки итогов документов (master-detail.reconciliation.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "master-detail.reconciliation")
+public class TotalReconciliationProperties {
+
+    /**
+     * Запускать ли сверку по расписанию.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Расписание запуска (cron Spring: секунды, минуты, часы, день, месяц, день недели).
+     */
+    private String cron = "0 30 3 * * *";
+
+    /**
+     * Сколько документов проверяется одним сгруппированным запросом и исправляется одной транзакцией.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Верхняя граница скорости сканирования; 0 — без ограничения.
+     */
+    private int maxDocumentsPerSecond = 2000;
+}
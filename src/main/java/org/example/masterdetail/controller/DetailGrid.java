@@ -0,0 +1,49 @@
+package org.example.masterdetail.controller;
+
+import org.example.masterdetail.config.DocumentListProperties;
+import org.example.masterdetail.dto.CursorPage;
+import org.example.masterdetail.dto.DetailCursor;
+import org.example.masterdetail.dto.DetailPageRequest;
+import org.example.masterdetail.dto.DetailRow;
+import org.example.masterdetail.enums.DetailSortKey;
+import org.example.masterdetail.service.DocumentService;
+import org.springframework.data.domain.Sort;
+import org.springframework.ui.Model;
+
+/**
+ * Модель постраничной таблицы спецификации (фрагмент document-form :: details):
+ * её заполняют форма документа и отдельная страница строк.
+ */
+final class DetailGrid {
+
+    private DetailGrid() {
+    }
+
+    /**
+     * @param gridUrl адрес, к которому ссылки таблицы добавляют сортировку и курсор
+     */
+    static void populate(Model model,
+                         DocumentService documentService,
+                         DocumentListProperties listProperties,
+                         Long docId,
+                         DetailSortKey sort,
+                         Sort.Direction dir,
+                         Integer size,
+                         String cursor,
+                         String gridUrl) {
+        DetailSortKey sortKey = sort != null ? sort : DetailSortKey.ID;
+        Sort.Direction direction = dir != null ? dir : Sort.Direction.ASC;
+        int pageSize = listProperties.resolveDetailPageSize(size);
+        DetailCursor position = cursor != null && !cursor.isBlank()
+                ? DetailCursor.decode(cursor, sortKey, direction)
+                : null;
+        CursorPage<DetailRow> page = documentService.findDetailPage(
+                new DetailPageRequest(docId, sortKey, direction, pageSize, position));
+        model.addAttribute("docId", docId);
+        model.addAttribute("detailPage", page);
+        model.addAttribute("detailSort", sortKey);
+        model.addAttribute("detailDir", direction);
+        model.addAttribute("detailSize", pageSize);
+        model.addAttribute("gridUrl", gridUrl);
+    }
+}
@@ -2,17 +2,32 @@ package org.example.masterdetail.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.DocumentListProperties;
+import org.example.masterdetail.dto.DocumentCursor;
+import org.example.masterdetail.dto.DocumentListPage;
+import org.example.masterdetail.dto.DocumentPageRequest;
+import org.example.masterdetail.dto.DocumentSearchCriteria;
+import org.example.masterdetail.dto.DocumentStamp;
+import org.example.masterdetail.enums.DetailSortKey;
+import org.example.masterdetail.enums.DocumentSortKey;
+import org.example.masterdetail.errors.DocumentConflictException;
 import org.example.masterdetail.model.Document;
 import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.*;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Optional;
 
 /**
  * Контроллер для операций над Document (Master).
@@ -24,19 +39,39 @@ import java.util.List;
 public class DocumentController {
 
     private final DocumentServiceImpl documentService;
+    private final DocumentListProperties listProperties;
 
     /**
-     * Отображает список документов в виде таблицы.
+     * Отображает страницу списка документов в виде таблицы (keyset-пагинация).
+     * Параметры {@link DocumentSearchCriteria} из строки запроса сужают список до найденных документов.
      */
     @GetMapping
-    public String listDocuments(Model model) {
-        List<Document> documents = documentService.findAllDocumentsWithDetails();
-        documents.forEach(d -> {
-            if (d.getDetails() == null) {
-                d.setDetails(new ArrayList<>());
-            }
-        });
-        model.addAttribute("documents", documents);
+    public String listDocuments(@ModelAttribute("search") DocumentSearchCriteria search,
+                                @RequestParam(required = false) DocumentSortKey sort,
+                                @RequestParam(required = false) Sort.Direction dir,
+                                @RequestParam(required = false) Integer size,
+                                @RequestParam(required = false) String cursor,
+                                WebRequest webRequest,
+                                HttpServletResponse response,
+                                Model model) {
+        DocumentSortKey sortKey = sort != null ? sort : listProperties.getDefaultSort();
+        Sort.Direction direction = dir != null ? dir : listProperties.getDefaultDirection();
+        int pageSize = listProperties.resolvePageSize(size);
+        DocumentCursor position = cursor != null && !cursor.isBlank()
+                ? DocumentCursor.decode(cursor, sortKey, direction)
+                : null;
+        DocumentPageRequest pageRequest = new DocumentPageRequest(sortKey, direction, pageSize, position, search);
+        if (notModified(webRequest, response, documentService.findDocumentListETag(pageRequest), -1)) {
+            return null;
+        }
+        DocumentListPage listPage = documentService.findDocumentListPage(pageRequest);
+        model.addAttribute("documents", listPage.page().content());
+        model.addAttribute("details", listPage.details());
+        model.addAttribute("page", listPage.page());
+        model.addAttribute("sort", sortKey);
+        model.addAttribute("dir", direction);
+        model.addAttribute("size", pageSize);
+        model.addAttribute("listUrl", listUrl(search));
         return "document-list";
     }
 
@@ -46,7 +81,7 @@ public class DocumentController {
     @GetMapping("/new")
     public String newDocumentForm(Model model) {
         Document newDocument = new Document();
-        newDocument.setDetails(new ArrayList<>()); // Инициализация пустого списка спецификаций
+        newDocument.setDetails(new LinkedHashSet<>()); // Инициализация пустого списка спецификаций
         model.addAttribute("document", newDocument);
         return "document-form";
     }
@@ -71,35 +106,71 @@ public class DocumentController {
     }
 
     /**
-     * Форма редактирования существующего документа.
+     * Форма редактирования существующего документа. Если версия у клиента актуальна
+     * (If-None-Match / If-Modified-Since), отвечает 304 без загрузки спецификаций.
+     * Спецификация выводится постранично (параметры sort, dir, size, cursor относятся к её таблице),
+     * итог — из сохранённого total_sum.
      */
     @GetMapping("/{id}/edit")
-    public String editDocumentForm(@PathVariable Long id, Model model) {
-        Document existing = documentService.findWithDetailsById(id);
-        model.addAttribute("document", existing);
+    public String editDocumentForm(@PathVariable Long id,
+                                   @RequestParam(required = false) DetailSortKey sort,
+                                   @RequestParam(required = false) Sort.Direction dir,
+                                   @RequestParam(required = false) Integer size,
+                                   @RequestParam(required = false) String cursor,
+                                   WebRequest webRequest,
+                                   HttpServletResponse response,
+                                   Model model) {
+        DocumentStamp stamp = documentService.findDocumentStamp(id);
+        if (notModified(webRequest, response, stamp.etag(), stamp.lastModifiedMillis())) {
+            return null;
+        }
+        model.addAttribute("document", documentService.findDocumentHeader(id));
+        DetailGrid.populate(model, documentService, listProperties, id, sort, dir, size, cursor,
+                "/documents/" + id + "/edit");
         return "document-form";
     }
 
     /**
-     * Обработка submit формы редактирования документа.
+     * Обработка submit формы редактирования документа. Форма сохраняет только реквизиты:
+     * строки спецификации сохраняются по одной через {@link DocumentDetailController}.
+     * Если документ изменили после открытия формы (версия не совпала), форма показывается
+     * снова с ответом 409.
      */
     @PostMapping("/{id}")
     public String updateDocument(@PathVariable Long id,
                                  @Valid @ModelAttribute("document") Document doc,
                                  BindingResult bindingResult,
+                                 HttpServletResponse response,
                                  Model model) {
         if (bindingResult.hasErrors()) {
-            return "document-form";
+            return editFormWithErrors(id, doc, model);
         }
+        // в форме нет строк: пустая коллекция означала бы «удалить все строки»
+        doc.setDetails(null);
         try {
             documentService.updateDocument(id, doc);
+        } catch (DocumentConflictException ex) {
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            model.addAttribute("errorMessage", ex.getMessage());
+            return editFormWithErrors(id, doc, model);
         } catch (RuntimeException ex) {
             model.addAttribute("errorMessage", ex.getMessage());
-            return "document-form";
+            return editFormWithErrors(id, doc, model);
         }
         return "redirect:/documents";
     }
 
+    /**
+     * Повторный показ формы редактирования с присланными реквизитами: id в форме не передаётся,
+     * без него она отправилась бы на создание документа; таблица спецификации — первая страница.
+     */
+    private String editFormWithErrors(Long id, Document doc, Model model) {
+        doc.setId(id);
+        DetailGrid.populate(model, documentService, listProperties, id, null, null, null, null,
+                "/documents/" + id + "/edit");
+        return "document-form";
+    }
+
     /**
      * Удаление документа.
      */
@@ -113,6 +184,33 @@ public class DocumentController {
         return "redirect:/documents";
     }
 
+    /**
+     * Адрес списка с текущими условиями поиска: к нему шаблон добавляет сортировку и курсор.
+     */
+    private static String listUrl(DocumentSearchCriteria search) {
+        return UriComponentsBuilder.fromPath("/documents")
+                .queryParamIfPresent("docNumber", Optional.ofNullable(search.docNumber()))
+                .queryParamIfPresent("notes", Optional.ofNullable(search.notes()))
+                .queryParamIfPresent("itemName", Optional.ofNullable(search.itemName()))
+                .queryParamIfPresent("dateFrom", Optional.ofNullable(search.dateFrom()))
+                .queryParamIfPresent("dateTo", Optional.ofNullable(search.dateTo()))
+                .queryParamIfPresent("sumFrom", Optional.ofNullable(search.sumFrom()))
+                .queryParamIfPresent("sumTo", Optional.ofNullable(search.sumTo()))
+                .encode()
+                .toUriString();
+    }
+
+    /**
+     * Страницы можно хранить в кэше браузера, но перед показом их нужно перепроверять:
+     * на повторный запрос с актуальным ETag отдаётся 304 без тела.
+     *
+     * @return true — ответ 304 уже сформирован, рендерить страницу не нужно
+     */
+    private boolean notModified(WebRequest webRequest, HttpServletResponse response, String etag, long lastModified) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        return webRequest.checkNotModified(etag, lastModified);
+    }
+
     @RequestMapping("/error")
     public String handleError(Model model) {
         model.addAttribute("errorMessage", "Произошла ошибка, попробуйте снова.");
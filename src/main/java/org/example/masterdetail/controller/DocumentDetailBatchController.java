@@ -0,0 +1,39 @@
+package org.example.masterdetail.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.masterdetail.dto.DetailBatchResult;
+import org.example.masterdetail.dto.DetailOperation;
+import org.example.masterdetail.service.DocumentService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * JSON API пакетных операций над спецификацией. Вынесен из {@link DocumentDetailController},
+ * чтобы ошибки отдавались в JSON ({@link RestApiExceptionHandler}), а не страницей error.
+ */
+@RestController
+@RequestMapping("/documents/{docId}/details")
+@RequiredArgsConstructor
+public class DocumentDetailBatchController {
+
+    private final DocumentService documentService;
+
+    /**
+     * Пакет операций над строками документа (JSON-массив {@link DetailOperation}) одной транзакцией.
+     * Если хотя бы одна операция некорректна, пакет не применяется и возвращается 422 с причинами.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DetailBatchResult> applyBatch(@PathVariable Long docId,
+                                                        @RequestBody List<DetailOperation> operations) {
+        DetailBatchResult result = documentService.applyDetailOperations(docId, operations);
+        return ResponseEntity.status(result.applied() ? HttpStatus.OK : HttpStatus.UNPROCESSABLE_ENTITY).body(result);
+    }
+}
@@ -2,8 +2,12 @@ package org.example.masterdetail.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.DocumentListProperties;
+import org.example.masterdetail.dto.DetailRow;
+import org.example.masterdetail.enums.DetailSortKey;
 import org.example.masterdetail.model.DocumentDetail;
 import org.example.masterdetail.service.DocumentService;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -21,6 +25,23 @@ import jakarta.validation.Valid;
 public class DocumentDetailController {
 
     private final DocumentService documentService;
+    private final DocumentListProperties listProperties;
+
+    /**
+     * Страница строк спецификации документа (фрагмент таблицы формы документа):
+     * keyset-пагинация по выбранной колонке, без загрузки документа и остальных строк.
+     */
+    @GetMapping
+    public String detailPage(@PathVariable Long docId,
+                             @RequestParam(required = false) DetailSortKey sort,
+                             @RequestParam(required = false) Sort.Direction dir,
+                             @RequestParam(required = false) Integer size,
+                             @RequestParam(required = false) String cursor,
+                             Model model) {
+        DetailGrid.populate(model, documentService, listProperties, docId, sort, dir, size, cursor,
+                "/documents/" + docId + "/details");
+        return "document-form :: details";
+    }
 
     /**
      * Форма для добавления новой спецификации к документу.
@@ -59,8 +80,9 @@ public class DocumentDetailController {
     public String editDetailForm(@PathVariable Long docId,
                                  @PathVariable Long detailId,
                                  Model model) {
-        DocumentDetail existing = documentService.findDetail(docId, detailId);
-        model.addAttribute("detail", existing);
+        DetailRow existing = documentService.findDetailRow(docId, detailId);
+        // форма связывается через th:field, которому нужен бин с геттерами, а не record
+        model.addAttribute("detail", new DocumentDetail(existing.id(), null, existing.itemName(), existing.itemSum()));
         model.addAttribute("docId", docId);
         return "detail-form";
     }
@@ -74,6 +96,8 @@ public class DocumentDetailController {
                                @Valid @ModelAttribute("detail") DocumentDetail newDetail,
                                BindingResult bindingResult,
                                Model model) {
+        // повторно показанная форма должна снова отправляться на изменение этой строки, а не на добавление
+        newDetail.setId(detailId);
         if (bindingResult.hasErrors()) {
             return "detail-form";
         }
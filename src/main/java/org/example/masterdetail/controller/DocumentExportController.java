@@ -0,0 +1,36 @@
+package org.example.masterdetail.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.enums.ExportFormat;
+import org.example.masterdetail.service.DocumentExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Потоковая выгрузка документов с деталями прямо в выходной поток ответа.
+ */
+@RestController
+@RequestMapping("/documents/export")
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentExportController {
+
+    private final DocumentExportService exportService;
+
+    @GetMapping
+    public void exportDocuments(@RequestParam(defaultValue = "CSV") ExportFormat format,
+                                HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"documents." + format.getExtension() + "\"");
+        exportService.exportDocuments(format, response.getOutputStream());
+    }
+}
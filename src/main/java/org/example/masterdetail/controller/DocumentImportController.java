@@ -0,0 +1,41 @@
+package org.example.masterdetail.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.dto.ImportReport;
+import org.example.masterdetail.enums.ImportFormat;
+import org.example.masterdetail.service.DocumentImportService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+/**
+ * Массовая загрузка документов: тело запроса читается потоком, без multipart-буферизации.
+ */
+@RestController
+@RequestMapping("/documents/import")
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentImportController {
+
+    private final DocumentImportService importService;
+
+    /**
+     * Загрузка CSV (doc_number,doc_date,notes,item_name,item_sum).
+     */
+    @PostMapping(consumes = "text/csv")
+    public ImportReport importCsv(InputStream body) {
+        return importService.importDocuments(body, ImportFormat.CSV);
+    }
+
+    /**
+     * Загрузка NDJSON: один документ с деталями на строку.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportReport importNdjson(InputStream body) {
+        return importService.importDocuments(body, ImportFormat.NDJSON);
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.masterdetail.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.masterdetail.dto.DocumentSearchCriteria;
+import org.example.masterdetail.dto.PurgeReport;
+import org.example.masterdetail.service.DocumentPurgeService;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Массовое удаление документов порциями.
+ */
+@RestController
+@RequestMapping("/documents/purge")
+@RequiredArgsConstructor
+public class DocumentPurgeController {
+
+    private final DocumentPurgeService purgeService;
+
+    /**
+     * Удаляет документы из списка ids, а без него — подходящие под условия поиска
+     * (те же параметры, что у фильтра списка: docNumber, notes, itemName, dateFrom/dateTo, sumFrom/sumTo).
+     */
+    @PostMapping
+    public PurgeReport purge(@RequestParam(required = false) List<Long> ids,
+                             @ModelAttribute DocumentSearchCriteria criteria) {
+        if (ids != null && !ids.isEmpty()) {
+            return purgeService.purgeByIds(ids);
+        }
+        return purgeService.purgeMatching(criteria);
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.masterdetail.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.masterdetail.dto.DetailRow;
+import org.example.masterdetail.dto.DocumentHeader;
+import org.example.masterdetail.dto.DocumentView;
+import org.example.masterdetail.service.DocumentReadService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * JSON API чтения документов на R2DBC.
+ *
+ * <p>Методы возвращают Mono/Flux: Spring MVC освобождает поток запроса до готовности
+ * результата, а ответы application/x-ndjson пишутся по мере чтения строк из БД.</p>
+ */
+@RestController
+@RequestMapping("/api/documents")
+@RequiredArgsConstructor
+public class DocumentReadApiController {
+
+    private final DocumentReadService readService;
+
+    @GetMapping
+    public Flux<DocumentHeader> listDocuments(@RequestParam(required = false) Long afterId,
+                                              @RequestParam(required = false) Integer limit) {
+        return readService.findHeaders(afterId, limit);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DocumentHeader> streamDocuments() {
+        return readService.streamHeaders();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<DocumentView>> getDocument(@PathVariable Long id) {
+        return readService.findById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/by-number/{docNumber}")
+    public Mono<ResponseEntity<DocumentView>> getDocumentByNumber(@PathVariable String docNumber) {
+        return readService.findByDocNumber(docNumber)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{id}/details", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DetailRow> streamDetails(@PathVariable Long id) {
+        return readService.streamDetails(id);
+    }
+}
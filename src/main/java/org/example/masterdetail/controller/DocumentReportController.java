@@ -0,0 +1,36 @@
+package org.example.masterdetail.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.masterdetail.dto.DocumentTotalsRow;
+import org.example.masterdetail.enums.ReportGranularity;
+import org.example.masterdetail.service.DocumentReportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Отчёты по документам: итоги за период по дням или месяцам из заранее посчитанных витрин.
+ */
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class DocumentReportController {
+
+    private final DocumentReportService reportService;
+
+    /**
+     * Количество документов, сумма итогов и среднее количество строк за каждый день (месяц) периода.
+     */
+    @GetMapping("/documents")
+    public List<DocumentTotalsRow> documentTotals(
+            @RequestParam(defaultValue = "DAY") ReportGranularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return reportService.findTotals(granularity, from, to);
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.masterdetail.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.masterdetail.enums.ErrorType;
+import org.example.masterdetail.errors.CustomValidationException;
+import org.example.masterdetail.errors.DocumentConflictException;
+import org.example.masterdetail.errors.DocumentNotFoundException;
+import org.example.masterdetail.service.ErrorLogService;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+/**
+ * Ошибки JSON API в виде ProblemDetail (application/problem+json) с кодом ответа по виду ошибки.
+ *
+ * <p>{@link GlobalExceptionHandler} отдаёт страницу error со статусом 200 и подходит только
+ * для HTML-форм; этот обработчик стоит раньше него и действует лишь на перечисленные контроллеры.
+ * Ошибки самого Spring MVC (нет параметра, неверный тип, нечитаемое тело) обрабатывает
+ * {@link ResponseEntityExceptionHandler} — тоже с ответом 400.</p>
+ */
+@RestControllerAdvice(assignableTypes = {
+        DocumentDetailBatchController.class,
+        DocumentPurgeController.class,
+        DocumentReportController.class,
+        DocumentImportController.class
+})
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RestApiExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private final ErrorLogService errorLogService;
+
+    @ExceptionHandler(DocumentNotFoundException.class)
+    public ProblemDetail handleNotFound(DocumentNotFoundException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    /**
+     * Версия клиента устарела или попытки повторить операцию после конфликтов исчерпаны.
+     */
+    @ExceptionHandler({DocumentConflictException.class, ConcurrencyFailureException.class})
+    public ProblemDetail handleConflict(RuntimeException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(CustomValidationException.class)
+    public ProblemDetail handleValidation(CustomValidationException ex) {
+        errorLogService.logError(ErrorType.VALIDATION_ERROR.getMessage(), "Ошибка валидации: " + ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ProblemDetail handleOtherExceptions(Exception ex) {
+        errorLogService.logError(ErrorType.GENERAL_ERROR.getMessage(), ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR,
+                "Внутренняя ошибка сервера. Обратитесь к администратору.");
+    }
+}
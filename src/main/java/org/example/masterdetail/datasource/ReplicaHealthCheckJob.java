@@ -0,0 +1,22 @@
+package org.example.masterdetail.datasource;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Проверка доступности и отставания реплик с паузой master-detail.replicas.health-check-interval.
+ */
+@Component
+@ConditionalOnProperty(prefix = "master-detail.replicas", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReplicaHealthCheckJob {
+
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Scheduled(fixedDelayString = "${master-detail.replicas.health-check-interval:5s}")
+    public void check() {
+        replicaRoutingDataSource.checkReplicas();
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.masterdetail.datasource;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Запрещает сессии, читающей с реплики, класть прочитанное в кэш второго уровня.
+ *
+ * <p>Кэш общий для всех транзакций, а реплика может отставать: строка, прочитанная с неё
+ * уже после фиксации изменения (и снятия мягкой блокировки), попала бы в кэш в старом виде
+ * и отдавалась бы потом и транзакциям, которые читают с основной базы. Поэтому, как только
+ * {@link ReplicaRoutingDataSource} отдал транзакции соединение с реплики, её сессия
+ * переводится в {@link CacheMode#GET}: из кэша читает, но не пополняет его. Прежний режим
+ * возвращается по завершении транзакции — сессия может пережить её.</p>
+ */
+public class ReplicaReadCacheGuard implements Runnable {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public ReplicaReadCacheGuard(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void run() {
+        EntityManagerFactory emf = entityManagerFactory.getIfAvailable();
+        if (emf == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        if (!(TransactionSynchronizationManager.getResource(emf) instanceof EntityManagerHolder holder)) {
+            return;
+        }
+        Session session = holder.getEntityManager().unwrap(Session.class);
+        CacheMode previous = session.getCacheMode();
+        if (!previous.isPutEnabled()) {
+            return;
+        }
+        session.setCacheMode(CacheMode.GET);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (session.isOpen()) {
+                    session.setCacheMode(previous);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.masterdetail.datasource;
+
+/**
+ * Признак «читать с основной базы» для текущего потока.
+ *
+ * <p>Ставится на время запроса клиента, который недавно сам что-то изменил, чтобы он
+ * не увидел на отстающей реплике своё же старое состояние.</p>
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    public static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+}
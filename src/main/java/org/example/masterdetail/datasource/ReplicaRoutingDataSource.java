@@ -0,0 +1,249 @@
+package org.example.masterdetail.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.ReplicaRoutingProperties;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Источник соединений, который отдаёт транзакциям только для чтения соединения с реплик.
+ *
+ * <p>Маршрут выбирается по признаку readOnly текущей транзакции Spring, поэтому источник
+ * должен стоять за LazyConnectionDataSourceProxy: менеджер транзакций JPA берёт
+ * соединение ещё до того, как признак выставлен, и только ленивый прокси откладывает
+ * настоящий выбор до первого запроса. Всё остальное — запись, работа вне транзакции,
+ * Liquibase и клиенты, которые недавно сами что-то изменили ({@link ReplicaRoutingContext}), —
+ * идёт в основную базу.</p>
+ *
+ * <p>Реплики перебираются по кругу. Реплика, к которой не удалось подключиться или чьё
+ * отставание превысило max-lag, исключается до следующей успешной проверки
+ * {@link #checkReplicas()}; если доступных реплик нет, чтение идёт в основную базу.</p>
+ *
+ * <p>Получив соединение с реплики, источник вызывает обработчик {@link #setReplicaReadListener}
+ * в потоке транзакции — через него сессия JPA перестаёт пополнять кэш второго уровня
+ * ({@link ReplicaReadCacheGuard}).</p>
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, Closeable {
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+    private volatile Runnable replicaReadListener = () -> {
+    };
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, ReplicaRoutingProperties properties) {
+        this.primary = primary;
+        this.lagQuery = properties.getLagQuery();
+        this.maxLagSeconds = properties.getMaxLag().toMillis() / 1000.0;
+        List<ReplicaRoutingProperties.Node> nodes = properties.getNodes();
+        for (int i = 0; i < nodes.size(); i++) {
+            ReplicaRoutingProperties.Node node = nodes.get(i);
+            String name = StringUtils.hasText(node.getName()) ? node.getName() : "replica-" + (i + 1);
+            replicas.add(new Replica(name, createPool(primary, node, name, properties)));
+        }
+        log.info("Read-only transactions are routed to {} replica(s): {}", replicas.size(),
+                replicas.stream().map(Replica::name).toList());
+    }
+
+    /**
+     * Пул реплики с теми же настройками соединений, что у основного: ленивый прокси
+     * применяет autoCommit и уровень изоляции, считанные с основной базы. Недоступная
+     * при старте реплика не мешает запуску приложения.
+     */
+    private static HikariDataSource createPool(HikariDataSource primary, ReplicaRoutingProperties.Node node,
+                                               String name, ReplicaRoutingProperties properties) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        if (primary.getDriverClassName() != null) {
+            config.setDriverClassName(primary.getDriverClassName());
+        }
+        config.setJdbcUrl(node.getUrl());
+        config.setUsername(node.getUsername());
+        config.setPassword(node.getPassword());
+        config.setAutoCommit(primary.isAutoCommit());
+        config.setTransactionIsolation(primary.getTransactionIsolation());
+        config.setConnectionTestQuery(primary.getConnectionTestQuery());
+        config.setMaximumPoolSize(properties.getPoolSize() > 0 ? properties.getPoolSize() : primary.getMaximumPoolSize());
+        if (primary.getMinimumIdle() >= 0) {
+            config.setMinimumIdle(Math.min(primary.getMinimumIdle(), config.getMaximumPoolSize()));
+        }
+        config.setIdleTimeout(primary.getIdleTimeout());
+        config.setMaxLifetime(primary.getMaxLifetime());
+        config.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+        config.setReadOnly(true);
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || ReplicaRoutingContext.isPrimaryRequired()) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.available) {
+                continue;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                replicaConnections.increment();
+                replicaReadListener.run();
+                return connection;
+            } catch (SQLException ex) {
+                markUnavailable(replica, ex.getMessage());
+            }
+        }
+        failovers.increment();
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Обработчик, вызываемый каждый раз, когда транзакция получила соединение с реплики.
+     */
+    public void setReplicaReadListener(Runnable listener) {
+        this.replicaReadListener = listener;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica routing uses the credentials of the configured pools");
+    }
+
+    /**
+     * Проверяет каждую реплику: удаётся ли получить соединение и укладывается ли отставание
+     * в max-lag. Реплика, прошедшая проверку, снова получает запросы.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                double lag = measureLag(connection);
+                replica.lagSeconds = lag;
+                if (lag > maxLagSeconds) {
+                    markUnavailable(replica, String.format("replication lag %.1fs exceeds %.1fs", lag, maxLagSeconds));
+                } else if (!replica.available) {
+                    replica.available = true;
+                    log.info("Replica {} is back in rotation", replica.name);
+                }
+            } catch (SQLException ex) {
+                markUnavailable(replica, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Отставание в секундах; NULL (база не в режиме восстановления) считается нулём.
+     */
+    private double measureLag(Connection connection) throws SQLException {
+        if (!StringUtils.hasText(lagQuery)) {
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            return rs.next() ? rs.getDouble(1) : 0;
+        }
+    }
+
+    private void markUnavailable(Replica replica, String reason) {
+        if (replica.available) {
+            replica.available = false;
+            log.warn("Replica {} is out of rotation: {}", replica.name, reason);
+        }
+    }
+
+    /**
+     * Имена реплик, которые сейчас получают запросы.
+     */
+    public List<String> availableReplicas() {
+        return replicas.stream().filter(r -> r.available).map(Replica::name).toList();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            replica.pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            Gauge.builder("datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .description("1 if the replica receives read-only transactions")
+                    .tag("replica", replica.name)
+                    .register(registry);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replication lag measured by the last health check")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+        FunctionCounter.builder("datasource.routing.connections", primaryConnections, LongAdder::sum)
+                .description("Connections handed out by the routing data source")
+                .tag("target", "primary")
+                .register(registry);
+        FunctionCounter.builder("datasource.routing.connections", replicaConnections, LongAdder::sum)
+                .description("Connections handed out by the routing data source")
+                .tag("target", "replica")
+                .register(registry);
+        FunctionCounter.builder("datasource.routing.failovers", failovers, LongAdder::sum)
+                .description("Read-only transactions sent to the primary because no replica was available")
+                .register(registry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final HikariDataSource pool;
+        private volatile boolean available = true;
+        private volatile double lagSeconds;
+
+        private Replica(String name, HikariDataSource pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        private String name() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.masterdetail.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница keyset-пагинации с токенами соседних страниц.
+ *
+ * @param content        строки страницы в порядке отображения
+ * @param nextCursor     токен следующей страницы или null
+ * @param previousCursor токен предыдущей страницы или null
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, String previousCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), nextCursor, previousCursor);
+    }
+}
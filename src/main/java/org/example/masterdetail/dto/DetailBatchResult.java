@@ -0,0 +1,17 @@
+package org.example.masterdetail.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Итог пакетного изменения спецификации. Пакет применяется целиком или не применяется:
+ * если хотя бы одна операция некорректна, ни одна не применяется.
+ *
+ * @param applied  пакет применён
+ * @param totalSum total_sum документа после пакета (null, если пакет не применён)
+ * @param results  результаты операций в порядке запроса
+ */
+public record DetailBatchResult(boolean applied,
+                                BigDecimal totalSum,
+                                List<DetailOperationResult> results) {
+}
@@ -0,0 +1,69 @@
+package org.example.masterdetail.dto;
+
+import org.example.masterdetail.enums.DetailSortKey;
+import org.example.masterdetail.errors.CustomValidationException;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция keyset-пагинации строк спецификации: ключи граничной строки страницы.
+ * В URL передаётся в виде непрозрачного токена.
+ *
+ * @param sortKey   ключ сортировки, для которого построен курсор
+ * @param direction направление сортировки, для которого построен курсор
+ * @param backward  true — курсор указывает на предыдущую страницу
+ * @param id        detail_id граничной строки
+ * @param itemName  item_name граничной строки (только для {@link DetailSortKey#ITEM_NAME})
+ * @param itemSum   item_sum граничной строки (только для {@link DetailSortKey#ITEM_SUM})
+ */
+public record DetailCursor(DetailSortKey sortKey,
+                           Sort.Direction direction,
+                           boolean backward,
+                           Long id,
+                           String itemName,
+                           BigDecimal itemSum) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        // наименование последним: разделитель внутри него не мешает разбору
+        String raw = String.join(SEPARATOR,
+                sortKey.name(),
+                direction.name(),
+                backward ? "B" : "F",
+                String.valueOf(id),
+                itemSum != null ? itemSum.toPlainString() : "",
+                itemName != null ? itemName : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает токен и проверяет, что он выдан для той же сортировки.
+     */
+    public static DetailCursor decode(String token, DetailSortKey sortKey, Sort.Direction direction) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 6);
+            DetailSortKey key = DetailSortKey.valueOf(parts[0]);
+            DetailCursor cursor = new DetailCursor(
+                    key,
+                    Sort.Direction.valueOf(parts[1]),
+                    "B".equals(parts[2]),
+                    Long.valueOf(parts[3]),
+                    key == DetailSortKey.ITEM_NAME ? parts[5] : null,
+                    parts[4].isEmpty() ? null : new BigDecimal(parts[4]));
+            if (cursor.sortKey() != sortKey || cursor.direction() != direction
+                    || (sortKey == DetailSortKey.ITEM_SUM && cursor.itemSum() == null)) {
+                throw new CustomValidationException("Курсор не соответствует выбранной сортировке");
+            }
+            return cursor;
+        } catch (CustomValidationException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new CustomValidationException("Некорректный курсор страницы: " + token);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.masterdetail.dto;
+
+import org.example.masterdetail.enums.DetailOperationType;
+
+import java.math.BigDecimal;
+
+/**
+ * Одна операция пакетного изменения спецификации.
+ *
+ * @param op       вид операции
+ * @param detailId строка для UPDATE и DELETE; для ADD не передаётся
+ * @param itemName наименование для ADD и UPDATE
+ * @param itemSum  сумма для ADD и UPDATE
+ */
+public record DetailOperation(DetailOperationType op,
+                              Long detailId,
+                              String itemName,
+                              BigDecimal itemSum) {
+}
@@ -0,0 +1,19 @@
+package org.example.masterdetail.dto;
+
+import org.example.masterdetail.enums.DetailOperationType;
+
+/**
+ * Результат одной операции пакета.
+ *
+ * @param index    номер операции в запросе (с нуля)
+ * @param op       вид операции
+ * @param detailId строка спецификации; для ADD — идентификатор новой строки
+ * @param applied  операция применена
+ * @param error    причина отказа; null, если сама операция корректна
+ */
+public record DetailOperationResult(int index,
+                                    DetailOperationType op,
+                                    Long detailId,
+                                    boolean applied,
+                                    String error) {
+}
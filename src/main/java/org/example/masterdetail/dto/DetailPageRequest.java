@@ -0,0 +1,36 @@
+package org.example.masterdetail.dto;
+
+import org.example.masterdetail.enums.DetailSortKey;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Запрос страницы строк спецификации одного документа.
+ *
+ * @param documentId идентификатор документа
+ * @param sortKey    ключ сортировки
+ * @param direction  направление сортировки
+ * @param size       размер страницы
+ * @param cursor     позиция, от которой читается страница; null — первая страница
+ */
+public record DetailPageRequest(Long documentId,
+                                DetailSortKey sortKey,
+                                Sort.Direction direction,
+                                int size,
+                                DetailCursor cursor) {
+
+    public static DetailPageRequest first(Long documentId, DetailSortKey sortKey, Sort.Direction direction, int size) {
+        return new DetailPageRequest(documentId, sortKey, direction, size, null);
+    }
+
+    public boolean backward() {
+        return cursor != null && cursor.backward();
+    }
+
+    /**
+     * Фактический порядок выборки: при движении назад направление инвертируется,
+     * а результат затем разворачивается обратно.
+     */
+    public boolean ascending() {
+        return (direction == Sort.Direction.ASC) != backward();
+    }
+}
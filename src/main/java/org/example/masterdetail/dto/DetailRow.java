@@ -0,0 +1,12 @@
+package org.example.masterdetail.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Строка спецификации документа (read-only проекция).
+ */
+public record DetailRow(Long id,
+                        Long documentId,
+                        String itemName,
+                        BigDecimal itemSum) {
+}
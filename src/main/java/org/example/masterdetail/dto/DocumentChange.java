@@ -0,0 +1,15 @@
+package org.example.masterdetail.dto;
+
+import org.example.masterdetail.enums.DocumentChangeKind;
+
+/**
+ * Изменение документа, зафиксированное в базе.
+ *
+ * @param documentId идентификатор документа
+ * @param version    версия документа на момент рассылки; null, если документ удалён
+ * @param kind       вид изменения
+ */
+public record DocumentChange(Long documentId,
+                             Long version,
+                             DocumentChangeKind kind) {
+}
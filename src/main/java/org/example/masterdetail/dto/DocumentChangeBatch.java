@@ -0,0 +1,19 @@
+package org.example.masterdetail.dto;
+
+import java.util.List;
+
+/**
+ * Одно уведомление шины изменений документов.
+ *
+ * <p>Публикуется и как событие Spring на экземплярах, которые его получили, чтобы
+ * локальные кэши могли подписаться через {@code @EventListener}.</p>
+ *
+ * @param origin        идентификатор экземпляра-отправителя; null — уведомление сформировано локально
+ * @param changes       изменённые документы
+ * @param invalidateAll true — изменений было слишком много или часть уведомлений потеряна,
+ *                      сбросить нужно все кэши документов
+ */
+public record DocumentChangeBatch(String origin,
+                                  List<DocumentChange> changes,
+                                  boolean invalidateAll) {
+}
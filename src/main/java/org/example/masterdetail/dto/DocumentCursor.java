@@ -0,0 +1,63 @@
+package org.example.masterdetail.dto;
+
+import org.example.masterdetail.enums.DocumentSortKey;
+import org.example.masterdetail.errors.CustomValidationException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Позиция keyset-пагинации: ключи последней (или первой, при движении назад)
+ * строки страницы. В URL передаётся в виде непрозрачного токена.
+ *
+ * @param sortKey   ключ сортировки, для которого построен курсор
+ * @param direction направление сортировки, для которого построен курсор
+ * @param backward  true — курсор указывает на предыдущую страницу
+ * @param id        document_id граничной строки
+ * @param docDate   doc_date граничной строки (только для {@link DocumentSortKey#DOC_DATE})
+ */
+public record DocumentCursor(DocumentSortKey sortKey,
+                             Sort.Direction direction,
+                             boolean backward,
+                             Long id,
+                             LocalDateTime docDate) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = String.join(SEPARATOR,
+                sortKey.name(),
+                direction.name(),
+                backward ? "B" : "F",
+                String.valueOf(id),
+                docDate != null ? docDate.toString() : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает токен и проверяет, что он выдан для той же сортировки.
+     */
+    public static DocumentCursor decode(String token, DocumentSortKey sortKey, Sort.Direction direction) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            DocumentCursor cursor = new DocumentCursor(
+                    DocumentSortKey.valueOf(parts[0]),
+                    Sort.Direction.valueOf(parts[1]),
+                    "B".equals(parts[2]),
+                    Long.valueOf(parts[3]),
+                    parts[4].isEmpty() ? null : LocalDateTime.parse(parts[4]));
+            if (cursor.sortKey() != sortKey || cursor.direction() != direction
+                    || (sortKey == DocumentSortKey.DOC_DATE && cursor.docDate() == null)) {
+                throw new CustomValidationException("Курсор не соответствует выбранной сортировке");
+            }
+            return cursor;
+        } catch (CustomValidationException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new CustomValidationException("Некорректный курсор страницы: " + token);
+        }
+    }
+}
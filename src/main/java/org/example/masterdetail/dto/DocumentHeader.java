@@ -0,0 +1,15 @@
+package org.example.masterdetail.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Реквизиты и итог документа без спецификаций (read-only проекция API чтения).
+ */
+public record DocumentHeader(Long id,
+                             String docNumber,
+                             LocalDateTime docDate,
+                             BigDecimal totalSum,
+                             String notes,
+                             Long version) {
+}
@@ -0,0 +1,17 @@
+package org.example.masterdetail.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Страница списка документов вместе со строками их спецификаций.
+ *
+ * @param page    страница заголовков
+ * @param details строки спецификаций, сгруппированные по document_id
+ */
+public record DocumentListPage(CursorPage<DocumentSummary> page, Map<Long, List<DetailRow>> details) {
+
+    public List<DetailRow> detailsOf(Long documentId) {
+        return details.getOrDefault(documentId, List.of());
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.masterdetail.dto;
+
+import org.example.masterdetail.enums.DocumentSortKey;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Запрос страницы списка документов.
+ *
+ * @param sortKey   ключ сортировки
+ * @param direction направление сортировки
+ * @param size      размер страницы
+ * @param cursor    позиция, от которой читается страница; null — первая страница
+ * @param filter    условия поиска; {@link DocumentSearchCriteria#NONE} — все документы
+ */
+public record DocumentPageRequest(DocumentSortKey sortKey,
+                                  Sort.Direction direction,
+                                  int size,
+                                  DocumentCursor cursor,
+                                  DocumentSearchCriteria filter) {
+
+    public DocumentPageRequest {
+        if (filter == null) {
+            filter = DocumentSearchCriteria.NONE;
+        }
+    }
+
+    public DocumentPageRequest(DocumentSortKey sortKey, Sort.Direction direction, int size, DocumentCursor cursor) {
+        this(sortKey, direction, size, cursor, DocumentSearchCriteria.NONE);
+    }
+
+    public static DocumentPageRequest first(DocumentSortKey sortKey, Sort.Direction direction, int size) {
+        return new DocumentPageRequest(sortKey, direction, size, null);
+    }
+
+    public boolean backward() {
+        return cursor != null && cursor.backward();
+    }
+
+    /**
+     * Фактический порядок выборки: при движении назад направление инвертируется,
+     * а результат затем разворачивается обратно.
+     */
+    public boolean ascending() {
+        return (direction == Sort.Direction.ASC) != backward();
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.masterdetail.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Фильтры поиска документов. Пустые строки считаются незаданными; все заданные условия
+ * объединяются через AND.
+ *
+ * @param docNumber префикс номера документа (с учётом регистра)
+ * @param notes     слова, которые должны встречаться в примечании (полнотекстовый поиск)
+ * @param itemName  подстрока наименования хотя бы одной строки спецификации (без учёта регистра)
+ * @param dateFrom  дата документа не раньше (включительно)
+ * @param dateTo    дата документа не позже (включительно)
+ * @param sumFrom   итог документа не меньше
+ * @param sumTo     итог документа не больше
+ */
+public record DocumentSearchCriteria(String docNumber,
+                                     String notes,
+                                     String itemName,
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+                                     BigDecimal sumFrom,
+                                     BigDecimal sumTo) {
+
+    public static final DocumentSearchCriteria NONE =
+            new DocumentSearchCriteria(null, null, null, null, null, null, null);
+
+    public DocumentSearchCriteria {
+        docNumber = normalize(docNumber);
+        notes = normalize(notes);
+        itemName = normalize(itemName);
+    }
+
+    public boolean isEmpty() {
+        return docNumber == null && notes == null && itemName == null
+                && dateFrom == null && dateTo == null && sumFrom == null && sumTo == null;
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
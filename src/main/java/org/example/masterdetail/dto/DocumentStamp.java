@@ -0,0 +1,29 @@
+package org.example.masterdetail.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Версия документа без его содержимого — всё, что нужно для проверки условного GET
+ * (If-None-Match / If-Modified-Since) до загрузки спецификаций и рендеринга страницы.
+ *
+ * @param id        идентификатор документа
+ * @param version   версия строки (@Version), меняется при любом изменении документа или его строк
+ * @param updatedAt время последнего изменения
+ */
+public record DocumentStamp(Long id, Long version, LocalDateTime updatedAt) {
+
+    /**
+     * Сильный ETag вида {@code "<id>-<version>"}.
+     */
+    public String etag() {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Время последнего изменения в миллисекундах эпохи для заголовка Last-Modified; -1, если неизвестно.
+     */
+    public long lastModifiedMillis() {
+        return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.masterdetail.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка списка документов (read-only проекция, без управляемых сущностей).
+ *
+ * @param detailCount количество строк спецификации документа
+ */
+public record DocumentSummary(Long id,
+                              String docNumber,
+                              LocalDateTime docDate,
+                              BigDecimal totalSum,
+                              Long detailCount) {
+}
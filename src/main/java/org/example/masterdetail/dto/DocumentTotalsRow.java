@@ -0,0 +1,20 @@
+package org.example.masterdetail.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Строка отчёта: итоги документов за день или месяц.
+ *
+ * @param period           день или первый день месяца
+ * @param documentCount    количество документов
+ * @param totalSum         сумма total_sum документов
+ * @param lineCount        количество строк спецификаций
+ * @param averageLineCount среднее количество строк на документ
+ */
+public record DocumentTotalsRow(LocalDate period,
+                                long documentCount,
+                                BigDecimal totalSum,
+                                long lineCount,
+                                BigDecimal averageLineCount) {
+}
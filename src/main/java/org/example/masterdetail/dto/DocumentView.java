@@ -0,0 +1,10 @@
+package org.example.masterdetail.dto;
+
+import java.util.List;
+
+/**
+ * Документ со спецификациями (read-only проекция API чтения).
+ */
+public record DocumentView(DocumentHeader header,
+                           List<DetailRow> details) {
+}
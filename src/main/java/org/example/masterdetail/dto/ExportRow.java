@@ -0,0 +1,17 @@
+package org.example.masterdetail.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка выгрузки: документ и одна его деталь (поля детали null, если деталей нет).
+ */
+public record ExportRow(Long documentId,
+                        String docNumber,
+                        LocalDateTime docDate,
+                        BigDecimal totalSum,
+                        String notes,
+                        Long detailId,
+                        String itemName,
+                        BigDecimal itemSum) {
+}
@@ -0,0 +1,17 @@
+package org.example.masterdetail.dto;
+
+import java.util.List;
+
+/**
+ * Итог массовой загрузки документов.
+ *
+ * @param documentsImported количество сохранённых документов
+ * @param detailsImported   количество сохранённых строк спецификаций
+ * @param rowsRejected      количество отклонённых документов
+ * @param errors            причины отказа (не больше master-detail.import.max-reported-errors)
+ */
+public record ImportReport(long documentsImported,
+                           long detailsImported,
+                           long rowsRejected,
+                           List<ImportRowError> errors) {
+}
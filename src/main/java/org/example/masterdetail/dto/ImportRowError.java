@@ -0,0 +1,11 @@
+package org.example.masterdetail.dto;
+
+/**
+ * Строка входного файла, которая не была загружена.
+ *
+ * @param line      номер строки во входном потоке (первая строка документа)
+ * @param docNumber номер документа, если его удалось прочитать
+ * @param message   причина отказа
+ */
+public record ImportRowError(long line, String docNumber, String message) {
+}
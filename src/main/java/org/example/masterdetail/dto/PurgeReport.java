@@ -0,0 +1,13 @@
+package org.example.masterdetail.dto;
+
+/**
+ * Итог массового удаления документов.
+ *
+ * @param documentsDeleted удалено документов
+ * @param detailsDeleted   удалено строк спецификаций
+ * @param chunks           количество порций (транзакций)
+ */
+public record PurgeReport(long documentsDeleted,
+                          long detailsDeleted,
+                          int chunks) {
+}
@@ -0,0 +1,16 @@
+package org.example.masterdetail.dto;
+
+/**
+ * Итог одного прохода сверки total_sum с суммой спецификаций.
+ *
+ * @param scanned    проверено документов
+ * @param mismatches найдено расхождений
+ * @param fixed      исправлено итогов
+ * @param skipped    расхождения, не исправленные из-за параллельного изменения документа
+ *                   (будут проверены в следующий проход)
+ */
+public record ReconciliationReport(long scanned,
+                                   long mismatches,
+                                   long fixed,
+                                   long skipped) {
+}
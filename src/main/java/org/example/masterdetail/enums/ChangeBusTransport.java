@@ -0,0 +1,15 @@
+package org.example.masterdetail.enums;
+
+/**
+ * Канал рассылки уведомлений об изменённых документах.
+ */
+public enum ChangeBusTransport {
+    /**
+     * PostgreSQL LISTEN/NOTIFY: доходит до всех экземпляров, подключённых к той же базе.
+     */
+    POSTGRES,
+    /**
+     * В памяти процесса: для тестов и запуска в одном экземпляре.
+     */
+    IN_MEMORY
+}
@@ -0,0 +1,17 @@
+package org.example.masterdetail.enums;
+
+/**
+ * Способ загрузки деталей для страницы документов.
+ */
+public enum DetailFetchStrategy {
+    /**
+     * Один запрос с LEFT JOIN FETCH деталей для документов страницы:
+     * по строке на каждую деталь, колонки документа повторяются.
+     */
+    JOIN_FETCH,
+    /**
+     * Сначала заголовки страницы, затем детали пакетными запросами
+     * WHERE document_id IN (...) размером hibernate.default_batch_fetch_size.
+     */
+    TWO_PHASE
+}
@@ -0,0 +1,10 @@
+package org.example.masterdetail.enums;
+
+/**
+ * Вид операции над строкой спецификации в пакетном запросе.
+ */
+public enum DetailOperationType {
+    ADD,
+    UPDATE,
+    DELETE
+}
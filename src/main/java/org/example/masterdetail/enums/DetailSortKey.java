@@ -0,0 +1,19 @@
+package org.example.masterdetail.enums;
+
+import lombok.Getter;
+
+/**
+ * Ключи сортировки строк спецификации в форме документа. Для каждого ключа keyset-пагинация
+ * дополнительно упорядочивает по detail_id, чтобы порядок был стабильным.
+ */
+@Getter
+public enum DetailSortKey {
+    ID("id"),
+    ITEM_NAME("itemName"),
+    ITEM_SUM("itemSum");
+    private final String property;
+
+    DetailSortKey(String property) {
+        this.property = property;
+    }
+}
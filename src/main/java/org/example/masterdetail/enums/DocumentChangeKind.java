@@ -0,0 +1,21 @@
+package org.example.masterdetail.enums;
+
+/**
+ * Вид изменения документа в уведомлениях другим экземплярам приложения.
+ */
+public enum DocumentChangeKind {
+    CREATED,
+    UPDATED,
+    DELETED;
+
+    /**
+     * Итог двух изменений одного документа за окно накопления: удаление важнее всего,
+     * созданный и затем изменённый документ остаётся созданным.
+     */
+    public static DocumentChangeKind merge(DocumentChangeKind first, DocumentChangeKind second) {
+        if (first == DELETED || second == DELETED) {
+            return DELETED;
+        }
+        return first == CREATED || second == CREATED ? CREATED : UPDATED;
+    }
+}
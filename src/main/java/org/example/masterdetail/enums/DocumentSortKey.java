@@ -0,0 +1,18 @@
+package org.example.masterdetail.enums;
+
+import lombok.Getter;
+
+/**
+ * Ключи сортировки списка документов. Для каждого ключа keyset-пагинация
+ * дополнительно упорядочивает по document_id, чтобы порядок был стабильным.
+ */
+@Getter
+public enum DocumentSortKey {
+    ID("id"),
+    DOC_DATE("docDate");
+    private final String property;
+
+    DocumentSortKey(String property) {
+        this.property = property;
+    }
+}
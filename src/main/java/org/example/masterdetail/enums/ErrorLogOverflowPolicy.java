@@ -0,0 +1,21 @@
+package org.example.masterdetail.enums;
+
+/**
+ * Поведение журнала ошибок, когда очередь записи заполнена.
+ */
+public enum ErrorLogOverflowPolicy {
+    /**
+     * Новая запись отбрасывается и учитывается в счётчике потерь.
+     */
+    DROP,
+    /**
+     * Вызывающий поток ждёт места в очереди не дольше block-timeout,
+     * после чего запись отбрасывается.
+     */
+    BLOCK,
+    /**
+     * Пока очередь заполнена больше чем наполовину, принимается только каждая
+     * sample-rate-я запись; при полной очереди записи отбрасываются.
+     */
+    SAMPLE
+}
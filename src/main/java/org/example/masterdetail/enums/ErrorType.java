@@ -7,6 +7,9 @@ public enum ErrorType {
     DOC_NUMBER_DUPLICATE("document number already exists"),
     DOC_NOT_FOUND("Document not found"),
     DETAIL_NOT_FOUND("Detail not found"),
+    DETAIL_CONCURRENT_MODIFICATION("Detail was modified concurrently"),
+    DOCUMENT_VERSION_CONFLICT("Document was modified after it was read"),
+    TOTAL_SUM_MISMATCH("Document total does not match details"),
     VALIDATION_ERROR("Validation error"),
     GENERAL_ERROR("Internal error");
     private final String message;
@@ -0,0 +1,25 @@
+package org.example.masterdetail.enums;
+
+import lombok.Getter;
+
+/**
+ * Формат выгрузки документов.
+ */
+@Getter
+public enum ExportFormat {
+    /**
+     * CSV: по строке на деталь, колонки документа повторяются; документ без деталей — одна строка.
+     */
+    CSV("text/csv", "csv"),
+    /**
+     * NDJSON: по строке на документ с вложенным массивом details.
+     */
+    NDJSON("application/x-ndjson", "ndjson");
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.masterdetail.enums;
+
+/**
+ * Формат потока массовой загрузки документов.
+ */
+public enum ImportFormat {
+    /**
+     * CSV с заголовком doc_number,doc_date,notes,item_name,item_sum:
+     * по строке на деталь, подряд идущие строки с одним doc_number образуют документ.
+     */
+    CSV,
+    /**
+     * JSON-объект документа с массивом details на каждой строке.
+     */
+    NDJSON
+}
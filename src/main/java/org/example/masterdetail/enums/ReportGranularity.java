@@ -0,0 +1,9 @@
+package org.example.masterdetail.enums;
+
+/**
+ * Шаг строк отчёта по документам.
+ */
+public enum ReportGranularity {
+    DAY,
+    MONTH
+}
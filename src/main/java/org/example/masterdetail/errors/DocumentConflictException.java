@@ -0,0 +1,11 @@
+package org.example.masterdetail.errors;
+
+/**
+ * Документ изменён после того, как клиент прочитал его версию. Повтор операции
+ * не поможет — клиенту нужно перечитать документ.
+ */
+public class DocumentConflictException extends RuntimeException {
+    public DocumentConflictException(String message) {
+        super(message);
+    }
+}
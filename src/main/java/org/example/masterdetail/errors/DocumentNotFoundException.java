@@ -0,0 +1,10 @@
+package org.example.masterdetail.errors;
+
+/**
+ * Документа с указанным идентификатором нет (или он уже удалён).
+ */
+public class DocumentNotFoundException extends RuntimeException {
+    public DocumentNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.masterdetail.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.masterdetail.config.ReplicaRoutingProperties;
+import org.example.masterdetail.datasource.ReplicaRoutingContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Читать свои записи: клиент, который только что что-то изменил, какое-то время читает с основной базы.
+ *
+ * <p>Изменяющий запрос получает cookie со сроком read-your-writes; пока срок не вышел,
+ * все транзакции запросов этого клиента идут в основную базу, даже только для чтения.
+ * Срок хранится у клиента, поэтому работает и за балансировщиком с несколькими экземплярами.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "master-detail.replicas", name = "enabled", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "md-primary-until";
+
+    private static final Set<String> MUTATING_METHODS = Set.of(
+            HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name(), HttpMethod.DELETE.name());
+
+    private final long windowMillis;
+
+    public ReadYourWritesFilter(ReplicaRoutingProperties properties) {
+        this.windowMillis = properties.getReadYourWrites().toMillis();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return windowMillis <= 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        if (MUTATING_METHODS.contains(request.getMethod())) {
+            // cookie ставится до обработки: после редиректа ответ уже отправлен
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(now + windowMillis));
+            cookie.setPath(StringUtils.hasText(request.getContextPath()) ? request.getContextPath() : "/");
+            cookie.setMaxAge((int) Math.ceil(windowMillis / 1000.0));
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+            ReplicaRoutingContext.requirePrimary();
+        } else if (primaryUntil(request) > now) {
+            ReplicaRoutingContext.requirePrimary();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingContext.clear();
+        }
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.masterdetail.filter;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.RequestConcurrencyProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает число одновременно обрабатываемых запросов при работе на виртуальных потоках.
+ *
+ * <p>Пул платформенных потоков Tomcat сам ограничивал параллелизм; виртуальных потоков
+ * может быть сколько угодно, и без ограничения тысячи запросов одновременно встают в
+ * очередь Hikari за 20 соединениями и падают по connection-timeout. Фильтр пропускает
+ * не больше запросов, чем есть соединений, остальные ждут в справедливой очереди
+ * не дольше acquire-timeout и получают 503 с Retry-After.</p>
+ *
+ * <p>Запросы actuator не ограничиваются, чтобы мониторинг работал и под нагрузкой.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class RequestConcurrencyLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private final Semaphore permits;
+    private final int maxConcurrentRequests;
+    private final long acquireTimeoutMillis;
+
+    public RequestConcurrencyLimitFilter(RequestConcurrencyProperties properties, DataSource dataSource) {
+        this.maxConcurrentRequests = properties.getMaxConcurrentRequests() > 0
+                ? properties.getMaxConcurrentRequests()
+                : Math.max(1, poolSize(dataSource) - 1);
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.acquireTimeoutMillis = properties.getAcquireTimeout().toMillis();
+        log.info("Virtual thread request limit: {} concurrent requests", maxConcurrentRequests);
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("master-detail.concurrency.max-concurrent-requests must be set " +
+                    "when the data source is not HikariCP", ex);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is busy, try again later");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("http.server.requests.permits.available", permits, Semaphore::availablePermits)
+                .description("Free slots for concurrent requests in virtual thread mode")
+                .register(registry);
+        Gauge.builder("http.server.requests.permits.waiting", permits, Semaphore::getQueueLength)
+                .description("Requests waiting for a free slot in virtual thread mode")
+                .register(registry);
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.masterdetail.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Распределения размеров документов.
+ *
+ * <p>document.details — размер коллекции спецификаций документа при сохранении и загрузке,
+ * document.rows — количество строк, которое документ занимает в потоке загрузки или выгрузки.
+ * Тег operation указывает, где сделан замер.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentMetrics {
+
+    public static final String ADD = "add";
+    public static final String UPDATE = "update";
+    public static final String LOAD = "load";
+    public static final String PAGE = "page";
+    public static final String IMPORT = "import";
+    public static final String EXPORT = "export";
+
+    private final MeterRegistry registry;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public void recordDetails(String operation, int size) {
+        summary("document.details", "Количество спецификаций в документе", operation).record(size);
+    }
+
+    public void recordRows(String operation, long rows) {
+        summary("document.rows", "Количество строк документа в потоке загрузки или выгрузки", operation).record(rows);
+    }
+
+    private DistributionSummary summary(String name, String description, String operation) {
+        return summaries.computeIfAbsent(name + ':' + operation, key -> DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("rows")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.masterdetail.model;
+
+/**
+ * Имена регионов кэша второго уровня.
+ */
+public final class CacheRegions {
+
+    public static final String DOCUMENTS = "documents";
+    public static final String DOCUMENT_DETAILS_COLLECTION = "documents.details";
+    public static final String DOCUMENT_DETAILS = "document-details";
+    public static final String DOC_NUMBER_QUERIES = "documents.doc-number-queries";
+
+    private CacheRegions() {
+    }
+}
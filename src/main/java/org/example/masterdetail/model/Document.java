@@ -3,11 +3,14 @@ package org.example.masterdetail.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -15,11 +18,12 @@ import java.util.List;
 @Setter
 @Entity
 @Table(name = "documents")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.DOCUMENTS)
 @Builder
 public class Document {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_documents_id_seq")
-    @SequenceGenerator(name = "documents_documents_id_seq", sequenceName = "documents_documents_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "documents_documents_id_seq", sequenceName = "documents_documents_id_seq", allocationSize = 50)
     @Column(name = "document_id")
     private Long id;
 
@@ -37,6 +41,41 @@ public class Document {
     @Column(name = "notes")
     private String notes;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * Время последнего изменения: Last-Modified для условных GET. Меняется вместе с version
+     * (в том числе в атомарных UPDATE репозитория), поэтому ETag строится по версии, а это поле
+     * лишь дополняет его для клиентов, которые шлют только If-Modified-Since.
+     */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Упорядоченное множество, а не bag: Hibernate удаляет и добавляет отдельные строки,
+     * не пересоздавая коллекцию, а удаление элемента — O(1). Строки по-прежнему идут
+     * в порядке добавления (detail_id). Отдельную строку по id ищут через
+     * DocumentDetailRepository, не перебирая коллекцию.
+     */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.DOCUMENT_DETAILS_COLLECTION)
     @OneToMany(mappedBy = "document", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
-    private List<DocumentDetail> details = new ArrayList<>();
+    @OrderBy("id")
+    private Set<DocumentDetail> details = new LinkedHashSet<>();
+
+    /**
+     * Принимает спецификации в любом порядке обхода и сохраняет его.
+     * null оставляется как есть: для updateDocument он означает «спецификации не меняются».
+     */
+    public void setDetails(Collection<DocumentDetail> details) {
+        this.details = details != null ? new LinkedHashSet<>(details) : null;
+    }
+
+    @PrePersist
+    void initUpdatedAt() {
+        if (updatedAt == null) {
+            updatedAt = LocalDateTime.now();
+        }
+    }
 }
@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 
@@ -15,11 +17,12 @@ import java.math.BigDecimal;
 @Setter
 @Entity
 @Table(name = "document_detail")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.DOCUMENT_DETAILS)
 public class DocumentDetail {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "document_detail_document_detail_id_seq")
-    @SequenceGenerator(name = "document_detail_document_detail_id_seq", sequenceName = "document_detail_document_detail_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "document_detail_document_detail_id_seq", sequenceName = "document_detail_document_detail_id_seq", allocationSize = 50)
     @Column(name = "detail_id")
     private Long id;
 
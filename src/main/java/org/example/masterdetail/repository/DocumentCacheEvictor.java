@@ -0,0 +1,192 @@
+package org.example.masterdetail.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.example.masterdetail.model.CacheRegions;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.hibernate.cache.spi.access.CachedDomainDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Точечное вытеснение документа из кэша второго уровня после изменений в обход сессии
+ * (UPDATE/DELETE-запросами).
+ *
+ * <p>Такие запросы объявляют собственные query spaces, поэтому Hibernate не очищает
+ * регионы целиком. Вместо этого затронутые документ, его коллекция спецификаций и
+ * спецификация закрываются мягкой блокировкой (soft lock) до конца транзакции — так же,
+ * как Hibernate поступает с собственными UPDATE. Пока блокировка стоит, кэш не отдаёт
+ * запись, а после её снятия не примет копию, прочитанную транзакцией, начавшейся
+ * до фиксации изменений.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentCacheEvictor {
+
+    /**
+     * Query space UPDATE/DELETE-запросов, вытесняющих кэш через этот компонент.
+     */
+    public static final String QUERY_SPACE = "master_detail_manual_cache_eviction";
+
+    private static final String DETAILS_ROLE = Document.class.getName() + ".details";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public void evictDocument(Long documentId) {
+        evict(documentId, null);
+    }
+
+    public void evictDetail(Long documentId, Long detailId) {
+        evict(documentId, detailId);
+    }
+
+    public void evictDetails(Long documentId, Collection<Long> detailIds) {
+        evict(documentId, null);
+        if (detailIds.isEmpty()) {
+            return;
+        }
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (entityManager == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            detailIds.forEach(id -> sessionFactory.getCache().evictEntityData(DocumentDetail.class, id));
+            return;
+        }
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(DocumentDetail.class);
+        List<Runnable> unlocks = new ArrayList<>(detailIds.size());
+        detailIds.forEach(id -> lockEntity(session, persister, id, unlocks));
+        afterCompletion(() -> unlocks.forEach(Runnable::run));
+    }
+
+    /**
+     * Вытесняет документ и кэшированные проверки номеров: UPDATE реквизитов мог сменить номер,
+     * а запросы по номеру инвалидируются только через таблицу documents.
+     */
+    public void evictDocumentHeader(Long documentId) {
+        evict(documentId, null);
+        evictNow(cache -> cache.evictQueryRegion(CacheRegions.DOC_NUMBER_QUERIES));
+    }
+
+    /**
+     * Вытесняет документы, удалённые DELETE-запросом, и кэшированные проверки номеров.
+     * Их спецификации удалены каскадом БД, идентификаторы строк не читались,
+     * поэтому регион спецификаций очищается целиком.
+     */
+    public void evictDeletedDocuments(Collection<Long> documentIds) {
+        evictWithAllDetails(documentIds);
+    }
+
+    /**
+     * Вытесняет документы, изменённые другим экземпляром приложения. Какие строки спецификаций
+     * затронуты, из уведомления не известно, поэтому, как и при удалении, регион спецификаций
+     * очищается целиком.
+     */
+    public void evictChangedElsewhere(Collection<Long> documentIds) {
+        evictWithAllDetails(documentIds);
+    }
+
+    /**
+     * Очищает все регионы документов: уведомления о части изменений могли не дойти.
+     */
+    public void evictAll() {
+        evictNow(cache -> {
+            cache.evictEntityData(Document.class);
+            cache.evictCollectionData(DETAILS_ROLE);
+            cache.evictEntityData(DocumentDetail.class);
+            cache.evictQueryRegion(CacheRegions.DOC_NUMBER_QUERIES);
+        });
+    }
+
+    private void evictWithAllDetails(Collection<Long> documentIds) {
+        documentIds.forEach(id -> evict(id, null));
+        evictNow(cache -> {
+            cache.evictQueryRegion(CacheRegions.DOC_NUMBER_QUERIES);
+            cache.evictEntityData(DocumentDetail.class);
+        });
+    }
+
+    /**
+     * Очищает регионы сразу и ещё раз после завершения транзакции: копия, прочитанная
+     * параллельной транзакцией до фиксации, не переживёт изменения.
+     */
+    private void evictNow(Consumer<org.hibernate.Cache> eviction) {
+        Runnable action = () -> eviction.accept(entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class));
+        action.run();
+        afterCompletion(action);
+    }
+
+    private void evict(Long documentId, Long detailId) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (entityManager == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            org.hibernate.Cache cache = sessionFactory.getCache();
+            cache.evictEntityData(Document.class, documentId);
+            cache.evictCollectionData(DETAILS_ROLE, documentId);
+            if (detailId != null) {
+                cache.evictEntityData(DocumentDetail.class, detailId);
+            }
+            return;
+        }
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        MappingMetamodel metamodel = sessionFactory.getMappingMetamodel();
+        List<Runnable> unlocks = new ArrayList<>(3);
+        lockEntity(session, metamodel.getEntityDescriptor(Document.class), documentId, unlocks);
+        lockCollection(session, metamodel.getCollectionDescriptor(DETAILS_ROLE), documentId, unlocks);
+        if (detailId != null) {
+            lockEntity(session, metamodel.getEntityDescriptor(DocumentDetail.class), detailId, unlocks);
+        }
+        afterCompletion(() -> unlocks.forEach(Runnable::run));
+    }
+
+    private void lockEntity(SharedSessionContractImplementor session, EntityPersister persister, Long id,
+                            List<Runnable> unlocks) {
+        if (!persister.canWriteToCache()) {
+            return;
+        }
+        Object key = persister.getCacheAccessStrategy()
+                .generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier());
+        lock(session, persister.getCacheAccessStrategy(), key, unlocks);
+    }
+
+    private void lockCollection(SharedSessionContractImplementor session, CollectionPersister persister, Long ownerId,
+                                List<Runnable> unlocks) {
+        if (!persister.hasCache()) {
+            return;
+        }
+        Object key = persister.getCacheAccessStrategy()
+                .generateCacheKey(ownerId, persister, session.getFactory(), session.getTenantIdentifier());
+        lock(session, persister.getCacheAccessStrategy(), key, unlocks);
+    }
+
+    private void lock(SharedSessionContractImplementor session, CachedDomainDataAccess access, Object key,
+                      List<Runnable> unlocks) {
+        SoftLock lock = access.lockItem(session, key, null);
+        unlocks.add(() -> access.unlockItem(session, key, lock));
+    }
+
+    private void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
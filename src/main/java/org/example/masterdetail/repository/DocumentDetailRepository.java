@@ -1,9 +1,64 @@
 package org.example.masterdetail.repository;
 
+import jakarta.persistence.QueryHint;
+import org.example.masterdetail.dto.DetailRow;
 import org.example.masterdetail.model.DocumentDetail;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface DocumentDetailRepository extends JpaRepository<DocumentDetail, Long> {
+public interface DocumentDetailRepository extends JpaRepository<DocumentDetail, Long>, DocumentDetailRepositoryCustom {
+
+    @Query("select new org.example.masterdetail.dto.DetailRow(d.id, d.document.id, d.itemName, d.itemSum) " +
+            "from DocumentDetail d where d.document.id in :documentIds order by d.document.id, d.id")
+    List<DetailRow> findRowsByDocumentIds(@Param("documentIds") Collection<Long> documentIds);
+
+    @Query("select new org.example.masterdetail.dto.DetailRow(d.id, d.document.id, d.itemName, d.itemSum) " +
+            "from DocumentDetail d where d.document.id = :documentId and d.id in :ids")
+    List<DetailRow> findRows(@Param("documentId") Long documentId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Строка спецификации документа. В отличие от findById условие содержит document_id,
+     * поэтому в PostgreSQL запрос читает одну секцию document_detail, а не индексы всех секций.
+     */
+    @Query("select d from DocumentDetail d where d.document.id = :documentId and d.id = :id")
+    Optional<DocumentDetail> findInDocument(@Param("documentId") Long documentId, @Param("id") Long id);
+
+    /**
+     * Обновляет строку спецификации, только если её сумма не изменилась с момента чтения.
+     *
+     * @return 1 — строка обновлена, 0 — строка удалена или изменена параллельно
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE document_detail SET item_name = :itemName, item_sum = :itemSum " +
+            "WHERE detail_id = :detailId AND document_id = :documentId AND item_sum = :expectedSum", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = DocumentCacheEvictor.QUERY_SPACE))
+    int updateIfUnchanged(@Param("documentId") Long documentId,
+                          @Param("detailId") Long detailId,
+                          @Param("expectedSum") BigDecimal expectedSum,
+                          @Param("itemName") String itemName,
+                          @Param("itemSum") BigDecimal itemSum);
+
+    /**
+     * Удаляет строку спецификации, только если её сумма не изменилась с момента чтения.
+     *
+     * @return 1 — строка удалена, 0 — строка уже удалена или изменена параллельно
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM document_detail " +
+            "WHERE detail_id = :detailId AND document_id = :documentId AND item_sum = :expectedSum", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = DocumentCacheEvictor.QUERY_SPACE))
+    int deleteIfUnchanged(@Param("documentId") Long documentId,
+                          @Param("detailId") Long detailId,
+                          @Param("expectedSum") BigDecimal expectedSum);
 }
@@ -0,0 +1,18 @@
+package org.example.masterdetail.repository;
+
+import org.example.masterdetail.dto.CursorPage;
+import org.example.masterdetail.dto.DetailPageRequest;
+import org.example.masterdetail.dto.DetailRow;
+
+/**
+ * Запросы к спецификациям, которые не выражаются производными методами Spring Data.
+ */
+public interface DocumentDetailRepositoryCustom {
+
+    /**
+     * Возвращает страницу строк спецификации одного документа методом keyset-пагинации
+     * (seek по паре (ключ сортировки, detail_id) внутри document_id). Документ и сущности
+     * спецификаций не загружаются.
+     */
+    CursorPage<DetailRow> findDetailPage(DetailPageRequest request);
+}
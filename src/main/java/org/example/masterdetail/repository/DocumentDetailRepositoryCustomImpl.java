@@ -0,0 +1,103 @@
+package org.example.masterdetail.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.masterdetail.dto.CursorPage;
+import org.example.masterdetail.dto.DetailCursor;
+import org.example.masterdetail.dto.DetailPageRequest;
+import org.example.masterdetail.dto.DetailRow;
+import org.example.masterdetail.enums.DetailSortKey;
+import org.example.masterdetail.model.DocumentDetail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Постраничное чтение спецификации. Порядок (document_id, ключ, detail_id) совпадает
+ * с индексами idx_document_detail_doc_*, поэтому любая страница читается
+ * коротким диапазоном индекса, сколько бы строк ни было в документе.
+ */
+public class DocumentDetailRepositoryCustomImpl implements DocumentDetailRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<DetailRow> findDetailPage(DetailPageRequest request) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DetailRow> query = cb.createQuery(DetailRow.class);
+        Root<DocumentDetail> root = query.from(DocumentDetail.class);
+        Path<Long> id = root.get("id");
+        query.select(cb.construct(DetailRow.class,
+                id, root.get("document").get("id"), root.get("itemName"), root.get("itemSum")));
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(root.get("document").get("id"), request.documentId()));
+        if (request.cursor() != null) {
+            predicates.add(seek(cb, root, request));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        List<Order> orders = new ArrayList<>();
+        if (request.sortKey() != DetailSortKey.ID) {
+            orders.add(order(cb, root.get(request.sortKey().getProperty()), request.ascending()));
+        }
+        orders.add(order(cb, id, request.ascending()));
+        query.orderBy(orders);
+        List<DetailRow> rows = entityManager.createQuery(query)
+                .setMaxResults(request.size() + 1)
+                .getResultList();
+        return toPage(rows, request);
+    }
+
+    private static Predicate seek(CriteriaBuilder cb, Root<DocumentDetail> root, DetailPageRequest request) {
+        DetailCursor cursor = request.cursor();
+        boolean ascending = request.ascending();
+        Path<Long> id = root.get("id");
+        Predicate afterId = ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+        return switch (request.sortKey()) {
+            case ID -> afterId;
+            case ITEM_NAME -> after(cb, root.get("itemName"), cursor.itemName(), ascending, afterId);
+            case ITEM_SUM -> after(cb, root.get("itemSum"), cursor.itemSum(), ascending, afterId);
+        };
+    }
+
+    private static <Y extends Comparable<? super Y>> Predicate after(CriteriaBuilder cb, Expression<Y> key, Y value,
+                                                                     boolean ascending, Predicate afterId) {
+        Predicate afterKey = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+        return cb.or(afterKey, cb.and(cb.equal(key, value), afterId));
+    }
+
+    private static Order order(CriteriaBuilder cb, Expression<?> expression, boolean ascending) {
+        return ascending ? cb.asc(expression) : cb.desc(expression);
+    }
+
+    private static CursorPage<DetailRow> toPage(List<DetailRow> rows, DetailPageRequest request) {
+        boolean hasMore = rows.size() > request.size();
+        List<DetailRow> content = new ArrayList<>(hasMore ? rows.subList(0, request.size()) : rows);
+        if (request.backward()) {
+            Collections.reverse(content);
+        }
+        if (content.isEmpty()) {
+            return new CursorPage<>(content, null, null);
+        }
+        boolean hasNext = request.backward() || hasMore;
+        boolean hasPrevious = request.backward() ? hasMore : request.cursor() != null;
+        String next = hasNext ? cursor(request, false, content.get(content.size() - 1)) : null;
+        String previous = hasPrevious ? cursor(request, true, content.get(0)) : null;
+        return new CursorPage<>(content, next, previous);
+    }
+
+    private static String cursor(DetailPageRequest request, boolean backward, DetailRow row) {
+        return new DetailCursor(request.sortKey(), request.direction(), backward, row.id(),
+                request.sortKey() == DetailSortKey.ITEM_NAME ? row.itemName() : null,
+                request.sortKey() == DetailSortKey.ITEM_SUM ? row.itemSum() : null)
+                .encode();
+    }
+}
@@ -1,17 +1,26 @@
 package org.example.masterdetail.repository;
 
 import jakarta.validation.constraints.NotNull;
+import jakarta.persistence.QueryHint;
+import org.example.masterdetail.model.CacheRegions;
 import org.example.masterdetail.model.Document;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DocumentRepository extends JpaRepository<Document, Long> {
+public interface DocumentRepository extends JpaRepository<Document, Long>, DocumentRepositoryCustom {
     Optional<Document> findByDocNumber(@NotNull String docNumber);
 
     @EntityGraph(attributePaths = "details")
@@ -20,5 +29,72 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     @EntityGraph(attributePaths = "details")
     List<Document> findAll();
 
+    @EntityGraph(attributePaths = "details")
+    List<Document> findWithDetailsByIdIn(Collection<Long> ids);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.DOC_NUMBER_QUERIES)
+    })
     boolean existsByDocNumber(@NotNull String docNumber);
+
+    boolean existsByDocNumberAndIdNot(@NotNull String docNumber, Long id);
+
+    @Query("select d.docNumber from Document d where d.docNumber in :docNumbers")
+    List<String> findExistingDocNumbers(@Param("docNumbers") Collection<String> docNumbers);
+
+    /**
+     * Атомарно сдвигает total_sum документа на delta одним UPDATE, без чтения документа,
+     * и увеличивает версию (и updated_at), чтобы параллельное обновление документа через сущность
+     * получило конфликт оптимистической блокировки. Кэш второго уровня не очищается целиком: документ вытесняет {@link DocumentCacheEvictor}.
+     *
+     * @return количество изменённых строк (0 — документ не найден)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE documents SET total_sum = total_sum + :delta, version = version + 1, updated_at = LOCALTIMESTAMP " +
+            "WHERE document_id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = DocumentCacheEvictor.QUERY_SPACE))
+    int adjustTotalSum(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    /**
+     * Обновляет реквизиты документа одним UPDATE, не трогая total_sum и спецификации,
+     * и увеличивает версию (и updated_at). Кэш второго уровня вытесняет {@link DocumentCacheEvictor}.
+     *
+     * @return количество изменённых строк (0 — документ не найден)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE documents SET doc_number = :docNumber, doc_date = :docDate, notes = :notes, " +
+            "version = version + 1, updated_at = LOCALTIMESTAMP WHERE document_id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = DocumentCacheEvictor.QUERY_SPACE))
+    int updateHeader(@Param("id") Long id,
+                     @Param("docNumber") String docNumber,
+                     @Param("docDate") LocalDateTime docDate,
+                     @Param("notes") String notes);
+
+    /**
+     * То же, что {@link #updateHeader}, но только если версия документа всё ещё равна прочитанной клиентом.
+     *
+     * @return количество изменённых строк (0 — документ не найден или уже изменён)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE documents SET doc_number = :docNumber, doc_date = :docDate, notes = :notes, " +
+            "version = version + 1, updated_at = LOCALTIMESTAMP WHERE document_id = :id AND version = :version", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = DocumentCacheEvictor.QUERY_SPACE))
+    int updateHeaderIfCurrent(@Param("id") Long id,
+                              @Param("version") Long version,
+                              @Param("docNumber") String docNumber,
+                              @Param("docDate") LocalDateTime docDate,
+                              @Param("notes") String notes);
+
+    /**
+     * Удаляет документ одним DELETE, не загружая ни его, ни спецификации: строки document_detail
+     * удаляет каскад БД (fk_docdetail_document ON DELETE CASCADE, на секционированной схеме — триггер).
+     * Кэш второго уровня вытесняет {@link DocumentCacheEvictor}.
+     *
+     * @return количество удалённых строк (0 — документ не найден)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM documents WHERE document_id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = DocumentCacheEvictor.QUERY_SPACE))
+    int deleteRowById(@Param("id") Long id);
 }
@@ -0,0 +1,50 @@
+package org.example.masterdetail.repository;
+
+import org.example.masterdetail.dto.CursorPage;
+import org.example.masterdetail.dto.DocumentPageRequest;
+import org.example.masterdetail.dto.DocumentSearchCriteria;
+import org.example.masterdetail.dto.DocumentStamp;
+import org.example.masterdetail.dto.DocumentSummary;
+import org.example.masterdetail.dto.ExportRow;
+import org.example.masterdetail.model.Document;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Запросы к документам, которые не выражаются производными методами Spring Data.
+ */
+public interface DocumentRepositoryCustom {
+
+    /**
+     * Возвращает страницу заголовков документов методом keyset-пагинации
+     * (seek по document_id или по паре (doc_date, document_id)). Детали не загружаются.
+     * Условия {@link DocumentPageRequest#filter()} добавляются к запросу (см. {@link SearchSupport}).
+     */
+    CursorPage<Document> findDocumentPage(DocumentPageRequest request);
+
+    /**
+     * То же, что {@link #findDocumentPage}, но возвращает проекции {@link DocumentSummary}
+     * с количеством строк спецификации, не создавая управляемых сущностей.
+     */
+    CursorPage<DocumentSummary> findSummaryPage(DocumentPageRequest request);
+
+    /**
+     * Версии строк той же страницы, что вернёт {@link #findSummaryPage} (с тем же порядком,
+     * курсором и одной лишней строкой-признаком следующей страницы), без соединения
+     * со спецификациями. Нужны для ETag списка.
+     */
+    List<DocumentStamp> findPageStamps(DocumentPageRequest request);
+
+    /**
+     * Курсор по всем документам и их деталям, упорядоченный по (document_id, detail_id).
+     * Строки читаются из БД порциями fetchSize; поток нужно закрыть внутри транзакции.
+     */
+    Stream<ExportRow> streamExportRows(int fetchSize);
+
+    /**
+     * Идентификаторы документов, подходящих под условия поиска, больше afterId по возрастанию —
+     * не больше limit. Порции массового удаления выбираются этим запросом по цепочке (keyset).
+     */
+    List<Long> findIdsMatching(DocumentSearchCriteria criteria, long afterId, int limit);
+}
@@ -0,0 +1,101 @@
+package org.example.masterdetail.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.masterdetail.dto.CursorPage;
+import org.example.masterdetail.dto.DocumentPageRequest;
+import org.example.masterdetail.dto.DocumentSearchCriteria;
+import org.example.masterdetail.dto.DocumentStamp;
+import org.example.masterdetail.dto.DocumentSummary;
+import org.example.masterdetail.dto.ExportRow;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class DocumentRepositoryCustomImpl implements DocumentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<Document> findDocumentPage(DocumentPageRequest request) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Document> query = cb.createQuery(Document.class);
+        Root<Document> root = query.from(Document.class);
+        KeysetSupport.apply(cb, query, root.get("id"), root.get("docDate"), request,
+                SearchSupport.predicates(cb, query, root, request.filter()));
+        List<Document> rows = entityManager.createQuery(query)
+                .setMaxResults(request.size() + 1)
+                .getResultList();
+        return KeysetSupport.toPage(rows, request, Document::getId, Document::getDocDate);
+    }
+
+    @Override
+    public CursorPage<DocumentSummary> findSummaryPage(DocumentPageRequest request) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DocumentSummary> query = cb.createQuery(DocumentSummary.class);
+        Root<Document> root = query.from(Document.class);
+        Join<Document, DocumentDetail> details = root.join("details", JoinType.LEFT);
+        query.select(cb.construct(DocumentSummary.class,
+                root.get("id"),
+                root.get("docNumber"),
+                root.get("docDate"),
+                root.get("totalSum"),
+                cb.count(details.get("id"))));
+        query.groupBy(root.get("id"), root.get("docNumber"), root.get("docDate"), root.get("totalSum"));
+        KeysetSupport.apply(cb, query, root.get("id"), root.get("docDate"), request,
+                SearchSupport.predicates(cb, query, root, request.filter()));
+        List<DocumentSummary> rows = entityManager.createQuery(query)
+                .setMaxResults(request.size() + 1)
+                .getResultList();
+        return KeysetSupport.toPage(rows, request, DocumentSummary::id, DocumentSummary::docDate);
+    }
+
+    @Override
+    public List<DocumentStamp> findPageStamps(DocumentPageRequest request) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DocumentStamp> query = cb.createQuery(DocumentStamp.class);
+        Root<Document> root = query.from(Document.class);
+        query.select(cb.construct(DocumentStamp.class, root.get("id"), root.get("version"), root.get("updatedAt")));
+        KeysetSupport.apply(cb, query, root.get("id"), root.get("docDate"), request,
+                SearchSupport.predicates(cb, query, root, request.filter()));
+        return entityManager.createQuery(query)
+                .setMaxResults(request.size() + 1)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<ExportRow> streamExportRows(int fetchSize) {
+        return entityManager.createQuery(
+                        "select new org.example.masterdetail.dto.ExportRow(" +
+                                "d.id, d.docNumber, d.docDate, d.totalSum, d.notes, dd.id, dd.itemName, dd.itemSum) " +
+                                "from Document d left join d.details dd order by d.id, dd.id", ExportRow.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    @Override
+    public List<Long> findIdsMatching(DocumentSearchCriteria criteria, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Document> root = query.from(Document.class);
+        List<Predicate> predicates = new ArrayList<>(List.of(SearchSupport.predicates(cb, query, root, criteria)));
+        predicates.add(cb.greaterThan(root.get("id"), afterId));
+        query.select(root.get("id"))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
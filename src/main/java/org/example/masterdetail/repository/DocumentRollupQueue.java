@@ -0,0 +1,35 @@
+package org.example.masterdetail.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Отметки об изменённых документах для пересчёта итогов отчётов (document_rollup_queue).
+ *
+ * <p>Вызывается в транзакции изменения документа: отметка фиксируется и откатывается вместе с ним.
+ * Запись — одна вставка в таблицу без общих строк, поэтому параллельные изменения документов
+ * не ждут друг друга, как ждали бы при обновлении строки итога дня. Сами итоги пересчитывает
+ * DocumentReportService по расписанию.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentRollupQueue {
+
+    private static final String ENQUEUE_SQL = "INSERT INTO document_rollup_queue (document_id) VALUES (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void enqueue(Long documentId) {
+        jdbcTemplate.update(ENQUEUE_SQL, documentId);
+    }
+
+    public void enqueueAll(Collection<Long> documentIds) {
+        if (documentIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ENQUEUE_SQL, documentIds, documentIds.size(), (ps, id) -> ps.setLong(1, id));
+    }
+}
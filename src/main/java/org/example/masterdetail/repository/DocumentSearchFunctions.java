@@ -0,0 +1,33 @@
+package org.example.masterdetail.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Функции HQL/Criteria для поиска документов, зависящие от СУБД.
+ * Регистрируется через META-INF/services/org.hibernate.boot.model.FunctionContributor.
+ *
+ * <p>{@value #NOTES_MATCH}(notes, text) на PostgreSQL — полнотекстовое совпадение по выражению
+ * {@value #NOTES_TSVECTOR}, которым построен GIN-индекс idx_documents_notes_fts (выражения
+ * должны совпадать дословно, иначе индекс не используется). На остальных СУБД (H2 профиля test) —
+ * поиск фразы как подстроки без учёта регистра.</p>
+ */
+public class DocumentSearchFunctions implements FunctionContributor {
+
+    public static final String NOTES_MATCH = "notes_match";
+
+    static final String TEXT_SEARCH_CONFIG = "russian";
+
+    static final String NOTES_TSVECTOR = "to_tsvector('" + TEXT_SEARCH_CONFIG + "', coalesce(?1, ''))";
+
+    @Override
+    public void contributeFunctions(FunctionContributions contributions) {
+        String pattern = contributions.getDialect() instanceof PostgreSQLDialect
+                ? "(" + NOTES_TSVECTOR + " @@ plainto_tsquery('" + TEXT_SEARCH_CONFIG + "', ?2))"
+                : "(locate(lower(?2), lower(coalesce(?1, ''))) > 0)";
+        contributions.getFunctionRegistry().registerPattern(NOTES_MATCH, pattern,
+                contributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.masterdetail.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.example.masterdetail.dto.CursorPage;
+import org.example.masterdetail.dto.DocumentCursor;
+import org.example.masterdetail.dto.DocumentPageRequest;
+import org.example.masterdetail.enums.DocumentSortKey;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Общая логика keyset-пагинации списка документов: условие seek,
+ * порядок сортировки и сборка страницы с токенами соседних страниц.
+ * Запрос должен выбирать на одну строку больше размера страницы.
+ */
+final class KeysetSupport {
+
+    private KeysetSupport() {
+    }
+
+    static void apply(CriteriaBuilder cb,
+                      CriteriaQuery<?> query,
+                      Path<Long> id,
+                      Path<LocalDateTime> docDate,
+                      DocumentPageRequest request,
+                      Predicate... filters) {
+        List<Predicate> predicates = new ArrayList<>(List.of(filters));
+        if (request.cursor() != null) {
+            predicates.add(seek(cb, id, docDate, request));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        List<Order> orders = new ArrayList<>();
+        if (request.sortKey() == DocumentSortKey.DOC_DATE) {
+            orders.add(order(cb, docDate, request.ascending()));
+        }
+        orders.add(order(cb, id, request.ascending()));
+        query.orderBy(orders);
+    }
+
+    static <T> CursorPage<T> toPage(List<T> rows,
+                                    DocumentPageRequest request,
+                                    Function<T, Long> idOf,
+                                    Function<T, LocalDateTime> docDateOf) {
+        boolean hasMore = rows.size() > request.size();
+        List<T> content = new ArrayList<>(hasMore ? rows.subList(0, request.size()) : rows);
+        if (request.backward()) {
+            Collections.reverse(content);
+        }
+        if (content.isEmpty()) {
+            return new CursorPage<>(content, null, null);
+        }
+        T first = content.get(0);
+        T last = content.get(content.size() - 1);
+        boolean hasNext = request.backward() || hasMore;
+        boolean hasPrevious = request.backward() ? hasMore : request.cursor() != null;
+        String next = hasNext ? cursor(request, false, last, idOf, docDateOf) : null;
+        String previous = hasPrevious ? cursor(request, true, first, idOf, docDateOf) : null;
+        return new CursorPage<>(content, next, previous);
+    }
+
+    private static Predicate seek(CriteriaBuilder cb,
+                                  Path<Long> id,
+                                  Path<LocalDateTime> docDate,
+                                  DocumentPageRequest request) {
+        DocumentCursor cursor = request.cursor();
+        boolean ascending = request.ascending();
+        Predicate afterId = ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+        if (request.sortKey() != DocumentSortKey.DOC_DATE) {
+            return afterId;
+        }
+        Predicate afterDate = ascending
+                ? cb.greaterThan(docDate, cursor.docDate())
+                : cb.lessThan(docDate, cursor.docDate());
+        return cb.or(afterDate, cb.and(cb.equal(docDate, cursor.docDate()), afterId));
+    }
+
+    private static Order order(CriteriaBuilder cb, Expression<?> expression, boolean ascending) {
+        return ascending ? cb.asc(expression) : cb.desc(expression);
+    }
+
+    private static <T> String cursor(DocumentPageRequest request,
+                                     boolean backward,
+                                     T row,
+                                     Function<T, Long> idOf,
+                                     Function<T, LocalDateTime> docDateOf) {
+        LocalDateTime docDate = request.sortKey() == DocumentSortKey.DOC_DATE ? docDateOf.apply(row) : null;
+        return new DocumentCursor(request.sortKey(), request.direction(), backward, idOf.apply(row), docDate)
+                .encode();
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.masterdetail.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.example.masterdetail.dto.DocumentSearchCriteria;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Условия поиска документов для запросов списка. Каждое условие сформулировано так,
+ * чтобы на PostgreSQL его обслуживал индекс из changelog v1.1.0:
+ * <ul>
+ *   <li>префикс номера — LIKE 'abc%' по idx_documents_doc_number_pattern (text_pattern_ops);</li>
+ *   <li>примечание — {@link DocumentSearchFunctions#NOTES_MATCH} по GIN-индексу tsvector;</li>
+ *   <li>наименование строки — EXISTS с lower(item_name) LIKE '%abc%' по триграммному GIN-индексу;</li>
+ *   <li>диапазоны даты и итога — по idx_documents_doc_date_id и idx_documents_total_sum.</li>
+ * </ul>
+ * Спецсимволы LIKE во вводе пользователя экранируются.
+ */
+final class SearchSupport {
+
+    private static final char ESCAPE = '\\';
+
+    private SearchSupport() {
+    }
+
+    static Predicate[] predicates(CriteriaBuilder cb,
+                                  CriteriaQuery<?> query,
+                                  Root<Document> root,
+                                  DocumentSearchCriteria criteria) {
+        if (criteria.isEmpty()) {
+            return new Predicate[0];
+        }
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.docNumber() != null) {
+            predicates.add(cb.like(root.get("docNumber"), escape(criteria.docNumber()) + "%", ESCAPE));
+        }
+        if (criteria.notes() != null) {
+            predicates.add(cb.isTrue(cb.function(DocumentSearchFunctions.NOTES_MATCH, Boolean.class,
+                    root.get("notes"), cb.literal(criteria.notes()))));
+        }
+        if (criteria.itemName() != null) {
+            Subquery<Integer> matching = query.subquery(Integer.class);
+            Root<DocumentDetail> detail = matching.from(DocumentDetail.class);
+            matching.select(cb.literal(1)).where(
+                    cb.equal(detail.get("document"), root),
+                    cb.like(cb.lower(detail.get("itemName")),
+                            "%" + escape(criteria.itemName().toLowerCase(Locale.ROOT)) + "%", ESCAPE));
+            predicates.add(cb.exists(matching));
+        }
+        if (criteria.dateFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("docDate"), criteria.dateFrom().atStartOfDay()));
+        }
+        if (criteria.dateTo() != null) {
+            predicates.add(cb.lessThan(root.get("docDate"), criteria.dateTo().plusDays(1).atStartOfDay()));
+        }
+        if (criteria.sumFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("totalSum"), criteria.sumFrom()));
+        }
+        if (criteria.sumTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("totalSum"), criteria.sumTo()));
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.masterdetail.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.ConflictRetryProperties;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет операцию в собственной транзакции и повторяет её при конфликте
+ * параллельных изменений ({@link ConcurrencyFailureException}: устаревшая @Version,
+ * сработавшая проверка compare-and-set, дедлок или таймаут блокировки).
+ *
+ * <p>Каждая попытка — новая транзакция, между попытками пауза растёт экспоненциально
+ * со случайным разбросом, чтобы конкурирующие потоки не сталкивались снова.
+ * Если транзакция уже открыта вызывающим кодом, операция выполняется в ней без повторов:
+ * откатить и повторить можно только транзакцию целиком.</p>
+ */
+@Component
+@Slf4j
+public class ConflictRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final ConflictRetryProperties properties;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    public ConflictRetryExecutor(PlatformTransactionManager transactionManager,
+                                 ConflictRetryProperties properties,
+                                 MeterRegistry registry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.retries = Counter.builder("document.conflict.retries")
+                .description("Повторы операций после конфликта параллельных изменений")
+                .register(registry);
+        this.exhausted = Counter.builder("document.conflict.exhausted")
+                .description("Операции, не выполненные за master-detail.retry.max-attempts попыток")
+                .register(registry);
+    }
+
+    /**
+     * @param operation имя операции для журнала
+     * @param action    тело транзакции; должно быть безопасно для повторного выполнения
+     * @return результат action
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    exhausted.increment();
+                    log.warn("{} failed after {} attempts: {}", operation, attempt, ex.getMessage());
+                    throw ex;
+                }
+                retries.increment();
+                log.debug("{} conflict on attempt {}, retrying: {}", operation, attempt, ex.getMessage());
+                pause(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void pause(int attempt) {
+        double backoff = properties.getInitialBackoff().toMillis() * Math.pow(properties.getMultiplier(), attempt - 1);
+        long bound = (long) Math.min(backoff, properties.getMaxBackoff().toMillis());
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound / 2, bound + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", ex);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.enums.DocumentChangeKind;
+
+import java.util.Collection;
+
+public interface DocumentChangeBus {
+
+    void documentChanged(Long documentId, DocumentChangeKind kind);
+
+    void documentsChanged(Collection<Long> documentIds, DocumentChangeKind kind);
+}
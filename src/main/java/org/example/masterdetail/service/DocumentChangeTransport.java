@@ -0,0 +1,26 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.dto.DocumentChangeBatch;
+
+/**
+ * Канал, по которому уведомления об изменённых документах доходят до всех экземпляров приложения,
+ * включая отправителя.
+ */
+public interface DocumentChangeTransport {
+
+    void publish(DocumentChangeBatch batch);
+
+    void subscribe(Listener listener);
+
+    void unsubscribe(Listener listener);
+
+    interface Listener {
+
+        void onChanges(DocumentChangeBatch batch);
+
+        /**
+         * Канал был недоступен, и часть уведомлений могла не дойти.
+         */
+        void onMissedChanges();
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.enums.ExportFormat;
+
+import java.io.OutputStream;
+
+public interface DocumentExportService {
+
+    long exportDocuments(ExportFormat format, OutputStream output);
+}
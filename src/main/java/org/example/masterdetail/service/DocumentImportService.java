@@ -0,0 +1,11 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.dto.ImportReport;
+import org.example.masterdetail.enums.ImportFormat;
+
+import java.io.InputStream;
+
+public interface DocumentImportService {
+
+    ImportReport importDocuments(InputStream input, ImportFormat format);
+}
@@ -0,0 +1,13 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.dto.DocumentSearchCriteria;
+import org.example.masterdetail.dto.PurgeReport;
+
+import java.util.Collection;
+
+public interface DocumentPurgeService {
+
+    PurgeReport purgeByIds(Collection<Long> documentIds);
+
+    PurgeReport purgeMatching(DocumentSearchCriteria criteria);
+}
@@ -0,0 +1,20 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.dto.DetailRow;
+import org.example.masterdetail.dto.DocumentHeader;
+import org.example.masterdetail.dto.DocumentView;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface DocumentReadService {
+
+    Flux<DocumentHeader> findHeaders(Long afterId, Integer limit);
+
+    Flux<DocumentHeader> streamHeaders();
+
+    Mono<DocumentView> findById(Long id);
+
+    Mono<DocumentView> findByDocNumber(String docNumber);
+
+    Flux<DetailRow> streamDetails(Long documentId);
+}
@@ -0,0 +1,14 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.dto.DocumentTotalsRow;
+import org.example.masterdetail.enums.ReportGranularity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DocumentReportService {
+
+    int refreshRollups();
+
+    List<DocumentTotalsRow> findTotals(ReportGranularity granularity, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,22 @@
+package org.example.masterdetail.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Пересчёт итогов отчётов с паузой master-detail.reports.refresh-interval.
+ */
+@Component
+@ConditionalOnProperty(prefix = "master-detail.reports", name = "refresh-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DocumentRollupJob {
+
+    private final DocumentReportService reportService;
+
+    @Scheduled(fixedDelayString = "${master-detail.reports.refresh-interval:1m}")
+    public void refresh() {
+        reportService.refreshRollups();
+    }
+}
@@ -1,5 +1,14 @@
 package org.example.masterdetail.service;
 
+import org.example.masterdetail.dto.CursorPage;
+import org.example.masterdetail.dto.DetailBatchResult;
+import org.example.masterdetail.dto.DetailOperation;
+import org.example.masterdetail.dto.DetailPageRequest;
+import org.example.masterdetail.dto.DetailRow;
+import org.example.masterdetail.dto.DocumentListPage;
+import org.example.masterdetail.dto.DocumentPageRequest;
+import org.example.masterdetail.dto.DocumentStamp;
+import org.example.masterdetail.enums.DetailFetchStrategy;
 import org.example.masterdetail.model.Document;
 import org.example.masterdetail.model.DocumentDetail;
 
@@ -16,6 +25,22 @@ public interface DocumentService {
 
     List<Document> findAllDocumentsWithDetails();
 
+    CursorPage<Document> findDocumentPage(DocumentPageRequest request);
+
+    CursorPage<Document> findDocumentPage(DocumentPageRequest request, DetailFetchStrategy strategy);
+
+    DocumentListPage findDocumentListPage(DocumentPageRequest request);
+
+    DocumentStamp findDocumentStamp(Long id);
+
+    Document findDocumentHeader(Long id);
+
+    CursorPage<DetailRow> findDetailPage(DetailPageRequest request);
+
+    String findDocumentListETag(DocumentPageRequest request);
+
+    DetailRow findDetailRow(Long docId, Long detailId);
+
     DocumentDetail addDetail(Long docId, DocumentDetail detail);
 
     void removeDetail(Long docId, Long detailId);
@@ -23,4 +48,6 @@ public interface DocumentService {
     DocumentDetail updateDetail(Long docId, Long detailId, DocumentDetail newDetail);
 
     DocumentDetail findDetail(Long docId, Long detailId);
+
+    DetailBatchResult applyDetailOperations(Long docId, List<DetailOperation> operations);
 }
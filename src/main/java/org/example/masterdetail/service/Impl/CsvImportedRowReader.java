@@ -0,0 +1,137 @@
+package org.example.masterdetail.service.Impl;
+
+import org.example.masterdetail.errors.CustomValidationException;
+import org.example.masterdetail.model.Document;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Читает CSV с заголовком doc_number,doc_date,notes,item_name,item_sum (порядок колонок любой).
+ * Каждая строка — деталь; подряд идущие строки с одним doc_number образуют один документ.
+ * Строка без item_name задаёт документ без деталей.
+ */
+class CsvImportedRowReader implements ImportedRowReader {
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long lineNumber;
+    private String[] pending;
+    private long pendingLine;
+
+    CsvImportedRowReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String[] header = readFields();
+        if (header == null) {
+            return;
+        }
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i].trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("doc_number")) {
+            throw new CustomValidationException("CSV header must contain doc_number column");
+        }
+        pending = readFields();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pending != null;
+    }
+
+    @Override
+    public ImportedRow next() {
+        if (pending == null) {
+            throw new NoSuchElementException();
+        }
+        long line = pendingLine;
+        String docNumber = field(pending, "doc_number");
+        List<String[]> rows = new ArrayList<>();
+        do {
+            rows.add(pending);
+            pending = readFields();
+        } while (pending != null && docNumber != null && Objects.equals(docNumber, field(pending, "doc_number")));
+        try {
+            String[] first = rows.get(0);
+            Document doc = ImportValues.newDocument(docNumber, field(first, "doc_date"), field(first, "notes"));
+            for (String[] row : rows) {
+                String itemName = field(row, "item_name");
+                if (itemName != null || field(row, "item_sum") != null) {
+                    ImportValues.addDetail(doc, itemName, field(row, "item_sum"));
+                }
+            }
+            return ImportedRow.of(line, doc);
+        } catch (IllegalArgumentException ex) {
+            return ImportedRow.failed(line, docNumber, ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String field(String[] row, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.length || row[index].isBlank()) {
+            return null;
+        }
+        return row[index];
+    }
+
+    private String[] readFields() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && line.isBlank());
+            pendingLine = lineNumber;
+            return line != null ? split(line) : null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Разбивает строку CSV (RFC 4180, без переводов строк внутри кавычек).
+     */
+    private static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,333 @@
+package org.example.masterdetail.service.Impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.DocumentChangeBusProperties;
+import org.example.masterdetail.dto.DocumentChange;
+import org.example.masterdetail.dto.DocumentChangeBatch;
+import org.example.masterdetail.enums.DocumentChangeKind;
+import org.example.masterdetail.repository.DocumentCacheEvictor;
+import org.example.masterdetail.service.DocumentChangeBus;
+import org.example.masterdetail.service.DocumentChangeTransport;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Шина изменений документов между экземплярами приложения.
+ *
+ * <p>Изменения регистрируются в транзакции, но в очередь попадают только после её фиксации.
+ * Фоновый поток раз в coalesce-window забирает очередь: повторные изменения одного документа
+ * к этому моменту уже слиты в одно, версии дочитываются одним запросом, и изменения уходят
+ * в {@link DocumentChangeTransport} уведомлениями по max-batch-size. Если за окно изменилось
+ * больше max-pending документов или отправка не удалась, следующим уходит одно уведомление
+ * «сбросить всё» — массовая правка не забивает канал.</p>
+ *
+ * <p>Полученные от других экземпляров уведомления вытесняют документы из кэша второго уровня
+ * и публикуются как событие Spring {@link DocumentChangeBatch}. Свои уведомления пропускаются:
+ * локальный кэш вытесняется ещё в транзакции изменения.</p>
+ *
+ * <p>Метрики: document.change.bus.changes (outcome = accepted, published, received)
+ * и document.change.bus.notifications (direction = sent, received, failed).</p>
+ */
+@Slf4j
+@Service
+public class DocumentChangeBusImpl implements DocumentChangeBus, DocumentChangeTransport.Listener,
+        SmartLifecycle, MeterBinder {
+
+    private static final String VERSIONS_SQL = "SELECT document_id, version FROM documents WHERE document_id IN (:ids)";
+
+    private final DocumentChangeTransport transport;
+    private final DocumentCacheEvictor cacheEvictor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DocumentChangeBusProperties properties;
+    private final boolean virtualThreads;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Object pendingLock = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private Map<Long, DocumentChangeKind> pending = new LinkedHashMap<>();
+    private boolean pendingOverflow;
+
+    private final AtomicLong acceptedChanges = new AtomicLong();
+    private final AtomicLong publishedChanges = new AtomicLong();
+    private final AtomicLong receivedChanges = new AtomicLong();
+    private final AtomicLong sentNotifications = new AtomicLong();
+    private final AtomicLong receivedNotifications = new AtomicLong();
+    private final AtomicLong failedNotifications = new AtomicLong();
+
+    private volatile Thread flusher;
+    private volatile boolean running;
+
+    public DocumentChangeBusImpl(DocumentChangeTransport transport,
+                                 DocumentCacheEvictor cacheEvictor,
+                                 ApplicationEventPublisher eventPublisher,
+                                 NamedParameterJdbcTemplate namedJdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 DocumentChangeBusProperties properties,
+                                 Environment environment) {
+        this.transport = transport;
+        this.cacheEvictor = cacheEvictor;
+        this.eventPublisher = eventPublisher;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    @Override
+    public void documentChanged(Long documentId, DocumentChangeKind kind) {
+        documentsChanged(List.of(documentId), kind);
+    }
+
+    /**
+     * Регистрирует изменение документов. В транзакции оно попадёт в очередь только после
+     * фиксации, при откате — не попадёт вовсе.
+     */
+    @Override
+    public void documentsChanged(Collection<Long> documentIds, DocumentChangeKind kind) {
+        if (documentIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(documentIds, kind);
+            return;
+        }
+        List<Long> ids = List.copyOf(documentIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(ids, kind);
+            }
+        });
+    }
+
+    private void enqueue(Collection<Long> documentIds, DocumentChangeKind kind) {
+        acceptedChanges.addAndGet(documentIds.size());
+        synchronized (pendingLock) {
+            if (pendingOverflow) {
+                return;
+            }
+            documentIds.forEach(id -> pending.merge(id, kind, DocumentChangeKind::merge));
+            if (pending.size() > properties.getMaxPending()) {
+                pending = new LinkedHashMap<>();
+                pendingOverflow = true;
+            }
+        }
+    }
+
+    /**
+     * Синхронно рассылает всё, что накопилось. Дожидается рассылки, которую в этот момент
+     * выполняет фоновый поток.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, DocumentChangeKind> batch;
+            boolean overflow;
+            synchronized (pendingLock) {
+                batch = pending;
+                overflow = pendingOverflow;
+                pending = new LinkedHashMap<>();
+                pendingOverflow = false;
+            }
+            if (overflow) {
+                send(new DocumentChangeBatch(instanceId, List.of(), true));
+            } else if (!batch.isEmpty()) {
+                publish(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void publish(Map<Long, DocumentChangeKind> batch) {
+        List<Long> ids = new ArrayList<>(batch.keySet());
+        int chunkSize = properties.getMaxBatchSize();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            List<DocumentChange> changes;
+            try {
+                changes = withVersions(chunk, batch);
+            } catch (RuntimeException ex) {
+                markLost(chunk.size(), ex);
+                return;
+            }
+            if (!send(new DocumentChangeBatch(instanceId, changes, false))) {
+                return;
+            }
+            publishedChanges.addAndGet(changes.size());
+        }
+    }
+
+    /**
+     * Версии читаются после фиксации, поэтому слитое событие несёт последнюю версию;
+     * документ, которого уже нет, считается удалённым.
+     */
+    private List<DocumentChange> withVersions(List<Long> ids, Map<Long, DocumentChangeKind> kinds) {
+        Map<Long, Long> versions = new HashMap<>(ids.size() * 2);
+        transactionTemplate.executeWithoutResult(status -> namedJdbcTemplate.query(VERSIONS_SQL, Map.of("ids", ids),
+                rs -> {
+                    versions.put(rs.getLong(1), rs.getLong(2));
+                }));
+        List<DocumentChange> changes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Long version = versions.get(id);
+            DocumentChangeKind kind = version == null ? DocumentChangeKind.DELETED : kinds.get(id);
+            changes.add(new DocumentChange(id, version, kind));
+        }
+        return changes;
+    }
+
+    private boolean send(DocumentChangeBatch batch) {
+        try {
+            transport.publish(batch);
+            sentNotifications.incrementAndGet();
+            return true;
+        } catch (RuntimeException ex) {
+            markLost(batch.changes().size(), ex);
+            return false;
+        }
+    }
+
+    /**
+     * Неотправленные изменения не повторяются по одному: следующей рассылкой уходит «сбросить всё».
+     */
+    private void markLost(int changes, RuntimeException ex) {
+        failedNotifications.incrementAndGet();
+        log.error("Failed to publish {} document change(s), next notification invalidates everything: {}",
+                changes, ex.getMessage());
+        synchronized (pendingLock) {
+            pending = new LinkedHashMap<>();
+            pendingOverflow = true;
+        }
+    }
+
+    @Override
+    public void onChanges(DocumentChangeBatch batch) {
+        if (instanceId.equals(batch.origin())) {
+            return;
+        }
+        receivedNotifications.incrementAndGet();
+        receivedChanges.addAndGet(batch.changes().size());
+        if (batch.invalidateAll()) {
+            cacheEvictor.evictAll();
+        } else {
+            cacheEvictor.evictChangedElsewhere(batch.changes().stream().map(DocumentChange::documentId).toList());
+        }
+        eventPublisher.publishEvent(batch);
+    }
+
+    @Override
+    public void onMissedChanges() {
+        log.warn("Document change notifications may have been missed, invalidating local caches");
+        cacheEvictor.evictAll();
+        eventPublisher.publishEvent(new DocumentChangeBatch(null, List.of(), true));
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    private void flushLoop() {
+        long windowMillis = properties.getCoalesceWindow().toMillis();
+        while (running) {
+            synchronized (pendingLock) {
+                try {
+                    pendingLock.wait(windowMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            flush();
+        }
+    }
+
+    @Override
+    public void start() {
+        transport.subscribe(this);
+        running = true;
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        flusher = builder.name("document-change-bus").start(this::flushLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        synchronized (pendingLock) {
+            pendingLock.notifyAll();
+        }
+        Thread current = flusher;
+        if (current != null) {
+            try {
+                current.join(properties.getCoalesceWindow().toMillis() + 5000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        transport.unsubscribe(this);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Останавливается после веб-сервера, чтобы разослать изменения последних запросов,
+     * но раньше канала и пула соединений.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindChanges(registry, "accepted", acceptedChanges);
+        bindChanges(registry, "published", publishedChanges);
+        bindChanges(registry, "received", receivedChanges);
+        bindNotifications(registry, "sent", sentNotifications);
+        bindNotifications(registry, "received", receivedNotifications);
+        bindNotifications(registry, "failed", failedNotifications);
+    }
+
+    private static void bindChanges(MeterRegistry registry, String outcome, AtomicLong counter) {
+        FunctionCounter.builder("document.change.bus.changes", counter, AtomicLong::get)
+                .description("Изменения документов, прошедшие через шину")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static void bindNotifications(MeterRegistry registry, String direction, AtomicLong counter) {
+        FunctionCounter.builder("document.change.bus.notifications", counter, AtomicLong::get)
+                .description("Уведомления шины изменений документов")
+                .tag("direction", direction)
+                .register(registry);
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.masterdetail.service.Impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.DocumentExportProperties;
+import org.example.masterdetail.dto.ExportRow;
+import org.example.masterdetail.enums.ErrorType;
+import org.example.masterdetail.enums.ExportFormat;
+import org.example.masterdetail.metrics.DocumentMetrics;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.service.DocumentExportService;
+import org.example.masterdetail.service.ErrorLogService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * <p>Потоковая выгрузка всех документов с деталями в CSV или NDJSON.</p>
+ *
+ * <p>Строки читаются JDBC-курсором (master-detail.export.fetch-size) в виде проекций
+ * {@link ExportRow}, поэтому контекст персистентности не наполняется сущностями,
+ * и сразу пишутся в выходной поток. Потребление памяти не зависит от объёма таблиц.</p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentExportServiceImpl implements DocumentExportService {
+
+    private static final String CSV_HEADER = "document_id,doc_number,doc_date,total_sum,notes,detail_id,item_name,item_sum";
+
+    private final DocumentRepository documentRepository;
+    private final ErrorLogService errorLogService;
+    private final DocumentExportProperties properties;
+    private final ObjectMapper objectMapper;
+    private final DocumentMetrics documentMetrics;
+
+    /**
+     * Пишет все документы с деталями в поток. Поток не закрывается.
+     *
+     * @param format формат выгрузки
+     * @param output поток, например, выходной поток HTTP-ответа
+     * @return количество выгруженных документов
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportDocuments(ExportFormat format, OutputStream output) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try (Stream<ExportRow> rows = documentRepository.streamExportRows(properties.getFetchSize())) {
+            long documents = format == ExportFormat.CSV ? writeCsv(rows.iterator(), writer) : writeNdjson(rows.iterator(), writer);
+            writer.flush();
+            log.info("exported {} documents as {}", documents, format);
+            return documents;
+        } catch (IOException | UncheckedIOException ex) {
+            String err = "Export failed: " + ex.getMessage();
+            errorLogService.logError(ErrorType.GENERAL_ERROR.getMessage(), err);
+            throw new RuntimeException(err, ex);
+        }
+    }
+
+    private void recordRows(Long documentId, long rows) {
+        if (documentId != null) {
+            documentMetrics.recordRows(DocumentMetrics.EXPORT, rows);
+        }
+    }
+
+    private long writeCsv(Iterator<ExportRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long documents = 0;
+        long documentRows = 0;
+        Long currentId = null;
+        while (rows.hasNext()) {
+            ExportRow row = rows.next();
+            if (!Objects.equals(currentId, row.documentId())) {
+                recordRows(currentId, documentRows);
+                currentId = row.documentId();
+                documentRows = 0;
+                documents++;
+            }
+            documentRows++;
+            writer.write(String.valueOf(row.documentId()));
+            writer.write(',');
+            writer.write(csv(row.docNumber()));
+            writer.write(',');
+            writer.write(csv(row.docDate()));
+            writer.write(',');
+            writer.write(csv(row.totalSum()));
+            writer.write(',');
+            writer.write(csv(row.notes()));
+            writer.write(',');
+            writer.write(csv(row.detailId()));
+            writer.write(',');
+            writer.write(csv(row.itemName()));
+            writer.write(',');
+            writer.write(csv(row.itemSum()));
+            writer.write('\n');
+        }
+        recordRows(currentId, documentRows);
+        return documents;
+    }
+
+    /**
+     * Строки упорядочены по document_id, поэтому объект документа открывается на его первой
+     * строке и закрывается при смене document_id: детали не накапливаются в памяти.
+     */
+    private long writeNdjson(Iterator<ExportRow> rows, Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long documents = 0;
+        long documentRows = 0;
+        Long currentId = null;
+        while (rows.hasNext()) {
+            ExportRow row = rows.next();
+            if (!Objects.equals(currentId, row.documentId())) {
+                if (currentId != null) {
+                    endDocument(json, writer);
+                }
+                recordRows(currentId, documentRows);
+                currentId = row.documentId();
+                documentRows = 0;
+                documents++;
+                json.writeStartObject();
+                json.writeNumberField("id", row.documentId());
+                json.writeStringField("docNumber", row.docNumber());
+                json.writeStringField("docDate", row.docDate() != null ? row.docDate().toString() : null);
+                json.writeNumberField("totalSum", row.totalSum());
+                json.writeStringField("notes", row.notes());
+                json.writeArrayFieldStart("details");
+            }
+            documentRows++;
+            if (row.detailId() != null) {
+                json.writeStartObject();
+                json.writeNumberField("id", row.detailId());
+                json.writeStringField("itemName", row.itemName());
+                json.writeNumberField("itemSum", row.itemSum());
+                json.writeEndObject();
+            }
+        }
+        if (currentId != null) {
+            endDocument(json, writer);
+        }
+        recordRows(currentId, documentRows);
+        json.close();
+        return documents;
+    }
+
+    private void endDocument(JsonGenerator json, Writer writer) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+        json.flush();
+        writer.write('\n');
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.masterdetail.service.Impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.DocumentImportProperties;
+import org.example.masterdetail.dto.ImportReport;
+import org.example.masterdetail.dto.ImportRowError;
+import org.example.masterdetail.enums.DocumentChangeKind;
+import org.example.masterdetail.enums.ErrorType;
+import org.example.masterdetail.enums.ImportFormat;
+import org.example.masterdetail.metrics.DocumentMetrics;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.repository.DocumentRollupQueue;
+import org.example.masterdetail.service.DocumentChangeBus;
+import org.example.masterdetail.service.DocumentImportService;
+import org.example.masterdetail.service.ErrorLogService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Массовая загрузка документов из потока CSV/NDJSON.</p>
+ *
+ * <p>Особенности:</p>
+ * <ul>
+ *   <li>Поток читается построчно, в памяти держится только текущая пачка документов.</li>
+ *   <li>Каждая пачка (master-detail.import.batch-size) сохраняется в своей транзакции;
+ *       вставки группируются в JDBC-пакеты (hibernate.jdbc.batch_size, order_inserts),
+ *       идентификаторы выделяются блоками pooled-последовательностей.</li>
+ *   <li>Дубликаты doc_number (в базе и внутри файла) отклоняются по строкам и не прерывают пачку.</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentImportServiceImpl implements DocumentImportService {
+
+    private final DocumentRepository documentRepository;
+    private final ErrorLogService errorLogService;
+    private final DocumentImportProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final DocumentMetrics documentMetrics;
+    private final DocumentRollupQueue rollupQueue;
+    private final DocumentChangeBus changeBus;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Загружает документы из потока и возвращает отчёт по загруженным и отклонённым строкам.
+     *
+     * @param input  поток CSV или NDJSON
+     * @param format формат потока
+     * @return отчёт о загрузке
+     */
+    @Override
+    public ImportReport importDocuments(InputStream input, ImportFormat format) {
+        Progress progress = new Progress(properties.getMaxReportedErrors());
+        try (ImportedRowReader reader = format == ImportFormat.CSV
+                ? new CsvImportedRowReader(input)
+                : new NdjsonImportedRowReader(input, objectMapper)) {
+            List<ImportedRow> batch = new ArrayList<>(properties.getBatchSize());
+            while (reader.hasNext()) {
+                ImportedRow row = reader.next();
+                if (row.error() != null) {
+                    progress.reject(row, row.error());
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() >= properties.getBatchSize()) {
+                    importBatch(batch, progress);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                importBatch(batch, progress);
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            String err = "Import stream read failed: " + ex.getMessage();
+            errorLogService.logError(ErrorType.GENERAL_ERROR.getMessage(), err);
+            throw new RuntimeException(err, ex);
+        }
+        if (progress.rejected > 0) {
+            errorLogService.logError(ErrorType.VALIDATION_ERROR.getMessage(),
+                    "Import finished with " + progress.rejected + " rejected documents");
+        }
+        log.info("import finished: {} documents, {} details, {} rejected",
+                progress.documents, progress.details, progress.rejected);
+        return progress.toReport();
+    }
+
+    private void importBatch(List<ImportedRow> batch, Progress progress) {
+        Set<String> numbers = new HashSet<>();
+        batch.forEach(row -> numbers.add(row.docNumber()));
+        Set<String> existing = new HashSet<>(documentRepository.findExistingDocNumbers(numbers));
+        Set<String> seen = new HashSet<>();
+        List<ImportedRow> accepted = new ArrayList<>(batch.size());
+        for (ImportedRow row : batch) {
+            if (existing.contains(row.docNumber()) || !seen.add(row.docNumber())) {
+                progress.reject(row, duplicateMessage(row));
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                accepted.forEach(this::persist);
+                List<Long> ids = accepted.stream().map(row -> row.document().getId()).toList();
+                rollupQueue.enqueueAll(ids);
+                changeBus.documentsChanged(ids, DocumentChangeKind.CREATED);
+            });
+            accepted.forEach(row -> imported(row, progress));
+        } catch (DataIntegrityViolationException ex) {
+            // номер занят параллельной вставкой после проверки: сохраняем пачку по одному документу
+            log.warn("batch of {} documents rejected by constraint, retrying row by row", accepted.size());
+            for (ImportedRow row : accepted) {
+                resetIds(row.document());
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        persist(row);
+                        rollupQueue.enqueue(row.document().getId());
+                        changeBus.documentChanged(row.document().getId(), DocumentChangeKind.CREATED);
+                    });
+                    imported(row, progress);
+                } catch (DataIntegrityViolationException rowEx) {
+                    progress.reject(row, duplicateMessage(row));
+                }
+            }
+        }
+    }
+
+    private void imported(ImportedRow row, Progress progress) {
+        progress.imported(row);
+        documentMetrics.recordRows(DocumentMetrics.IMPORT, Math.max(1, row.document().getDetails().size()));
+    }
+
+    private void persist(ImportedRow row) {
+        Document doc = row.document();
+        BigDecimal totalSum = BigDecimal.ZERO;
+        for (DocumentDetail detail : doc.getDetails()) {
+            totalSum = totalSum.add(detail.getItemSum());
+        }
+        doc.setTotalSum(totalSum);
+        entityManager.persist(doc);
+    }
+
+    private void resetIds(Document doc) {
+        doc.setId(null);
+        doc.getDetails().forEach(d -> d.setId(null));
+    }
+
+    private String duplicateMessage(ImportedRow row) {
+        return "Document with number " + row.docNumber() + " already exists";
+    }
+
+    private static final class Progress {
+        private final int maxErrors;
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private long documents;
+        private long details;
+        private long rejected;
+
+        private Progress(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void imported(ImportedRow row) {
+            documents++;
+            details += row.document().getDetails().size();
+        }
+
+        private void reject(ImportedRow row, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportRowError(row.line(), row.docNumber(), message));
+            }
+        }
+
+        private ImportReport toReport() {
+            return new ImportReport(documents, details, rejected, List.copyOf(errors));
+        }
+    }
+}
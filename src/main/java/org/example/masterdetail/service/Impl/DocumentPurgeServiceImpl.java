@@ -0,0 +1,196 @@
+package org.example.masterdetail.service.Impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.DocumentPurgeProperties;
+import org.example.masterdetail.dto.DocumentSearchCriteria;
+import org.example.masterdetail.dto.PurgeReport;
+import org.example.masterdetail.enums.DocumentChangeKind;
+import org.example.masterdetail.errors.CustomValidationException;
+import org.example.masterdetail.repository.DocumentCacheEvictor;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.repository.DocumentRollupQueue;
+import org.example.masterdetail.service.DocumentChangeBus;
+import org.example.masterdetail.service.DocumentPurgeService;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Массовое удаление документов по списку идентификаторов или по условиям поиска.
+ *
+ * <p>Документы удаляются порциями по master-detail.purge.chunk-size, каждая порция — отдельная
+ * короткая транзакция из двух DELETE по списку document_id: спецификации, затем документы.
+ * Сущности не загружаются. Блокировки держатся только на строках порции, а WAL пишется
+ * равномерно, без одного большого всплеска. Между порциями выдерживается пауза pause-between-chunks.</p>
+ *
+ * <p>Порции по условиям выбираются по возрастанию document_id после последнего удалённого (keyset),
+ * поэтому уже пройденный диапазон повторно не сканируется. Документы, подошедшие под условия
+ * после прохода их диапазона, не удаляются.</p>
+ *
+ * <p>После каждой порции прогресс пишется в журнал и в метрику document.purge.rows (table = documents,
+ * document_detail); итоговые количества возвращаются в {@link PurgeReport}.</p>
+ */
+@Service
+@Slf4j
+public class DocumentPurgeServiceImpl implements DocumentPurgeService {
+
+    private static final String DELETE_DETAILS_SQL = "DELETE FROM document_detail WHERE document_id IN (:ids)";
+
+    // строки, вставленные между двумя DELETE, удалит каскад
+    private static final String DELETE_DOCUMENTS_SQL = "DELETE FROM documents WHERE document_id IN (:ids)";
+
+    private final DocumentRepository documentRepository;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DocumentCacheEvictor cacheEvictor;
+    private final DocumentRollupQueue rollupQueue;
+    private final DocumentChangeBus changeBus;
+    private final DocumentPurgeProperties properties;
+    private final Counter documentsCounter;
+    private final Counter detailsCounter;
+
+    public DocumentPurgeServiceImpl(DocumentRepository documentRepository,
+                                    NamedParameterJdbcTemplate namedJdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    DocumentCacheEvictor cacheEvictor,
+                                    DocumentRollupQueue rollupQueue,
+                                    DocumentChangeBus changeBus,
+                                    DocumentPurgeProperties properties,
+                                    MeterRegistry registry) {
+        this.documentRepository = documentRepository;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheEvictor = cacheEvictor;
+        this.rollupQueue = rollupQueue;
+        this.changeBus = changeBus;
+        this.properties = properties;
+        this.documentsCounter = deletedRows(registry, "documents");
+        this.detailsCounter = deletedRows(registry, "document_detail");
+    }
+
+    private static Counter deletedRows(MeterRegistry registry, String table) {
+        return Counter.builder("document.purge.rows")
+                .description("Строки, удалённые массовым удалением документов")
+                .tag("table", table)
+                .register(registry);
+    }
+
+    /**
+     * <p>Удаляет документы с указанными идентификаторами; отсутствующие пропускаются.</p>
+     *
+     * @param documentIds идентификаторы документов
+     * @return количество удалённых документов и строк
+     */
+    @Override
+    public PurgeReport purgeByIds(Collection<Long> documentIds) {
+        List<Long> ids = documentIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        Progress progress = new Progress("ids");
+        for (int from = 0; from < ids.size(); from += properties.getChunkSize()) {
+            if (from > 0 && !pause()) {
+                break;
+            }
+            List<Long> chunk = ids.subList(from, Math.min(from + properties.getChunkSize(), ids.size()));
+            progress.add(Objects.requireNonNull(transactionTemplate.execute(status -> deleteChunk(chunk))));
+        }
+        return progress.finish();
+    }
+
+    /**
+     * <p>Удаляет документы, подходящие под условия поиска (номер, примечание, строка, диапазоны даты и итога).
+     * Пустые условия отклоняются: удаление всех документов этим методом не выполняется.</p>
+     *
+     * @param criteria условия поиска
+     * @return количество удалённых документов и строк
+     */
+    @Override
+    public PurgeReport purgeMatching(DocumentSearchCriteria criteria) {
+        if (criteria.isEmpty()) {
+            throw new CustomValidationException("Не заданы условия отбора удаляемых документов");
+        }
+        Progress progress = new Progress(criteria.toString());
+        long lastId = 0;
+        while (true) {
+            long afterId = lastId;
+            ChunkResult chunk = transactionTemplate.execute(status -> {
+                List<Long> ids = documentRepository.findIdsMatching(criteria, afterId, properties.getChunkSize());
+                return ids.isEmpty() ? null : deleteChunk(ids);
+            });
+            if (chunk == null) {
+                break;
+            }
+            progress.add(chunk);
+            lastId = chunk.lastId();
+            if (!pause()) {
+                break;
+            }
+        }
+        return progress.finish();
+    }
+
+    private ChunkResult deleteChunk(List<Long> ids) {
+        Map<String, Object> params = Map.of("ids", ids);
+        rollupQueue.enqueueAll(ids);
+        changeBus.documentsChanged(ids, DocumentChangeKind.DELETED);
+        cacheEvictor.evictDeletedDocuments(ids);
+        int details = namedJdbcTemplate.update(DELETE_DETAILS_SQL, params);
+        int documents = namedJdbcTemplate.update(DELETE_DOCUMENTS_SQL, params);
+        return new ChunkResult(ids.get(ids.size() - 1), documents, details);
+    }
+
+    /**
+     * @return false, если поток прерван и удаление нужно остановить
+     */
+    private boolean pause() {
+        Duration pause = properties.getPauseBetweenChunks();
+        if (pause.isZero() || pause.isNegative()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.info("Document purge interrupted");
+            return false;
+        }
+    }
+
+    private record ChunkResult(long lastId, int documents, int details) {
+    }
+
+    private final class Progress {
+        private final String scope;
+        private long documents;
+        private long details;
+        private int chunks;
+
+        private Progress(String scope) {
+            this.scope = scope;
+        }
+
+        void add(ChunkResult chunk) {
+            chunks++;
+            documents += chunk.documents();
+            details += chunk.details();
+            documentsCounter.increment(chunk.documents());
+            detailsCounter.increment(chunk.details());
+            log.info("Document purge [{}]: chunk {} deleted {} documents, {} details (total {} / {})",
+                    scope, chunks, chunk.documents(), chunk.details(), documents, details);
+        }
+
+        PurgeReport finish() {
+            PurgeReport report = new PurgeReport(documents, details, chunks);
+            log.info("Document purge [{}] finished: {}", scope, report);
+            return report;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.masterdetail.service.Impl;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.example.masterdetail.config.DocumentListProperties;
+import org.example.masterdetail.config.DocumentReadApiProperties;
+import org.example.masterdetail.dto.DetailRow;
+import org.example.masterdetail.dto.DocumentHeader;
+import org.example.masterdetail.dto.DocumentView;
+import org.example.masterdetail.service.DocumentReadService;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Неблокирующее чтение документов через R2DBC по той же схеме documents/document_detail.
+ *
+ * <p>Сервис только читает: все изменения по-прежнему проходят через JPA в
+ * {@link DocumentServiceImpl}, поэтому кэш второго уровня и версия документа
+ * остаются в одном месте. Ответы — проекции (record), не сущности.</p>
+ *
+ * <p>Документ со спецификациями читается одним запросом с LEFT JOIN, чтобы реквизиты,
+ * итог и строки были из одного снимка без отдельной транзакции. Потоковые методы
+ * читают строки порциями fetch-size по мере запроса подписчика (backpressure).</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class DocumentReadServiceImpl implements DocumentReadService {
+
+    private static final String HEADER_COLUMNS =
+            "d.document_id, d.doc_number, d.doc_date, d.total_sum, d.notes, d.version";
+
+    private static final String DOCUMENT_WITH_DETAILS_SQL = "SELECT " + HEADER_COLUMNS +
+            ", dd.detail_id, dd.item_name, dd.item_sum " +
+            "FROM documents d LEFT JOIN document_detail dd ON dd.document_id = d.document_id ";
+
+    private final DatabaseClient databaseClient;
+    private final DocumentListProperties listProperties;
+    private final DocumentReadApiProperties properties;
+
+    /**
+     * <p>Страница реквизитов документов по возрастанию id (keyset: следующая страница
+     * начинается после последнего полученного id).</p>
+     *
+     * @param afterId id последнего документа предыдущей страницы, null — с начала
+     * @param limit   размер страницы, ограничивается master-detail.documents.list.max-page-size
+     */
+    @Override
+    public Flux<DocumentHeader> findHeaders(Long afterId, Integer limit) {
+        return databaseClient.sql("SELECT " + HEADER_COLUMNS + " FROM documents d WHERE d.document_id > :afterId " +
+                        "ORDER BY d.document_id LIMIT :limit")
+                .bind("afterId", afterId != null ? afterId : 0L)
+                .bind("limit", listProperties.resolvePageSize(limit))
+                .map(DocumentReadServiceImpl::header)
+                .all();
+    }
+
+    @Override
+    public Flux<DocumentHeader> streamHeaders() {
+        return databaseClient.sql("SELECT " + HEADER_COLUMNS + " FROM documents d ORDER BY d.document_id")
+                .filter(statement -> statement.fetchSize(properties.getFetchSize()))
+                .map(DocumentReadServiceImpl::header)
+                .all();
+    }
+
+    @Override
+    public Mono<DocumentView> findById(Long id) {
+        return view(databaseClient.sql(DOCUMENT_WITH_DETAILS_SQL + "WHERE d.document_id = :id ORDER BY dd.detail_id")
+                .bind("id", id));
+    }
+
+    @Override
+    public Mono<DocumentView> findByDocNumber(String docNumber) {
+        return view(databaseClient.sql(DOCUMENT_WITH_DETAILS_SQL + "WHERE d.doc_number = :docNumber ORDER BY dd.detail_id")
+                .bind("docNumber", docNumber));
+    }
+
+    @Override
+    public Flux<DetailRow> streamDetails(Long documentId) {
+        return databaseClient.sql("SELECT detail_id, document_id, item_name, item_sum FROM document_detail " +
+                        "WHERE document_id = :documentId ORDER BY detail_id")
+                .bind("documentId", documentId)
+                .filter(statement -> statement.fetchSize(properties.getFetchSize()))
+                .map(row -> new DetailRow(
+                        row.get("detail_id", Long.class),
+                        row.get("document_id", Long.class),
+                        row.get("item_name", String.class),
+                        row.get("item_sum", BigDecimal.class)))
+                .all();
+    }
+
+    private Mono<DocumentView> view(DatabaseClient.GenericExecuteSpec spec) {
+        return spec.map(row -> new JoinedRow(header(row), detail(row)))
+                .all()
+                .collectList()
+                .flatMap(rows -> {
+                    if (rows.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    List<DetailRow> details = new ArrayList<>(rows.size());
+                    for (JoinedRow row : rows) {
+                        if (row.detail() != null) {
+                            details.add(row.detail());
+                        }
+                    }
+                    return Mono.just(new DocumentView(rows.get(0).header(), details));
+                });
+    }
+
+    private static DocumentHeader header(Readable row) {
+        return new DocumentHeader(
+                row.get("document_id", Long.class),
+                row.get("doc_number", String.class),
+                row.get("doc_date", LocalDateTime.class),
+                row.get("total_sum", BigDecimal.class),
+                row.get("notes", String.class),
+                row.get("version", Long.class));
+    }
+
+    private static DetailRow detail(Readable row) {
+        Long detailId = row.get("detail_id", Long.class);
+        if (detailId == null) {
+            return null;
+        }
+        return new DetailRow(detailId, row.get("document_id", Long.class),
+                row.get("item_name", String.class), row.get("item_sum", BigDecimal.class));
+    }
+
+    private record JoinedRow(DocumentHeader header, DetailRow detail) {
+    }
+}
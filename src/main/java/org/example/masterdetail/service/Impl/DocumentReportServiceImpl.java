@@ -0,0 +1,277 @@
+package org.example.masterdetail.service.Impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.DocumentReportProperties;
+import org.example.masterdetail.dto.DocumentTotalsRow;
+import org.example.masterdetail.enums.ReportGranularity;
+import org.example.masterdetail.errors.CustomValidationException;
+import org.example.masterdetail.repository.DocumentRollupQueue;
+import org.example.masterdetail.service.DocumentReportService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Итоги документов по дням и месяцам для отчётов.
+ *
+ * <p>Отчёты читают только витрины document_rollup_daily и document_rollup_monthly: ответ
+ * на запрос за период — не больше одной строки на день (месяц) периода, сколько бы
+ * документов в нём ни было, и не нагружает таблицу documents.</p>
+ *
+ * <p>Изменяющие операции документов оставляют отметку в очереди ({@link DocumentRollupQueue}).
+ * Пересчёт берёт отметки пачками: для документов пачки читает текущие дату, итог и
+ * количество строк и сравнивает с вкладом, уже учтённым в витринах (document_rollup_state);
+ * витрины сдвигаются на разницу. Удалённый документ просто вычитается, документ со сменившейся
+ * датой переносится между днями. Пачка — одна транзакция: витрины, учтённый вклад и удаление
+ * отметок фиксируются вместе. Отметки удаляются по queue_id прочитанных строк, так что изменение,
+ * зафиксированное во время пересчёта, обработает следующий проход.</p>
+ *
+ * <p>Пачка начинается с блокировки строки document_rollup_lock (FOR UPDATE SKIP LOCKED): пока пачку
+ * сворачивает другой экземпляр приложения, пересчёт на этом пропускается. Без неё два экземпляра
+ * прочитали бы одинаковый учтённый вклад документа и сдвинули бы витрины на разницу дважды — даже
+ * забирая разные отметки очереди, ведь у одного документа их может быть несколько.</p>
+ */
+@Service
+@Slf4j
+public class DocumentReportServiceImpl implements DocumentReportService {
+
+    private static final String CLAIM_SQL =
+            "SELECT lock_id FROM document_rollup_lock WHERE lock_id = 1 FOR UPDATE SKIP LOCKED";
+
+    private static final String NEXT_BATCH_SQL =
+            "SELECT queue_id, document_id FROM document_rollup_queue ORDER BY queue_id LIMIT ?";
+
+    // список повторён для спецификаций: так отсекаются секции document_detail
+    private static final String CURRENT_CONTRIBUTIONS_SQL =
+            "SELECT d.document_id, CAST(d.doc_date AS DATE) AS report_day, d.total_sum, COUNT(dd.detail_id) AS line_count " +
+            "FROM documents d LEFT JOIN document_detail dd ON dd.document_id = d.document_id AND dd.document_id IN (:ids) " +
+            "WHERE d.document_id IN (:ids) " +
+            "GROUP BY d.document_id, d.doc_date, d.total_sum";
+
+    private static final String COUNTED_CONTRIBUTIONS_SQL =
+            "SELECT document_id, report_day, total_sum, line_count FROM document_rollup_state WHERE document_id IN (:ids)";
+
+    private static final String DELETE_STATE_SQL = "DELETE FROM document_rollup_state WHERE document_id IN (:ids)";
+
+    private static final String INSERT_STATE_SQL =
+            "INSERT INTO document_rollup_state (document_id, report_day, total_sum, line_count) VALUES (?, ?, ?, ?)";
+
+    private static final String DEQUEUE_SQL = "DELETE FROM document_rollup_queue WHERE queue_id IN (:queueIds)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DocumentReportProperties properties;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public DocumentReportServiceImpl(JdbcTemplate jdbcTemplate,
+                                     NamedParameterJdbcTemplate namedJdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     DocumentReportProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * <p>Переносит в витрины все изменения, отмеченные в очереди. Если пересчёт уже идёт
+     * в этом или другом экземпляре приложения, второй не запускается.</p>
+     *
+     * @return количество обработанных отметок очереди
+     */
+    @Override
+    public int refreshRollups() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Rollup refresh is already running, skipped");
+            return 0;
+        }
+        try {
+            int processed = 0;
+            int batch;
+            do {
+                batch = Objects.requireNonNull(transactionTemplate.execute(status -> foldBatch()));
+                processed += batch;
+            } while (batch == properties.getBatchSize());
+            if (processed > 0) {
+                log.info("Rollup refresh finished: {} queued changes applied", processed);
+            }
+            return processed;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * <p>Возвращает итоги за период из витрин, по строке на каждый день (месяц), в котором есть документы.</p>
+     *
+     * @param granularity шаг строк
+     * @param from        начало периода (включительно); для MONTH — любой день первого месяца
+     * @param to          конец периода (включительно); для MONTH — любой день последнего месяца
+     * @return строки отчёта по возрастанию периода
+     */
+    @Override
+    public List<DocumentTotalsRow> findTotals(ReportGranularity granularity, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new CustomValidationException("Начало периода отчёта позже его конца");
+        }
+        Rollup rollup = Rollup.of(granularity);
+        return jdbcTemplate.query(
+                "SELECT " + rollup.keyColumn + ", document_count, total_sum, line_count FROM " + rollup.table +
+                        " WHERE " + rollup.keyColumn + " BETWEEN ? AND ? ORDER BY " + rollup.keyColumn + " LIMIT ?",
+                (rs, rowNum) -> totalsRow(rs.getObject(1, LocalDate.class), rs.getLong(2), rs.getBigDecimal(3), rs.getLong(4)),
+                Date.valueOf(rollup.key(from)), Date.valueOf(rollup.key(to)), properties.getMaxRows());
+    }
+
+    private static DocumentTotalsRow totalsRow(LocalDate period, long documents, BigDecimal totalSum, long lines) {
+        BigDecimal average = documents == 0
+                ? BigDecimal.ZERO
+                : BigDecimal.valueOf(lines).divide(BigDecimal.valueOf(documents), 2, RoundingMode.HALF_UP);
+        return new DocumentTotalsRow(period, documents, totalSum, lines, average);
+    }
+
+    private int foldBatch() {
+        if (jdbcTemplate.queryForList(CLAIM_SQL, Integer.class).isEmpty()) {
+            log.info("Rollup refresh is running on another instance, skipped");
+            return 0;
+        }
+        List<Long> queueIds = new ArrayList<>();
+        Set<Long> documentIds = new LinkedHashSet<>();
+        jdbcTemplate.query(NEXT_BATCH_SQL, rs -> {
+            queueIds.add(rs.getLong("queue_id"));
+            documentIds.add(rs.getLong("document_id"));
+        }, properties.getBatchSize());
+        if (queueIds.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> ids = Map.of("ids", documentIds);
+        Map<Long, Contribution> current = contributions(CURRENT_CONTRIBUTIONS_SQL, ids);
+        Map<Long, Contribution> counted = contributions(COUNTED_CONTRIBUTIONS_SQL, ids);
+
+        Map<LocalDate, Totals> daily = new TreeMap<>();
+        Map<LocalDate, Totals> monthly = new TreeMap<>();
+        for (Long documentId : documentIds) {
+            Contribution before = counted.get(documentId);
+            Contribution after = current.get(documentId);
+            if (Objects.equals(before, after)) {
+                continue;
+            }
+            if (before != null) {
+                shift(daily, monthly, before, -1);
+            }
+            if (after != null) {
+                shift(daily, monthly, after, 1);
+            }
+        }
+        apply(Rollup.DAILY, daily);
+        apply(Rollup.MONTHLY, monthly);
+
+        namedJdbcTemplate.update(DELETE_STATE_SQL, ids);
+        List<Map.Entry<Long, Contribution>> present = new ArrayList<>(current.entrySet());
+        jdbcTemplate.batchUpdate(INSERT_STATE_SQL, present, present.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getKey());
+            ps.setDate(2, Date.valueOf(entry.getValue().day()));
+            ps.setBigDecimal(3, entry.getValue().totalSum());
+            ps.setLong(4, entry.getValue().lineCount());
+        });
+        namedJdbcTemplate.update(DEQUEUE_SQL, Map.of("queueIds", queueIds));
+        return queueIds.size();
+    }
+
+    private Map<Long, Contribution> contributions(String sql, Map<String, Object> ids) {
+        Map<Long, Contribution> result = new HashMap<>();
+        namedJdbcTemplate.query(sql, ids, rs -> {
+            result.put(rs.getLong("document_id"), new Contribution(
+                    rs.getObject("report_day", LocalDate.class),
+                    // масштаб приводится, чтобы сравнение с учтённым вкладом не зависело от драйвера
+                    rs.getBigDecimal("total_sum").setScale(2, RoundingMode.HALF_UP),
+                    rs.getLong("line_count")));
+        });
+        return result;
+    }
+
+    private static void shift(Map<LocalDate, Totals> daily, Map<LocalDate, Totals> monthly, Contribution contribution, int sign) {
+        daily.computeIfAbsent(Rollup.DAILY.key(contribution.day()), k -> new Totals()).add(contribution, sign);
+        monthly.computeIfAbsent(Rollup.MONTHLY.key(contribution.day()), k -> new Totals()).add(contribution, sign);
+    }
+
+    /**
+     * Сдвигает строки витрины; строка периода создаётся при первом документе
+     * и удаляется, когда в периоде не остаётся документов.
+     */
+    private void apply(Rollup rollup, Map<LocalDate, Totals> deltas) {
+        for (Map.Entry<LocalDate, Totals> entry : deltas.entrySet()) {
+            Totals delta = entry.getValue();
+            if (delta.isZero()) {
+                continue;
+            }
+            Date key = Date.valueOf(entry.getKey());
+            int updated = jdbcTemplate.update("UPDATE " + rollup.table + " SET document_count = document_count + ?, " +
+                            "total_sum = total_sum + ?, line_count = line_count + ? WHERE " + rollup.keyColumn + " = ?",
+                    delta.documents, delta.totalSum, delta.lines, key);
+            if (updated == 0) {
+                jdbcTemplate.update("INSERT INTO " + rollup.table + " (" + rollup.keyColumn +
+                                ", document_count, total_sum, line_count) VALUES (?, ?, ?, ?)",
+                        key, delta.documents, delta.totalSum, delta.lines);
+            } else if (delta.documents < 0) {
+                jdbcTemplate.update("DELETE FROM " + rollup.table + " WHERE " + rollup.keyColumn + " = ? AND document_count = 0", key);
+            }
+        }
+    }
+
+    private enum Rollup {
+        DAILY("document_rollup_daily", "report_day"),
+        MONTHLY("document_rollup_monthly", "report_month");
+
+        private final String table;
+        private final String keyColumn;
+
+        Rollup(String table, String keyColumn) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+        }
+
+        static Rollup of(ReportGranularity granularity) {
+            return granularity == ReportGranularity.MONTH ? MONTHLY : DAILY;
+        }
+
+        LocalDate key(LocalDate day) {
+            return this == MONTHLY ? day.withDayOfMonth(1) : day;
+        }
+    }
+
+    private record Contribution(LocalDate day, BigDecimal totalSum, long lineCount) {
+    }
+
+    private static final class Totals {
+        private long documents;
+        private BigDecimal totalSum = BigDecimal.ZERO;
+        private long lines;
+
+        void add(Contribution contribution, int sign) {
+            documents += sign;
+            totalSum = sign > 0 ? totalSum.add(contribution.totalSum()) : totalSum.subtract(contribution.totalSum());
+            lines += (long) sign * contribution.lineCount();
+        }
+
+        boolean isZero() {
+            return documents == 0 && totalSum.signum() == 0 && lines == 0;
+        }
+    }
+}
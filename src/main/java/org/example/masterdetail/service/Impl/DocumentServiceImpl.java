@@ -1,22 +1,59 @@
 package org.example.masterdetail.service.Impl;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.DocumentListProperties;
+import org.example.masterdetail.dto.CursorPage;
+import org.example.masterdetail.dto.DetailBatchResult;
+import org.example.masterdetail.dto.DetailOperation;
+import org.example.masterdetail.dto.DetailOperationResult;
+import org.example.masterdetail.dto.DetailPageRequest;
+import org.example.masterdetail.dto.DetailRow;
+import org.example.masterdetail.dto.DocumentListPage;
+import org.example.masterdetail.dto.DocumentPageRequest;
+import org.example.masterdetail.dto.DocumentStamp;
+import org.example.masterdetail.dto.DocumentSummary;
+import org.example.masterdetail.enums.DetailFetchStrategy;
+import org.example.masterdetail.enums.DetailOperationType;
+import org.example.masterdetail.enums.DocumentChangeKind;
 import org.example.masterdetail.enums.ErrorType;
 import org.example.masterdetail.errors.CustomValidationException;
+import org.example.masterdetail.errors.DocumentConflictException;
+import org.example.masterdetail.errors.DocumentNotFoundException;
+import org.example.masterdetail.metrics.DocumentMetrics;
 import org.example.masterdetail.model.Document;
 import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentCacheEvictor;
+import org.example.masterdetail.repository.DocumentDetailRepository;
 import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.repository.DocumentRollupQueue;
+import org.example.masterdetail.service.ConflictRetryExecutor;
+import org.example.masterdetail.service.DocumentChangeBus;
 import org.example.masterdetail.service.DocumentService;
+import org.example.masterdetail.service.ErrorLogService;
+import org.hibernate.Hibernate;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * <p>DocumentService управляет сущностью Document (Master)
@@ -25,8 +62,10 @@ import java.util.Objects;
  * <p>Особенности:</p>
  * <ul>
  *   <li>Проверка уникальности номера документа .</li>
- *   <li>Логирование ошибок в отдельной транзакции.</li>
+ *   <li>Асинхронное логирование ошибок через {@link ErrorLogService}.</li>
  *   <li>Инкрементный пересчёт суммы при добавлении/удалении/обновлении деталей.</li>
+ *   <li>Оптимистическая блокировка документа (@Version) и повтор изменяющих операций
+ *       при конфликте через {@link ConflictRetryExecutor}.</li>
  *   <li>При обновлении документа, если изменился набор деталей, разница сумм вычисляется
  *       путём сопоставления старых и новых деталей.</li>
  * </ul>
@@ -34,14 +73,33 @@ import java.util.Objects;
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = "document.service", histogram = true)
 public class DocumentServiceImpl implements DocumentService {
 
+    private static final int ITEM_NAME_MAX_LENGTH = 100;
+
+    private static final String UPDATE_DETAIL_IF_UNCHANGED_SQL = "UPDATE document_detail SET item_name = ?, item_sum = ? " +
+            "WHERE detail_id = ? AND document_id = ? AND item_sum = ?";
+
+    private static final String DELETE_DETAIL_IF_UNCHANGED_SQL =
+            "DELETE FROM document_detail WHERE detail_id = ? AND document_id = ? AND item_sum = ?";
+
+    private static final String TOTAL_SUM_SQL = "SELECT total_sum FROM documents WHERE document_id = ?";
+
     private final DocumentRepository documentRepository;
-    private final ErrorLogServiceImpl errorLogService;
+    private final DocumentDetailRepository documentDetailRepository;
+    private final ErrorLogService errorLogService;
+    private final DocumentListProperties listProperties;
+    private final DocumentMetrics documentMetrics;
+    private final DocumentCacheEvictor cacheEvictor;
+    private final ConflictRetryExecutor retryExecutor;
+    private final DocumentRollupQueue rollupQueue;
+    private final DocumentChangeBus changeBus;
+    private final JdbcTemplate jdbcTemplate;
 
     /**
      * Создаёт новый документ. Если номер дублируется, бросает исключение
-     * и логирует ошибку в отдельной транзакции.
+     * и логирует ошибку в журнал ошибок.
      *
      * @param doc документ
      * @return сохранённый документ
@@ -64,161 +122,390 @@ public class DocumentServiceImpl implements DocumentService {
                 totalSum = totalSum.add(getSafeValue(detail.getItemSum()));
             }
         } else {
-            doc.setDetails(new ArrayList<>());
+            doc.setDetails(new LinkedHashSet<>());
         }
         doc.setTotalSum(totalSum);
-        return documentRepository.save(doc);
+        documentMetrics.recordDetails(DocumentMetrics.ADD, doc.getDetails().size());
+        Document saved = documentRepository.save(doc);
+        rollupQueue.enqueue(saved.getId());
+        changeBus.documentChanged(saved.getId(), DocumentChangeKind.CREATED);
+        return saved;
     }
 
     /**
      * <p>Обновляет существующий документ: проверяет уникальность номера,
      * обновляет поля, а также выполняет инкрементные операции над списком деталей:
-     * добавляет новые, обновляет старые, удаляет отсутствующие в updatedDoc.</p>
+     * добавляет новые, обновляет изменённые, удаляет отсутствующие в updatedDoc.
+     * Строки, которые не изменились, в SQL не попадают.</p>
      *
      * <p>При этом totalSum пересчитывается путём вычисления разницы между
      * старыми и новыми деталями (добавленные + удалённые + изменённые).</p>
      *
+     * <p>Если список деталей не передан, реквизиты обновляются одним UPDATE без чтения
+     * документа. Переданная версия (форма редактирования) в обоих случаях сверяется с текущей:
+     * если документ изменили после чтения формы, бросается {@link DocumentConflictException}.
+     * Без версии замену деталей защищает только @Version от гонки между чтением и записью:
+     * при параллельном изменении операция повторяется в новой транзакции через
+     * {@link ConflictRetryExecutor}.</p>
+     *
      * @param id              идентификатор существующего документа
      * @param updatedDocument документ с новыми данными (номер, дата, note, список деталей)
      * @return документ после обновления
      */
     @Override
-    @Transactional
     public Document updateDocument(Long id, Document updatedDocument) {
-        Document existing = findDocOrElseThrowException(id);
-        if (!existing.getDocNumber().equals(updatedDocument.getDocNumber())) {
-            if (documentRepository.existsByDocNumber(updatedDocument.getDocNumber())) {
-                String err = "Document with number " + updatedDocument.getDocNumber() + " already exists";
-                errorLogService.logError(ErrorType.DOC_NUMBER_DUPLICATE.getMessage(), err);
-                throw new RuntimeException(err);
+        return retryExecutor.execute("updateDocument", () -> applyDocumentUpdate(id, updatedDocument));
+    }
+
+    private Document applyDocumentUpdate(Long id, Document updatedDocument) {
+        if (documentRepository.existsByDocNumberAndIdNot(updatedDocument.getDocNumber(), id)) {
+            String err = "Document with number " + updatedDocument.getDocNumber() + " already exists";
+            errorLogService.logError(ErrorType.DOC_NUMBER_DUPLICATE.getMessage(), err);
+            throw new RuntimeException(err);
+        }
+        LocalDateTime docDate = updatedDocument.getDocDate() != null ? updatedDocument.getDocDate() : LocalDateTime.now();
+        if (updatedDocument.getDetails() == null) {
+            // только реквизиты: один UPDATE без чтения; с версией формы — только если документ не менялся после её чтения
+            int updated = updatedDocument.getVersion() != null
+                    ? documentRepository.updateHeaderIfCurrent(id, updatedDocument.getVersion(),
+                            updatedDocument.getDocNumber(), docDate, updatedDocument.getNotes())
+                    : documentRepository.updateHeader(id, updatedDocument.getDocNumber(), docDate, updatedDocument.getNotes());
+            if (updated == 0) {
+                throw updatedDocument.getVersion() != null && documentRepository.existsById(id)
+                        ? staleDocument(id, updatedDocument.getVersion())
+                        : documentNotFound(id);
             }
-            existing.setDocNumber(updatedDocument.getDocNumber());
+            rollupQueue.enqueue(id);
+            changeBus.documentChanged(id, DocumentChangeKind.UPDATED);
+            cacheEvictor.evictDocumentHeader(id);
+            return documentRepository.findById(id).orElseThrow(() -> documentNotFound(id));
+        }
+        Document existing = documentRepository.findById(id).orElseThrow(() -> documentNotFound(id));
+        if (updatedDocument.getVersion() != null && !updatedDocument.getVersion().equals(existing.getVersion())) {
+            throw staleDocument(id, updatedDocument.getVersion());
         }
-        existing.setDocDate(updatedDocument.getDocDate() != null ? updatedDocument.getDocDate() : LocalDateTime.now());
+        existing.setDocNumber(updatedDocument.getDocNumber());
+        existing.setDocDate(docDate);
         existing.setNotes(updatedDocument.getNotes());
-        if (updatedDocument.getDetails() != null) {
-            existing.getDetails().clear();
-            BigDecimal sum = BigDecimal.ZERO;
-            for (DocumentDetail detail : updatedDocument.getDetails()) {
-                detail.setDocument(existing);
-                existing.getDetails().add(detail);
-                if (detail.getItemSum() != null) {
-                    sum = sum.add(detail.getItemSum());
-                }
+        BigDecimal delta = syncDetails(existing, updatedDocument.getDetails());
+        existing.setTotalSum(getSafeValue(existing.getTotalSum()).add(delta));
+        // документ помечается изменённым, даже если поменялись только строки: версия и ETag обязаны смениться
+        existing.setUpdatedAt(LocalDateTime.now());
+        documentMetrics.recordDetails(DocumentMetrics.UPDATE, existing.getDetails().size());
+        rollupQueue.enqueue(id);
+        changeBus.documentChanged(id, DocumentChangeKind.UPDATED);
+        return documentRepository.save(existing);
+    }
+
+    /**
+     * Приводит спецификации документа к присланному набору, сопоставляя строки по id:
+     * изменённые поля переписываются в загруженные сущности (UPDATE только для них),
+     * строки без id или с чужим id добавляются, отсутствующие в наборе удаляются.
+     * Вставки, изменения и удаления Hibernate отправляет пакетами (hibernate.jdbc.batch_size).
+     *
+     * @return изменение итоговой суммы документа
+     */
+    private BigDecimal syncDetails(Document existing, Collection<DocumentDetail> submitted) {
+        Map<Long, DocumentDetail> current = new HashMap<>(existing.getDetails().size() * 2);
+        for (DocumentDetail detail : existing.getDetails()) {
+            current.put(detail.getId(), detail);
+        }
+        BigDecimal delta = BigDecimal.ZERO;
+        List<DocumentDetail> added = new ArrayList<>();
+        for (DocumentDetail detail : submitted) {
+            DocumentDetail target = detail.getId() != null ? current.remove(detail.getId()) : null;
+            if (target == null) {
+                // новая сущность, а не присланный объект: при повторе попытки он не должен нести id из отменённой транзакции
+                added.add(new DocumentDetail(null, existing, detail.getItemName(), detail.getItemSum()));
+                delta = delta.add(getSafeValue(detail.getItemSum()));
+                continue;
+            }
+            if (!Objects.equals(target.getItemName(), detail.getItemName())) {
+                target.setItemName(detail.getItemName());
+            }
+            if (!sameSum(target.getItemSum(), detail.getItemSum())) {
+                delta = delta.add(getSafeValue(detail.getItemSum())).subtract(getSafeValue(target.getItemSum()));
+                target.setItemSum(detail.getItemSum());
             }
-            existing.setTotalSum(sum);
         }
-        return documentRepository.save(existing);
+        for (DocumentDetail removed : current.values()) {
+            existing.getDetails().remove(removed);
+            delta = delta.subtract(getSafeValue(removed.getItemSum()));
+        }
+        existing.getDetails().addAll(added);
+        return delta;
+    }
+
+    private static boolean sameSum(BigDecimal left, BigDecimal right) {
+        return left == null ? right == null : right != null && left.compareTo(right) == 0;
     }
 
     /**
-     * <p>Удаляет документ, если он существует. В противном случае — логируется ошибка и бросается исключение.</p>
+     * <p>Удаляет документ одним DELETE: спецификации не загружаются и удаляются каскадом БД.
+     * Если документа нет — логируется ошибка и бросается исключение.</p>
      *
      * @param id идентификатор документа
      */
     @Override
     @Transactional
     public void deleteDocument(Long id) {
-        if (!documentRepository.existsById(id)) {
+        if (documentRepository.deleteRowById(id) == 0) {
             String err = "Cannot delete. Document not found: " + id;
             errorLogService.logError(ErrorType.DOC_NOT_FOUND.getMessage(), err);
             throw new RuntimeException(err);
         }
-        documentRepository.deleteById(id);
+        rollupQueue.enqueue(id);
+        changeBus.documentChanged(id, DocumentChangeKind.DELETED);
+        cacheEvictor.evictDeletedDocuments(List.of(id));
     }
 
     /**
-     * <p>Добавляет одну новую деталь к документу, пересчитывая totalSum инкрементно.</p>
+     * <p>Добавляет одну новую деталь к документу: вставляет одну строку document_detail
+     * и атомарно увеличивает total_sum документа на сумму детали
+     * (UPDATE ... SET total_sum = total_sum + :delta). Коллекция деталей не загружается.</p>
      *
      * @param docId  идентификатор документа
      * @param detail новая деталь
      * @return добавленная деталь
      */
-    //@Transactional
     @Override
     public DocumentDetail addDetail(Long docId, DocumentDetail detail) {
-        Document existing = findDocOrElseThrowException(docId);
-        detail.setDocument(existing);
-        existing.getDetails().add(detail);
-        BigDecimal currentValue = getSafeValue(existing.getTotalSum());
-        BigDecimal additionalValue = getSafeValue(detail.getItemSum());
-        existing.setTotalSum(currentValue.add(additionalValue));
+        return retryExecutor.execute("addDetail", () -> insertDetail(docId, detail));
+    }
+
+    private DocumentDetail insertDetail(Long docId, DocumentDetail newDetail) {
+        if (documentRepository.adjustTotalSum(docId, getSafeValue(newDetail.getItemSum())) == 0) {
+            throw documentNotFound(docId);
+        }
+        DocumentDetail detail = new DocumentDetail(null, documentRepository.getReferenceById(docId),
+                newDetail.getItemName(), newDetail.getItemSum());
         try {
-           documentRepository.save(existing);
+            documentDetailRepository.saveAndFlush(detail);
+        } catch (ConcurrencyFailureException ex) {
+            throw ex;
         } catch (Exception ex) {
-            errorLogService.logError("Ошибка при сохранении спецификации: " + ex.getMessage(), ErrorType.VALIDATION_ERROR.getMessage());
+            errorLogService.logError(ErrorType.VALIDATION_ERROR.getMessage(), "Ошибка при сохранении спецификации: " + ex.getMessage());
             throw new CustomValidationException("Некорректные данные спецификации, проверьте правильность введенных значений.");
         }
+        rollupQueue.enqueue(docId);
+        changeBus.documentChanged(docId, DocumentChangeKind.UPDATED);
+        cacheEvictor.evictDocument(docId);
         log.info("detail with id added: {}", detail.getId());
         return detail;
     }
 
     /**
-     * <p>Удаляет деталь из документа по её идентификатору, пересчитывая totalSum.</p>
+     * <p>Удаляет деталь из документа по её идентификатору: удаляет одну строку
+     * document_detail и атомарно уменьшает total_sum документа на её сумму.
+     * Если строка была изменена параллельно, операция повторяется с новым чтением;
+     * когда попытки исчерпаны, бросается {@link OptimisticLockingFailureException}.</p>
      *
      * @param docId    идентификатор документа
      * @param detailId идентификатор детали
      */
-    @Transactional
+    @Override
     public void removeDetail(Long docId, Long detailId) {
-        Document existing = findDocOrElseThrowException(docId);
-        DocumentDetail toRemove = existing.getDetails().stream()
-                .filter(d -> Objects.equals(d.getId(), detailId))
-                .findFirst()
-                .orElseThrow(() -> {
-                    String message = "Detail not found: " + detailId;
-                    errorLogService.logError(ErrorType.DETAIL_NOT_FOUND.getMessage(), message);
-                    return new RuntimeException(message);
-                });
-        BigDecimal oldValue = getSafeValue(existing.getTotalSum());
-        BigDecimal newValue = oldValue.subtract(
-                getSafeValue(toRemove.getItemSum())
-        );
-        existing.setTotalSum(newValue);
-        existing.getDetails().remove(toRemove);
-        documentRepository.save(existing);
+        retryExecutor.run("removeDetail", () -> deleteDetail(docId, detailId));
+    }
+
+    private void deleteDetail(Long docId, Long detailId) {
+        DetailRow toRemove = findDetailRow(docId, detailId);
+        if (documentDetailRepository.deleteIfUnchanged(docId, detailId, toRemove.itemSum()) == 0) {
+            throw concurrentDetailModification(detailId);
+        }
+        documentRepository.adjustTotalSum(docId, getSafeValue(toRemove.itemSum()).negate());
+        rollupQueue.enqueue(docId);
+        changeBus.documentChanged(docId, DocumentChangeKind.UPDATED);
+        cacheEvictor.evictDetail(docId, detailId);
         log.info("detail with id removed: {}", detailId);
     }
 
     /**
-     * <p>Обновляет существующую деталь, изменяя её поля и
-     * корректируя totalSum документа на разницу между старой и новой суммой детали.</p>
+     * <p>Обновляет существующую деталь одним UPDATE по её строке и
+     * корректирует total_sum документа на разницу между старой и новой суммой детали.
+     * Если строка была изменена параллельно, операция повторяется с новым чтением;
+     * когда попытки исчерпаны, бросается {@link OptimisticLockingFailureException}.</p>
      *
      * @param docId     идентификатор документа
      * @param detailId  идентификатор детали
      * @param newDetail данные, которые нужно применить
      * @return обновлённая деталь
      */
-    @Transactional
+    @Override
     public DocumentDetail updateDetail(Long docId, Long detailId, DocumentDetail newDetail) {
-        Document document = findDocOrElseThrowException(docId);
-        DocumentDetail existingDetail = document.getDetails().stream()
-                .filter(d -> Objects.equals(d.getId(), detailId))
-                .findFirst()
-                .orElseThrow(() -> {
-                    String err = "Detail not found: " + detailId;
-                    errorLogService.logError(ErrorType.DETAIL_NOT_FOUND.getMessage(), err);
-                    return new RuntimeException(err);
-                });
-        BigDecimal oldValue = getSafeValue(existingDetail.getItemSum());
+        return retryExecutor.execute("updateDetail", () -> changeDetail(docId, detailId, newDetail));
+    }
+
+    private DocumentDetail changeDetail(Long docId, Long detailId, DocumentDetail newDetail) {
+        DetailRow existingDetail = findDetailRow(docId, detailId);
+        BigDecimal oldValue = getSafeValue(existingDetail.itemSum());
         BigDecimal updatedValue = getSafeValue(newDetail.getItemSum());
-        existingDetail.setItemName(newDetail.getItemName());
-        existingDetail.setItemSum(updatedValue);
-        BigDecimal currentValue = getSafeValue(document.getTotalSum());
-        BigDecimal diff = updatedValue.subtract(oldValue);
-        document.setTotalSum(currentValue.add(diff));
-        documentRepository.save(document);
+        int updated = documentDetailRepository.updateIfUnchanged(
+                docId, detailId, existingDetail.itemSum(), newDetail.getItemName(), updatedValue);
+        if (updated == 0) {
+            throw concurrentDetailModification(detailId);
+        }
+        // и при нулевой разнице: смена одного наименования тоже должна сменить версию документа (ETag)
+        documentRepository.adjustTotalSum(docId, updatedValue.subtract(oldValue));
+        if (updatedValue.compareTo(oldValue) != 0) {
+            rollupQueue.enqueue(docId);
+        }
+        changeBus.documentChanged(docId, DocumentChangeKind.UPDATED);
+        cacheEvictor.evictDetail(docId, detailId);
         log.info("detail with id updated: {}", detailId);
-        return existingDetail;
+        return new DocumentDetail(detailId, documentRepository.getReferenceById(docId), newDetail.getItemName(), updatedValue);
+    }
+
+    /**
+     * <p>Применяет к спецификации документа пакет операций (добавление, изменение и удаление строк)
+     * одной транзакцией. Сначала проверяются все операции: строка должна принадлежать документу
+     * и встречаться в пакете один раз, у ADD и UPDATE должны быть наименование и сумма.
+     * Если хотя бы одна операция некорректна, пакет не применяется, а в ответе указаны причины.</p>
+     *
+     * <p>total_sum сдвигается одним UPDATE на суммарную разницу пакета. Изменения и удаления
+     * отправляются JDBC-пакетами с проверкой прежней суммы строки (compare-and-set), новые строки —
+     * пакетными вставками Hibernate (hibernate.jdbc.batch_size). Если строку успели изменить
+     * параллельно, пакет повторяется целиком через {@link ConflictRetryExecutor}.</p>
+     *
+     * @param docId      идентификатор документа
+     * @param operations операции в порядке применения
+     * @return результат по каждой операции и итог документа после пакета
+     */
+    @Override
+    public DetailBatchResult applyDetailOperations(Long docId, List<DetailOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new CustomValidationException("Пакет операций над спецификацией пуст");
+        }
+        return retryExecutor.execute("applyDetailOperations", () -> applyDetailBatch(docId, operations));
+    }
+
+    private DetailBatchResult applyDetailBatch(Long docId, List<DetailOperation> operations) {
+        List<Long> referenced = operations.stream()
+                .filter(op -> op.op() != DetailOperationType.ADD && op.detailId() != null)
+                .map(DetailOperation::detailId)
+                .distinct()
+                .toList();
+        Map<Long, DetailRow> existing = referenced.isEmpty() ? Map.of()
+                : documentDetailRepository.findRows(docId, referenced).stream()
+                .collect(Collectors.toMap(DetailRow::id, row -> row));
+
+        List<String> errors = new ArrayList<>(operations.size());
+        Set<Long> seen = new HashSet<>();
+        long rejected = 0;
+        for (DetailOperation operation : operations) {
+            String error = validateOperation(operation, existing, seen);
+            errors.add(error);
+            if (error != null) {
+                rejected++;
+            }
+        }
+        if (rejected > 0) {
+            errorLogService.logError(ErrorType.VALIDATION_ERROR.getMessage(),
+                    "Detail batch for document " + docId + " rejected: " + rejected + " of " + operations.size() + " operations are invalid");
+            List<DetailOperationResult> results = new ArrayList<>(operations.size());
+            for (int i = 0; i < operations.size(); i++) {
+                DetailOperation operation = operations.get(i);
+                results.add(new DetailOperationResult(i, operation.op(), operation.detailId(), false, errors.get(i)));
+            }
+            return new DetailBatchResult(false, null, results);
+        }
+
+        BigDecimal delta = BigDecimal.ZERO;
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (DetailOperation operation : operations) {
+            // у ADD нет detail_id, а Map.of() не допускает get(null)
+            DetailRow row = operation.op() == DetailOperationType.ADD ? null : existing.get(operation.detailId());
+            switch (operation.op()) {
+                case ADD -> delta = delta.add(operation.itemSum());
+                case UPDATE -> {
+                    delta = delta.add(operation.itemSum()).subtract(row.itemSum());
+                    updates.add(new Object[]{operation.itemName(), operation.itemSum(), row.id(), docId, row.itemSum()});
+                }
+                case DELETE -> {
+                    delta = delta.subtract(row.itemSum());
+                    deletes.add(new Object[]{row.id(), docId, row.itemSum()});
+                }
+            }
+        }
+        // первым — UPDATE документа: он проверяет, что документ есть, и блокирует его до конца пакета
+        if (documentRepository.adjustTotalSum(docId, delta) == 0) {
+            throw documentNotFound(docId);
+        }
+        checkDetailBatch(jdbcTemplate.batchUpdate(UPDATE_DETAIL_IF_UNCHANGED_SQL, updates), updates, 2);
+        checkDetailBatch(jdbcTemplate.batchUpdate(DELETE_DETAIL_IF_UNCHANGED_SQL, deletes), deletes, 0);
+
+        Document reference = documentRepository.getReferenceById(docId);
+        List<DetailOperationResult> results = new ArrayList<>(operations.size());
+        List<DocumentDetail> added = new ArrayList<>();
+        for (DetailOperation operation : operations) {
+            if (operation.op() == DetailOperationType.ADD) {
+                added.add(documentDetailRepository.save(
+                        new DocumentDetail(null, reference, operation.itemName(), operation.itemSum())));
+            }
+        }
+        documentDetailRepository.flush();
+        for (int i = 0, next = 0; i < operations.size(); i++) {
+            DetailOperation operation = operations.get(i);
+            Long detailId = operation.op() == DetailOperationType.ADD ? added.get(next++).getId() : operation.detailId();
+            results.add(new DetailOperationResult(i, operation.op(), detailId, true, null));
+        }
+
+        rollupQueue.enqueue(docId);
+        changeBus.documentChanged(docId, DocumentChangeKind.UPDATED);
+        cacheEvictor.evictDetails(docId, referenced);
+        log.info("detail batch applied to document {}: {} operations", docId, operations.size());
+        BigDecimal totalSum = jdbcTemplate.queryForObject(TOTAL_SUM_SQL, BigDecimal.class, docId);
+        return new DetailBatchResult(true, totalSum, results);
+    }
+
+    private static String validateOperation(DetailOperation operation, Map<Long, DetailRow> existing, Set<Long> seen) {
+        if (operation.op() == null) {
+            return "Operation type is required";
+        }
+        if (operation.op() != DetailOperationType.ADD) {
+            if (operation.detailId() == null) {
+                return "Detail id is required for " + operation.op();
+            }
+            if (!existing.containsKey(operation.detailId())) {
+                return "Detail not found: " + operation.detailId();
+            }
+            if (!seen.add(operation.detailId())) {
+                return "Detail is referenced more than once: " + operation.detailId();
+            }
+        }
+        if (operation.op() != DetailOperationType.DELETE) {
+            if (operation.itemName() == null || operation.itemName().isBlank()) {
+                return "Item name cannot be null";
+            }
+            if (operation.itemName().length() > ITEM_NAME_MAX_LENGTH) {
+                return "Item name is longer than " + ITEM_NAME_MAX_LENGTH + " characters";
+            }
+            if (operation.itemSum() == null) {
+                return "Item sum cannot be null";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Строка, не найденная пакетным UPDATE/DELETE с прежней суммой, изменена параллельно:
+     * транзакция откатывается, пакет повторяется с новым чтением.
+     */
+    private void checkDetailBatch(int[] counts, List<Object[]> rows, int detailIdIndex) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                throw concurrentDetailModification((Long) rows.get(i)[detailIdIndex]);
+            }
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public DocumentDetail findDetail(Long docId, Long detailId) {
-        Document document = findDocOrElseThrowException(docId);
-        return document.getDetails().stream()
-                .filter(d -> Objects.equals(d.getId(), detailId))
-                .findFirst().orElseThrow(() -> {
+        // по ключу вместе с document_id (отсечение секций), без загрузки всей коллекции документа
+        return documentDetailRepository.findInDocument(docId, detailId)
+                .orElseThrow(() -> {
                     String err = "Detail not found: " + detailId;
                     errorLogService.logError(ErrorType.DETAIL_NOT_FOUND.getMessage(), err);
                     return new RuntimeException(err);
@@ -231,17 +518,199 @@ public class DocumentServiceImpl implements DocumentService {
         return documentRepository.findAll();
     }
 
+    /**
+     * <p>Возвращает страницу документов (keyset-пагинация) вместе с деталями.
+     * Детали загружаются способом, заданным в master-detail.documents.list.detail-fetch.</p>
+     *
+     * @param request параметры страницы: сортировка, размер и курсор
+     * @return страница документов с токенами соседних страниц
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Document> findDocumentPage(DocumentPageRequest request) {
+        return findDocumentPage(request, listProperties.getDetailFetch());
+    }
+
+    /**
+     * <p>Возвращает страницу документов, загружая детали указанным способом.
+     * В обоих случаях сначала выбирается страница заголовков (пагинация применяется
+     * в БД, а не в памяти), затем детали только для документов этой страницы:</p>
+     * <ul>
+     *   <li>JOIN_FETCH — одним запросом с JOIN по id страницы;</li>
+     *   <li>TWO_PHASE — пакетной инициализацией коллекций
+     *       (WHERE document_id IN (...) по hibernate.default_batch_fetch_size).</li>
+     * </ul>
+     *
+     * @param request  параметры страницы
+     * @param strategy способ загрузки деталей
+     * @return страница документов с инициализированными деталями
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Document> findDocumentPage(DocumentPageRequest request, DetailFetchStrategy strategy) {
+        CursorPage<Document> page = documentRepository.findDocumentPage(request);
+        if (page.content().isEmpty()) {
+            return page;
+        }
+        if (strategy == DetailFetchStrategy.JOIN_FETCH) {
+            documentRepository.findWithDetailsByIdIn(page.content().stream().map(Document::getId).toList());
+        } else {
+            page.content().forEach(d -> Hibernate.initialize(d.getDetails()));
+        }
+        page.content().forEach(d -> documentMetrics.recordDetails(DocumentMetrics.PAGE, d.getDetails().size()));
+        return page;
+    }
+
+    /**
+     * <p>Возвращает страницу списка документов в виде неизменяемых проекций:
+     * заголовки с количеством строк и строки спецификаций, загруженные одним
+     * запросом WHERE document_id IN (...). Управляемые сущности не создаются.</p>
+     *
+     * <p>Если в запросе задан фильтр ({@link DocumentPageRequest#filter()}), страница строится
+     * только по найденным документам с той же keyset-пагинацией.</p>
+     *
+     * @param request параметры страницы
+     * @return страница заголовков и строки спецификаций по document_id
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public DocumentListPage findDocumentListPage(DocumentPageRequest request) {
+        CursorPage<DocumentSummary> page = documentRepository.findSummaryPage(request);
+        page.content().forEach(s -> documentMetrics.recordDetails(DocumentMetrics.PAGE, s.detailCount().intValue()));
+        List<Long> ids = page.content().stream()
+                .filter(s -> s.detailCount() > 0)
+                .map(DocumentSummary::id)
+                .toList();
+        Map<Long, List<DetailRow>> details = ids.isEmpty()
+                ? Map.of()
+                : documentDetailRepository.findRowsByDocumentIds(ids).stream()
+                        .collect(Collectors.groupingBy(DetailRow::documentId));
+        return new DocumentListPage(page, details);
+    }
+
+    /**
+     * <p>Возвращает версию документа для проверки условного GET формы редактирования.
+     * Документ читается по первичному ключу (из кэша второго уровня, если он там есть),
+     * спецификации не загружаются.</p>
+     *
+     * @param id идентификатор документа
+     * @return id, версия и время последнего изменения
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public DocumentStamp findDocumentStamp(Long id) {
+        Document doc = documentRepository.findById(id).orElseThrow(() -> documentNotFound(id));
+        return new DocumentStamp(doc.getId(), doc.getVersion(), doc.getUpdatedAt());
+    }
+
+    /**
+     * <p>Строит ETag страницы списка по параметрам страницы (включая фильтр поиска) и версиям попавших в неё документов.
+     * Читаются только (document_id, version) того же окна keyset-пагинации, что и у
+     * {@link #findDocumentListPage}, без соединения со спецификациями. Любое изменение документа
+     * или его строк меняет версию, а добавление или удаление документа — состав окна.</p>
+     *
+     * @param request параметры страницы
+     * @return слабый ETag страницы
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String findDocumentListETag(DocumentPageRequest request) {
+        StringBuilder key = new StringBuilder()
+                .append(request.sortKey()).append('|')
+                .append(request.direction()).append('|')
+                .append(request.size()).append('|')
+                .append(request.cursor() != null ? request.cursor().encode() : "").append('|')
+                .append(request.filter());
+        for (DocumentStamp stamp : documentRepository.findPageStamps(request)) {
+            key.append('|').append(stamp.id()).append(':').append(stamp.version());
+        }
+        // слабый: страница зависит ещё и от шаблона, побайтовое совпадение между выпусками не гарантируется
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * <p>Возвращает одну строку спецификации в виде проекции, не загружая документ.
+     * Строка ищется по ключу вместе с document_id, поэтому в PostgreSQL читается одна секция
+     * document_detail; кэш второго уровня при этом не используется.</p>
+     *
+     * @param docId    идентификатор документа
+     * @param detailId идентификатор детали
+     * @return строка спецификации
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public DetailRow findDetailRow(Long docId, Long detailId) {
+        return documentDetailRepository.findRows(docId, List.of(detailId)).stream()
+                .findFirst()
+                .orElseThrow(() -> {
+                    String err = "Detail not found: " + detailId;
+                    errorLogService.logError(ErrorType.DETAIL_NOT_FOUND.getMessage(), err);
+                    return new RuntimeException(err);
+                });
+    }
+
+    /**
+     * <p>Возвращает документ без спецификаций: коллекция деталей не инициализируется,
+     * итог берётся из сохранённого total_sum. Строки формы читаются постранично через {@link #findDetailPage}.</p>
+     *
+     * @param id идентификатор документа
+     * @return документ
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Document findDocumentHeader(Long id) {
+        return documentRepository.findById(id).orElseThrow(() -> documentNotFound(id));
+    }
+
+    /**
+     * <p>Возвращает страницу строк спецификации документа (keyset-пагинация по выбранной колонке).
+     * Читаются только строки страницы, без документа и коллекции деталей.</p>
+     *
+     * @param request документ, сортировка, размер и курсор страницы
+     * @return страница строк с токенами соседних страниц
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<DetailRow> findDetailPage(DetailPageRequest request) {
+        return documentDetailRepository.findDetailPage(request);
+    }
+
     @Transactional(readOnly = true)
     public Document findWithDetailsById(Long id) {
-        return findDocOrElseThrowException(id);
+        Document doc = findDocOrElseThrowException(id);
+        documentMetrics.recordDetails(DocumentMetrics.LOAD, doc.getDetails().size());
+        return doc;
     }
 
+    /**
+     * Документ и его спецификации читаются по первичному ключу, а не запросом с JOIN,
+     * чтобы при включённом кэше второго уровня обойтись без обращения к БД.
+     */
     private Document findDocOrElseThrowException(Long docId) {
-        return documentRepository.findWithDetailsById(docId).orElseThrow(() -> {
-            String err = "Document not found: " + docId;
-            errorLogService.logError(ErrorType.DOC_NOT_FOUND.getMessage(), err);
-            return new RuntimeException(err);
-        });
+        Document doc = documentRepository.findById(docId).orElseThrow(() -> documentNotFound(docId));
+        Hibernate.initialize(doc.getDetails());
+        return doc;
+    }
+
+    private DocumentNotFoundException documentNotFound(Long docId) {
+        String err = "Document not found: " + docId;
+        errorLogService.logError(ErrorType.DOC_NOT_FOUND.getMessage(), err);
+        return new DocumentNotFoundException(err);
+    }
+
+    /**
+     * Не {@link OptimisticLockingFailureException}: повтор с той же версией снова не пройдёт.
+     */
+    private DocumentConflictException staleDocument(Long docId, Long version) {
+        String err = "Document " + docId + " was modified after version " + version + " was read";
+        errorLogService.logError(ErrorType.DOCUMENT_VERSION_CONFLICT.getMessage(), err);
+        return new DocumentConflictException("Документ изменён другим пользователем, обновите форму и повторите правку.");
+    }
+
+    private OptimisticLockingFailureException concurrentDetailModification(Long detailId) {
+        String err = "Detail was modified concurrently: " + detailId;
+        errorLogService.logError(ErrorType.DETAIL_CONCURRENT_MODIFICATION.getMessage(), err);
+        return new OptimisticLockingFailureException(err);
     }
 
     private BigDecimal getSafeValue(BigDecimal itemSum) {
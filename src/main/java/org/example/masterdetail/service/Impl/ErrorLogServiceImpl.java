@@ -1,34 +1,286 @@
 package org.example.masterdetail.service.Impl;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
-import org.example.masterdetail.model.ErrorLog;
-import org.example.masterdetail.repository.ErrorLogRepository;
+import org.example.masterdetail.config.ErrorLogProperties;
+import org.example.masterdetail.enums.ErrorLogOverflowPolicy;
 import org.example.masterdetail.service.ErrorLogService;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Асинхронный журнал ошибок.
+ *
+ * <p>Вызывающий поток только кладёт запись в ограниченную очередь и не занимает
+ * второе соединение из пула. Фоновый поток забирает записи пачками
+ * (master-detail.error-log.batch-size) и вставляет их в error_log одним
+ * JDBC-пакетом в собственной транзакции.</p>
+ *
+ * <p>При заполненной очереди действует политика overflow-policy (DROP, BLOCK, SAMPLE),
+ * потерянные записи учитываются в счётчиках. При остановке контекста очередь
+ * дописывается до конца. При spring.threads.virtual.enabled фоновый поток виртуальный.</p>
+ *
+ * <p>Метрики: error.log.queue.size, error.log.entries (outcome = accepted, written,
+ * dropped, failed) и время записи пакета error.log.write.</p>
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-public class ErrorLogServiceImpl implements ErrorLogService {
-    private final ErrorLogRepository errorLogRepository;
+public class ErrorLogServiceImpl implements ErrorLogService, SmartLifecycle, MeterBinder {
 
+    private static final String INSERT_SQL = "INSERT INTO error_log (error_time, error_type, message) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ErrorLogProperties properties;
+    private final BlockingQueue<Entry> queue;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong overflowSequence = new AtomicLong();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Condition batchWritten = writeLock.newCondition();
+
+    private final boolean virtualThreads;
+
+    private volatile Timer writeTimer;
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    public ErrorLogServiceImpl(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ErrorLogProperties properties,
+                               Environment environment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    /**
+     * Ставит запись в очередь на запись в error_log. Никогда не бросает исключений:
+     * если запись не принята, она учитывается в {@link #getDroppedCount()}.
+     *
+     * @param errorType тип ошибки
+     * @param message   описание
+     */
+    @Override
+    public void logError(String errorType, String message) {
+        Entry entry = new Entry(LocalDateTime.now(),
+                errorType != null ? errorType : "UNKNOWN",
+                message != null ? message : "");
+        if (offer(entry)) {
+            accepted.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+            log.warn("Error log queue is full, entry dropped: {} - {}", entry.errorType(), entry.message());
+        }
+    }
+
+    private boolean offer(Entry entry) {
+        ErrorLogOverflowPolicy policy = properties.getOverflowPolicy();
+        if (policy == ErrorLogOverflowPolicy.SAMPLE && queue.size() * 2 >= properties.getQueueCapacity()
+                && overflowSequence.getAndIncrement() % properties.getSampleRate() != 0) {
+            return false;
+        }
+        if (policy != ErrorLogOverflowPolicy.BLOCK) {
+            return queue.offer(entry);
+        }
+        try {
+            return queue.offer(entry, properties.getBlockTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Синхронно записывает всё, что сейчас находится в очереди. Дожидается пакета,
+     * который в этот момент пишет фоновый поток, поэтому после возврата все ранее
+     * принятые записи уже в error_log.
+     */
+    public void flush() {
+        long target = accepted.get();
+        writeLock.lock();
+        try {
+            List<Entry> batch = new ArrayList<>(properties.getBatchSize());
+            while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+                write(batch);
+                batch.clear();
+            }
+            // запись, которую фоновый поток уже вынул из очереди, но ещё не дождался блокировки
+            Thread current = writer;
+            while (written.get() + failed.get() < target && current != null && current.isAlive()) {
+                batchWritten.await(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void drainLoop() {
+        long intervalMillis = properties.getFlushInterval().toMillis();
+        List<Entry> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            // ожидание без блокировки: flush() и stop() не простаивают интервал опроса
+            Entry first;
+            try {
+                first = queue.poll(intervalMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            writeLock.lock();
+            try {
+                // прерывание от stop() адресовано только ожиданию очереди, запись пакета оно срывать не должно
+                Thread.interrupted();
+                batch.add(first);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                write(batch);
+                batch.clear();
+                batchWritten.signalAll();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(),
+                    (ps, entry) -> {
+                        ps.setTimestamp(1, Timestamp.valueOf(entry.errorTime()));
+                        ps.setString(2, entry.errorType());
+                        ps.setString(3, entry.message());
+                    }));
+            written.addAndGet(batch.size());
+            Timer timer = writeTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        } catch (RuntimeException ex) {
+            failed.addAndGet(batch.size());
+            log.error("Failed to write {} error log entries: {}", batch.size(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        writer = builder.name("error-log-writer").start(this::drainLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = writer;
+        if (current != null) {
+            // будит поток, ждущий очередь; под блокировкой прерывание не попадёт в запись пакета
+            writeLock.lock();
+            try {
+                current.interrupt();
+            } finally {
+                writeLock.unlock();
+            }
+            try {
+                current.join(properties.getFlushInterval().toMillis() * 2 + 1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        log.info("Error log writer stopped: written {}, dropped {}, failed {}", getWrittenCount(), getDroppedCount(), getFailedCount());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Останавливается после веб-сервера, чтобы дописать ошибки последних запросов,
+     * но до закрытия пула соединений.
+     */
     @Override
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void logError(String message, String errorType) {
-        String transactionId = TransactionSynchronizationManager.getCurrentTransactionName();
-        log.info("Logging error in a separate transaction. Transaction ID: {}", transactionId);
-        ErrorLog record = ErrorLog.builder()
-                .message(message)
-                .errorType(errorType)
-                .errorTime(LocalDateTime.now())
-                .build();
-        errorLogRepository.save(record);
-        log.debug(message, errorType, LocalDateTime.now());
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("error.log.queue.size", queue, BlockingQueue::size)
+                .description("Записи журнала ошибок, ожидающие вставки")
+                .register(registry);
+        bindCounter(registry, "accepted", accepted);
+        bindCounter(registry, "written", written);
+        bindCounter(registry, "dropped", dropped);
+        bindCounter(registry, "failed", failed);
+        writeTimer = Timer.builder("error.log.write")
+                .description("Вставка пакета записей в error_log")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static void bindCounter(MeterRegistry registry, String outcome, AtomicLong counter) {
+        FunctionCounter.builder("error.log.entries", counter, AtomicLong::get)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private record Entry(LocalDateTime errorTime, String errorType, String message) {
     }
 }
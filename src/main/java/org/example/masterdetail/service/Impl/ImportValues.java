@@ -0,0 +1,61 @@
+package org.example.masterdetail.service.Impl;
+
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+
+/**
+ * Разбор значений полей при массовой загрузке.
+ */
+final class ImportValues {
+
+    private ImportValues() {
+    }
+
+    static Document newDocument(String docNumber, String docDate, String notes) {
+        if (docNumber == null || docNumber.isBlank()) {
+            throw new IllegalArgumentException("doc_number is required");
+        }
+        Document doc = new Document();
+        doc.setDocNumber(docNumber.trim());
+        doc.setDocDate(parseDate(docDate));
+        doc.setNotes(notes);
+        doc.setDetails(new LinkedHashSet<>());
+        return doc;
+    }
+
+    static void addDetail(Document doc, String itemName, String itemSum) {
+        if (itemName == null || itemName.isBlank()) {
+            throw new IllegalArgumentException("item_name is required");
+        }
+        if (itemSum == null || itemSum.isBlank()) {
+            throw new IllegalArgumentException("item_sum is required");
+        }
+        BigDecimal sum;
+        try {
+            sum = new BigDecimal(itemSum.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("item_sum is not a number: " + itemSum);
+        }
+        doc.getDetails().add(new DocumentDetail(null, doc, itemName.trim(), sum));
+    }
+
+    /**
+     * Дата документа в формате ISO-8601 (дата или дата-время); пустое значение — текущий момент.
+     */
+    private static LocalDateTime parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return LocalDateTime.now();
+        }
+        String trimmed = value.trim();
+        try {
+            return trimmed.length() == 10 ? LocalDate.parse(trimmed).atStartOfDay() : LocalDateTime.parse(trimmed);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("doc_date is not an ISO-8601 date: " + value);
+        }
+    }
+}
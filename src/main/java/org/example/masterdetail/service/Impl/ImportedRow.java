@@ -0,0 +1,17 @@
+package org.example.masterdetail.service.Impl;
+
+import org.example.masterdetail.model.Document;
+
+/**
+ * Документ, прочитанный из входного потока, или ошибка разбора его строк.
+ */
+record ImportedRow(long line, String docNumber, Document document, String error) {
+
+    static ImportedRow of(long line, Document document) {
+        return new ImportedRow(line, document.getDocNumber(), document, null);
+    }
+
+    static ImportedRow failed(long line, String docNumber, String error) {
+        return new ImportedRow(line, docNumber, null, error);
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.masterdetail.service.Impl;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Последовательное чтение документов из входного потока без буферизации всего файла.
+ */
+interface ImportedRowReader extends Iterator<ImportedRow>, Closeable {
+}
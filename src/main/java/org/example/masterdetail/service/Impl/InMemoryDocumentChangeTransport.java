@@ -0,0 +1,35 @@
+package org.example.masterdetail.service.Impl;
+
+import org.example.masterdetail.dto.DocumentChangeBatch;
+import org.example.masterdetail.service.DocumentChangeTransport;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Уведомления в пределах одного процесса: доставляются подписчикам синхронно в потоке отправителя.
+ * Используется в тестах и при запуске приложения в одном экземпляре.
+ */
+@Component
+@ConditionalOnProperty(prefix = "master-detail.change-bus", name = "transport", havingValue = "IN_MEMORY")
+public class InMemoryDocumentChangeTransport implements DocumentChangeTransport {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(DocumentChangeBatch batch) {
+        listeners.forEach(listener -> listener.onChanges(batch));
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.masterdetail.service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.masterdetail.model.Document;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * Читает NDJSON: на каждой строке объект
+ * {"docNumber": ..., "docDate": ..., "notes": ..., "details": [{"itemName": ..., "itemSum": ...}]}.
+ * Строки разбираются по одной, поэтому ошибка в одной строке не прерывает загрузку.
+ */
+class NdjsonImportedRowReader implements ImportedRowReader {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private long lineNumber;
+    private String pending;
+
+    NdjsonImportedRowReader(InputStream input, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.objectMapper = objectMapper;
+        this.pending = readLine();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pending != null;
+    }
+
+    @Override
+    public ImportedRow next() {
+        if (pending == null) {
+            throw new NoSuchElementException();
+        }
+        long line = lineNumber;
+        String json = pending;
+        pending = readLine();
+        String docNumber = null;
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            docNumber = text(node, "docNumber");
+            Document doc = ImportValues.newDocument(docNumber, text(node, "docDate"), text(node, "notes"));
+            for (JsonNode detail : node.path("details")) {
+                ImportValues.addDetail(doc, text(detail, "itemName"), text(detail, "itemSum"));
+            }
+            return ImportedRow.of(line, doc);
+        } catch (JsonProcessingException ex) {
+            return ImportedRow.failed(line, null, "Malformed JSON: " + ex.getOriginalMessage());
+        } catch (IllegalArgumentException ex) {
+            return ImportedRow.failed(line, docNumber, ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private String readLine() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && line.isBlank());
+            return line;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
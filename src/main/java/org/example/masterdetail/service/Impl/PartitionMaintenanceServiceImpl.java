@@ -0,0 +1,81 @@
+package org.example.masterdetail.service.Impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.PartitioningProperties;
+import org.example.masterdetail.service.PartitionMaintenanceService;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Заблаговременное создание секций documents (по годам doc_date) и document_detail
+ * (по диапазонам document_id) функциями БД из changelog v1.1.0.
+ *
+ * <p>Строки, для которых секции нет, попадают в секции DEFAULT; после этого секцию
+ * за их диапазон нельзя создать без ручного переноса строк. Поэтому секции создаются
+ * с запасом: для documents — на master-detail.partitioning.document-years-ahead лет вперёд,
+ * для document_detail — на detail-ranges-ahead диапазонов сверх текущего значения
+ * последовательности документов. Повторный вызов создаёт только недостающие секции.</p>
+ *
+ * <p>Секционирована только схема PostgreSQL; на других СУБД (H2 профиля test) вызов ничего не делает.</p>
+ */
+@Service
+@Slf4j
+public class PartitionMaintenanceServiceImpl implements PartitionMaintenanceService {
+
+    private static final String ENSURE_DOCUMENT_PARTITIONS_SQL = "SELECT ensure_document_partitions(?, ?)";
+
+    private static final String ENSURE_DETAIL_PARTITIONS_SQL = "SELECT ensure_document_detail_partitions(" +
+            "(SELECT last_value FROM documents_documents_id_seq) + ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitioningProperties properties;
+    private volatile Boolean partitioned;
+
+    public PartitionMaintenanceServiceImpl(JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           PartitioningProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * <p>Создаёт недостающие секции обеих таблиц одной транзакцией.</p>
+     *
+     * @return количество созданных секций
+     */
+    @Override
+    public int ensurePartitions() {
+        if (!isPartitioned()) {
+            return 0;
+        }
+        int year = LocalDate.now().getYear();
+        long detailHeadroom = properties.getDetailRangeSize() * properties.getDetailRangesAhead();
+        Integer created = transactionTemplate.execute(status ->
+                jdbcTemplate.queryForObject(ENSURE_DOCUMENT_PARTITIONS_SQL, Integer.class,
+                        year, year + properties.getDocumentYearsAhead())
+                        + jdbcTemplate.queryForObject(ENSURE_DETAIL_PARTITIONS_SQL, Integer.class,
+                        detailHeadroom, properties.getDetailRangeSize()));
+        log.info("Partition maintenance finished: {} partitions created", created);
+        return created != null ? created : 0;
+    }
+
+    private boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equals(product);
+            partitioned = result;
+            if (!result) {
+                log.info("Partition maintenance skipped: {} schema is not partitioned", product);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,196 @@
+package org.example.masterdetail.service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.DocumentChangeBusProperties;
+import org.example.masterdetail.dto.DocumentChangeBatch;
+import org.example.masterdetail.service.DocumentChangeTransport;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Уведомления об изменённых документах через PostgreSQL LISTEN/NOTIFY.
+ *
+ * <p>NOTIFY отправляется через общий пул в собственной транзакции. Слушатель держит отдельное
+ * соединение вне пула с основной базой (spring.datasource.*, не реплика): оно всё время
+ * занято ожиданием и заняло бы место в пуле. После обрыва соединение восстанавливается
+ * через reconnect-delay, а подписчики получают {@link Listener#onMissedChanges()} —
+ * уведомления, отправленные без слушателя, PostgreSQL не хранит.</p>
+ *
+ * <p>Полезная нагрузка NOTIFY ограничена 8000 байт, поэтому слишком большое уведомление
+ * делится пополам.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "master-detail.change-bus", name = "transport", havingValue = "POSTGRES", matchIfMissing = true)
+public class PostgresDocumentChangeTransport implements DocumentChangeTransport, SmartLifecycle {
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final DocumentChangeBusProperties properties;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Thread listenerThread;
+    private volatile boolean running;
+
+    public PostgresDocumentChangeTransport(DataSourceProperties dataSourceProperties,
+                                           JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           ObjectMapper objectMapper,
+                                           DocumentChangeBusProperties properties) {
+        if (!CHANNEL_NAME.matcher(properties.getChannel()).matches()) {
+            throw new IllegalStateException("master-detail.change-bus.channel must be a lower-case SQL identifier: "
+                    + properties.getChannel());
+        }
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    @Override
+    public void publish(DocumentChangeBatch batch) {
+        String payload = toJson(batch);
+        int size = batch.changes().size();
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES && size > 1) {
+            publish(new DocumentChangeBatch(batch.origin(), batch.changes().subList(0, size / 2), false));
+            publish(new DocumentChangeBatch(batch.origin(), batch.changes().subList(size / 2, size), false));
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.queryForList(NOTIFY_SQL, properties.getChannel(), payload));
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void listenLoop() {
+        boolean missed = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + properties.getChannel());
+                }
+                if (missed) {
+                    log.info("Listening for document changes on '{}' again", properties.getChannel());
+                    listeners.forEach(Listener::onMissedChanges);
+                    missed = false;
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                missed = true;
+                log.warn("Document change listener lost its connection, reconnecting in {}: {}",
+                        properties.getReconnectDelay(), ex.getMessage());
+                try {
+                    Thread.sleep(properties.getReconnectDelay().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        DocumentChangeBatch batch;
+        try {
+            batch = objectMapper.readValue(payload, DocumentChangeBatch.class);
+        } catch (JsonProcessingException ex) {
+            log.warn("Skipping malformed document change notification: {}", ex.getOriginalMessage());
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.onChanges(batch);
+            } catch (RuntimeException ex) {
+                log.error("Document change listener failed: {}", ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private String toJson(DocumentChangeBatch batch) {
+        try {
+            return objectMapper.writeValueAsString(batch);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize document changes", ex);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = Thread.ofPlatform().daemon(true).name("document-change-listener").start(this::listenLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = listenerThread;
+        if (current != null) {
+            try {
+                current.join(POLL_TIMEOUT_MILLIS * 2L);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Запускается раньше шины изменений и останавливается после неё.
+     */
+    @Override
+    public int getPhase() {
+        return -1;
+    }
+}
@@ -0,0 +1,236 @@
+package org.example.masterdetail.service.Impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.masterdetail.config.TotalReconciliationProperties;
+import org.example.masterdetail.dto.ReconciliationReport;
+import org.example.masterdetail.enums.DocumentChangeKind;
+import org.example.masterdetail.enums.ErrorType;
+import org.example.masterdetail.repository.DocumentCacheEvictor;
+import org.example.masterdetail.repository.DocumentRollupQueue;
+import org.example.masterdetail.service.DocumentChangeBus;
+import org.example.masterdetail.service.ErrorLogService;
+import org.example.masterdetail.service.TotalReconciliationService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Сверка documents.total_sum с суммой item_sum спецификаций.
+ *
+ * <p>Итог поддерживается инкрементно несколькими операциями {@link DocumentServiceImpl}
+ * и может разойтись со строками, если их меняли в обход приложения. Проход идёт по
+ * документам порциями по возрастанию document_id (keyset): для порции один
+ * сгруппированный запрос возвращает итог, версию и сумму спецификаций каждого документа,
+ * расхождения исправляются одним пакетным UPDATE в той же короткой транзакции.</p>
+ *
+ * <p>Итог и сумма читаются одним запросом, то есть из одного снимка, поэтому найденное
+ * расхождение не может быть следствием незафиксированной параллельной операции.
+ * Исправление применяется, только если версия документа с момента чтения не изменилась;
+ * иначе документ пропускается до следующего прохода.</p>
+ *
+ * <p>Скорость сканирования ограничена master-detail.reconciliation.max-documents-per-second:
+ * после каждой порции поток ждёт, пока средняя скорость не опустится до предела.
+ * Каждое расхождение пишется в error_log и учитывается в метрике
+ * document.reconciliation.documents (outcome = scanned, mismatched, fixed, skipped).</p>
+ */
+@Service
+@Slf4j
+public class TotalReconciliationServiceImpl implements TotalReconciliationService {
+
+    private static final String CHUNK_UPPER_BOUND_SQL = "SELECT MAX(document_id) FROM " +
+            "(SELECT document_id FROM documents WHERE document_id > ? ORDER BY document_id LIMIT ?) chunk";
+
+    private static final String CHUNK_TOTALS_SQL =
+            "SELECT d.document_id, d.version, d.total_sum, COALESCE(SUM(dd.item_sum), 0) AS detail_sum " +
+            "FROM documents d LEFT JOIN document_detail dd ON dd.document_id = d.document_id " +
+            // диапазон повторён для спецификаций: из равенства в JOIN PostgreSQL не выводит неравенства,
+            // а без них не отсекает секции document_detail (секционирование по document_id)
+            "AND dd.document_id > ? AND dd.document_id <= ? " +
+            "WHERE d.document_id > ? AND d.document_id <= ? " +
+            "GROUP BY d.document_id, d.version, d.total_sum";
+
+    private static final String FIX_TOTAL_SQL =
+            "UPDATE documents SET total_sum = ?, version = version + 1, updated_at = LOCALTIMESTAMP " +
+            "WHERE document_id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DocumentCacheEvictor cacheEvictor;
+    private final DocumentRollupQueue rollupQueue;
+    private final DocumentChangeBus changeBus;
+    private final ErrorLogService errorLogService;
+    private final TotalReconciliationProperties properties;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Counter scannedCounter;
+    private final Counter mismatchedCounter;
+    private final Counter fixedCounter;
+    private final Counter skippedCounter;
+    private final Timer runTimer;
+
+    public TotalReconciliationServiceImpl(JdbcTemplate jdbcTemplate,
+                                          PlatformTransactionManager transactionManager,
+                                          DocumentCacheEvictor cacheEvictor,
+                                          DocumentRollupQueue rollupQueue,
+                                          DocumentChangeBus changeBus,
+                                          ErrorLogService errorLogService,
+                                          TotalReconciliationProperties properties,
+                                          MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheEvictor = cacheEvictor;
+        this.rollupQueue = rollupQueue;
+        this.changeBus = changeBus;
+        this.errorLogService = errorLogService;
+        this.properties = properties;
+        this.scannedCounter = outcome(registry, "scanned");
+        this.mismatchedCounter = outcome(registry, "mismatched");
+        this.fixedCounter = outcome(registry, "fixed");
+        this.skippedCounter = outcome(registry, "skipped");
+        this.runTimer = Timer.builder("document.reconciliation.run")
+                .description("Длительность полного прохода сверки итогов")
+                .register(registry);
+    }
+
+    private static Counter outcome(MeterRegistry registry, String outcome) {
+        return Counter.builder("document.reconciliation.documents")
+                .description("Документы, обработанные сверкой итогов")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * <p>Проходит все документы. Если проход уже выполняется (по расписанию или вручную),
+     * второй не запускается и возвращается пустой отчёт.</p>
+     *
+     * @return итог прохода
+     */
+    @Override
+    public ReconciliationReport reconcileAll() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Total reconciliation is already running, skipped");
+            return new ReconciliationReport(0, 0, 0, 0);
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            ReconciliationReport report = scan();
+            log.info("Total reconciliation finished: {}", report);
+            return report;
+        } finally {
+            sample.stop(runTimer);
+            running.set(false);
+        }
+    }
+
+    private ReconciliationReport scan() {
+        long scanned = 0;
+        long mismatches = 0;
+        long fixed = 0;
+        long skipped = 0;
+        long lastId = 0;
+        long started = System.nanoTime();
+        while (true) {
+            long afterId = lastId;
+            ChunkResult chunk = transactionTemplate.execute(status -> reconcileChunk(afterId));
+            if (chunk == null || chunk.scanned() == 0) {
+                break;
+            }
+            lastId = chunk.lastId();
+            scanned += chunk.scanned();
+            mismatches += chunk.mismatches();
+            fixed += chunk.fixed();
+            skipped += chunk.mismatches() - chunk.fixed();
+            if (!throttle(scanned, started)) {
+                break;
+            }
+        }
+        return new ReconciliationReport(scanned, mismatches, fixed, skipped);
+    }
+
+    private ChunkResult reconcileChunk(long afterId) {
+        Long upperBound = jdbcTemplate.queryForObject(CHUNK_UPPER_BOUND_SQL, Long.class, afterId, properties.getChunkSize());
+        if (upperBound == null) {
+            return new ChunkResult(afterId, 0, 0, 0);
+        }
+        List<Mismatch> mismatches = new ArrayList<>();
+        int[] scanned = {0};
+        jdbcTemplate.query(CHUNK_TOTALS_SQL, rs -> {
+            scanned[0]++;
+            BigDecimal totalSum = rs.getBigDecimal("total_sum");
+            BigDecimal detailSum = rs.getBigDecimal("detail_sum");
+            if (totalSum == null || totalSum.compareTo(detailSum) != 0) {
+                mismatches.add(new Mismatch(rs.getLong("document_id"), rs.getLong("version"), totalSum, detailSum));
+            }
+        }, afterId, upperBound, afterId, upperBound);
+        scannedCounter.increment(scanned[0]);
+        if (mismatches.isEmpty()) {
+            return new ChunkResult(upperBound, scanned[0], 0, 0);
+        }
+        mismatchedCounter.increment(mismatches.size());
+
+        int[][] counts = jdbcTemplate.batchUpdate(FIX_TOTAL_SQL, mismatches, mismatches.size(), (ps, mismatch) -> {
+            ps.setBigDecimal(1, mismatch.detailSum());
+            ps.setLong(2, mismatch.documentId());
+            ps.setLong(3, mismatch.version());
+        });
+        int fixed = 0;
+        for (int i = 0; i < mismatches.size(); i++) {
+            Mismatch mismatch = mismatches.get(i);
+            boolean applied = counts[0][i] > 0;
+            if (applied) {
+                fixed++;
+                rollupQueue.enqueue(mismatch.documentId());
+                changeBus.documentChanged(mismatch.documentId(), DocumentChangeKind.UPDATED);
+                cacheEvictor.evictDocument(mismatch.documentId());
+            }
+            String message = "Document " + mismatch.documentId() + ": total_sum " + mismatch.totalSum() +
+                    ", details sum " + mismatch.detailSum() + (applied ? ", fixed" : ", modified concurrently, not fixed");
+            log.warn("Total reconciliation: {}", message);
+            errorLogService.logError(ErrorType.TOTAL_SUM_MISMATCH.getMessage(), message);
+        }
+        fixedCounter.increment(fixed);
+        skippedCounter.increment(mismatches.size() - fixed);
+        return new ChunkResult(upperBound, scanned[0], mismatches.size(), fixed);
+    }
+
+    /**
+     * Ждёт, пока средняя скорость прохода не опустится до max-documents-per-second.
+     *
+     * @return false, если поток прерван и проход нужно остановить
+     */
+    private boolean throttle(long scanned, long startedNanos) {
+        int rate = properties.getMaxDocumentsPerSecond();
+        if (rate <= 0) {
+            return true;
+        }
+        long dueNanos = startedNanos + TimeUnit.SECONDS.toNanos(scanned) / rate;
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.info("Total reconciliation interrupted after {} documents", scanned);
+            return false;
+        }
+    }
+
+    private record Mismatch(long documentId, long version, BigDecimal totalSum, BigDecimal detailSum) {
+    }
+
+    private record ChunkResult(long lastId, int scanned, int mismatches, int fixed) {
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.masterdetail.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Создание секций при старте приложения и по расписанию master-detail.partitioning.cron.
+ * Ошибка не останавливает приложение: секции DEFAULT принимают строки, пока следующий запуск не удастся.
+ */
+@Component
+@ConditionalOnProperty(prefix = "master-detail.partitioning", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionMaintenanceJob {
+
+    private final PartitionMaintenanceService partitionMaintenanceService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${master-detail.partitioning.cron:0 0 2 * * *}")
+    public void ensurePartitions() {
+        try {
+            partitionMaintenanceService.ensurePartitions();
+        } catch (DataAccessException ex) {
+            log.error("Partition maintenance failed", ex);
+        }
+    }
+}
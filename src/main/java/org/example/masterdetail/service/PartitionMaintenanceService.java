@@ -0,0 +1,6 @@
+package org.example.masterdetail.service;
+
+public interface PartitionMaintenanceService {
+
+    int ensurePartitions();
+}
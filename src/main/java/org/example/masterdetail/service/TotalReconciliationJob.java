@@ -0,0 +1,22 @@
+package org.example.masterdetail.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Запуск сверки итогов по расписанию master-detail.reconciliation.cron.
+ */
+@Component
+@ConditionalOnProperty(prefix = "master-detail.reconciliation", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class TotalReconciliationJob {
+
+    private final TotalReconciliationService reconciliationService;
+
+    @Scheduled(cron = "${master-detail.reconciliation.cron:0 30 3 * * *}")
+    public void reconcile() {
+        reconciliationService.reconcileAll();
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.dto.ReconciliationReport;
+
+public interface TotalReconciliationService {
+
+    ReconciliationReport reconcileAll();
+}
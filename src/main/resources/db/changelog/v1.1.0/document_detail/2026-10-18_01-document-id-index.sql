@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset master-detail:document_detail-2
+-- индекс по внешнему ключу: загрузка деталей страницы документов (document_id IN (...))
+CREATE INDEX idx_document_detail_document_id ON document_detail (document_id);
+
+--rollback DROP INDEX idx_document_detail_document_id;
@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset master-detail:document_detail-3
+-- шаг последовательности = allocationSize сущности DocumentDetail (pooled-оптимизатор Hibernate)
+ALTER SEQUENCE document_detail_document_detail_id_seq INCREMENT BY 50;
+
+--rollback ALTER SEQUENCE document_detail_document_detail_id_seq INCREMENT BY 1;
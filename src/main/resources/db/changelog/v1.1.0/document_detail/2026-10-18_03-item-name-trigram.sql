@@ -0,0 +1,9 @@
+--liquibase formatted sql
+
+--changeset master-detail:document_detail-4 dbms:postgresql
+-- поиск по подстроке наименования (lower(item_name) LIKE '%abc%') по триграммам;
+-- расширение pg_trgm создаётся, если его ещё нет (нужны права на CREATE в базе)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_document_detail_item_name_trgm ON document_detail USING GIN (lower(item_name) gin_trgm_ops);
+
+--rollback DROP INDEX idx_document_detail_item_name_trgm;
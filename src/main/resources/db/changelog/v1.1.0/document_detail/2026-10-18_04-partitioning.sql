@@ -0,0 +1,69 @@
+--liquibase formatted sql
+
+--changeset master-detail:document_detail-5 dbms:postgresql splitStatements:false
+-- декларативное секционирование спецификаций по диапазонам document_id (по 10 000 000 документов на секцию,
+-- то же значение, что master-detail.partitioning.detail-range-size): все запросы приложения к document_detail
+-- содержат document_id, поэтому секции отсекаются и при чтении строк документа, и при его изменении
+ALTER TABLE document_detail RENAME TO document_detail_unpartitioned;
+
+CREATE TABLE document_detail (
+    detail_id   BIGINT DEFAULT nextval('document_detail_document_detail_id_seq') NOT NULL,
+    document_id BIGINT         NOT NULL,
+    item_name   VARCHAR(100)   NOT NULL,
+    item_sum    NUMERIC(18, 2) NOT NULL,
+
+    -- ключ секционирования обязан входить в первичный ключ; detail_id по-прежнему уникален (последовательность)
+    CONSTRAINT pk_document_detail PRIMARY KEY (detail_id, document_id)
+) PARTITION BY RANGE (document_id);
+
+CREATE TABLE document_detail_default PARTITION OF document_detail DEFAULT;
+
+SELECT ensure_document_detail_partitions(
+               GREATEST((SELECT last_value FROM documents_documents_id_seq),
+                        (SELECT COALESCE(MAX(document_id), 0) FROM document_detail_unpartitioned)) + 2 * 10000000,
+               10000000);
+
+INSERT INTO document_detail (detail_id, document_id, item_name, item_sum)
+SELECT detail_id, document_id, item_name, item_sum
+FROM document_detail_unpartitioned;
+
+DROP TABLE document_detail_unpartitioned;
+
+CREATE INDEX idx_document_detail_document_id ON document_detail (document_id);
+CREATE INDEX idx_document_detail_item_name_trgm ON document_detail USING GIN (lower(item_name) gin_trgm_ops);
+
+COMMENT ON TABLE document_detail IS 'Таблица деталей документов (Detail), секционирована по document_id';
+COMMENT ON COLUMN document_detail.detail_id IS 'Первичный ключ строки спецификации';
+COMMENT ON COLUMN document_detail.document_id IS 'Ссылка на документ (Master)';
+COMMENT ON COLUMN document_detail.item_name IS 'Наименование позиции';
+COMMENT ON COLUMN document_detail.item_sum IS 'Сумма по позиции';
+
+-- внешний ключ на секционированную по doc_date таблицу documents невозможен (document_id там не уникален
+-- сам по себе), поэтому ссылка проверяется триггером; FOR KEY SHARE не даёт удалить документ,
+-- пока вставка не зафиксирована. Каскадное удаление — триггер trg_documents_cascade_delete
+CREATE OR REPLACE FUNCTION document_detail_check_document() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    missing BIGINT;
+BEGIN
+    PERFORM 1 FROM documents d WHERE d.document_id IN (SELECT document_id FROM inserted) FOR KEY SHARE;
+    SELECT i.document_id INTO missing
+    FROM inserted i
+    WHERE NOT EXISTS (SELECT 1 FROM documents d WHERE d.document_id = i.document_id)
+    LIMIT 1;
+    IF FOUND THEN
+        RAISE EXCEPTION 'insert into document_detail violates reference to documents: document_id % is not present', missing
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_document_detail_check_document
+    AFTER INSERT ON document_detail
+    REFERENCING NEW TABLE AS inserted
+    FOR EACH STATEMENT EXECUTE FUNCTION document_detail_check_document();
+
+-- обратного преобразования нет: откат — восстановление из резервной копии
+--rollback empty
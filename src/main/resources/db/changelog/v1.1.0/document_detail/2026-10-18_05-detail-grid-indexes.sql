@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset master-detail:document_detail-6
+-- постраничная спецификация в форме документа: keyset по (ключ сортировки, detail_id) внутри документа.
+-- Индекс по одному document_id заменяется составным (document_id, detail_id) — он обслуживает и прежние запросы
+DROP INDEX idx_document_detail_document_id;
+CREATE INDEX idx_document_detail_doc_id ON document_detail (document_id, detail_id);
+CREATE INDEX idx_document_detail_doc_item_name ON document_detail (document_id, item_name, detail_id);
+CREATE INDEX idx_document_detail_doc_item_sum ON document_detail (document_id, item_sum, detail_id);
+
+--rollback DROP INDEX idx_document_detail_doc_item_sum;
+--rollback DROP INDEX idx_document_detail_doc_item_name;
+--rollback DROP INDEX idx_document_detail_doc_id;
+--rollback CREATE INDEX idx_document_detail_document_id ON document_detail (document_id);
@@ -0,0 +1,65 @@
+--liquibase formatted sql
+
+--changeset master-detail:document_rollup-1
+-- витрины отчётов: итоги документов по дням и месяцам дня doc_date; отчёты читают только их,
+-- не агрегируя documents. Поддерживаются DocumentReportService по очереди document_rollup_queue
+CREATE TABLE document_rollup_daily (
+    report_day     DATE           NOT NULL PRIMARY KEY,
+    document_count BIGINT         NOT NULL,
+    total_sum      NUMERIC(20, 2) NOT NULL,
+    line_count     BIGINT         NOT NULL
+);
+
+CREATE TABLE document_rollup_monthly (
+    report_month   DATE           NOT NULL PRIMARY KEY,
+    document_count BIGINT         NOT NULL,
+    total_sum      NUMERIC(20, 2) NOT NULL,
+    line_count     BIGINT         NOT NULL
+);
+
+-- вклад каждого документа, уже учтённый в витринах: при пересчёте из витрин вычитается он,
+-- а не перечитываются все документы дня
+CREATE TABLE document_rollup_state (
+    document_id BIGINT         NOT NULL PRIMARY KEY,
+    report_day  DATE           NOT NULL,
+    total_sum   NUMERIC(18, 2) NOT NULL,
+    line_count  BIGINT         NOT NULL
+);
+
+-- документы, изменённые после последнего пересчёта; только вставки, без блокировок общих строк
+CREATE TABLE document_rollup_queue (
+    queue_id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    document_id BIGINT NOT NULL
+);
+
+COMMENT ON TABLE document_rollup_daily IS 'Итоги документов по дням';
+COMMENT ON TABLE document_rollup_monthly IS 'Итоги документов по месяцам (report_month — первый день месяца)';
+COMMENT ON TABLE document_rollup_state IS 'Вклад документа, учтённый в итогах по дням и месяцам';
+COMMENT ON TABLE document_rollup_queue IS 'Документы, ожидающие пересчёта итогов';
+
+--rollback DROP TABLE document_rollup_queue;
+--rollback DROP TABLE document_rollup_state;
+--rollback DROP TABLE document_rollup_monthly;
+--rollback DROP TABLE document_rollup_daily;
+
+--changeset master-detail:document_rollup-2
+-- начальное заполнение витрин по уже существующим документам
+INSERT INTO document_rollup_state (document_id, report_day, total_sum, line_count)
+SELECT d.document_id, CAST(d.doc_date AS DATE), d.total_sum, COUNT(dd.detail_id)
+FROM documents d
+         LEFT JOIN document_detail dd ON dd.document_id = d.document_id
+GROUP BY d.document_id, d.doc_date, d.total_sum;
+
+INSERT INTO document_rollup_daily (report_day, document_count, total_sum, line_count)
+SELECT report_day, COUNT(*), SUM(total_sum), SUM(line_count)
+FROM document_rollup_state
+GROUP BY report_day;
+
+INSERT INTO document_rollup_monthly (report_month, document_count, total_sum, line_count)
+SELECT CAST(DATE_TRUNC('month', report_day) AS DATE), COUNT(*), SUM(total_sum), SUM(line_count)
+FROM document_rollup_state
+GROUP BY CAST(DATE_TRUNC('month', report_day) AS DATE);
+
+--rollback DELETE FROM document_rollup_monthly;
+--rollback DELETE FROM document_rollup_daily;
+--rollback DELETE FROM document_rollup_state;
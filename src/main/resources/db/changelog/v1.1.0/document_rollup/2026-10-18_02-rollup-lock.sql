@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset master-detail:document_rollup-3
+-- строка-замок пересчёта витрин: каждая пачка берёт её FOR UPDATE SKIP LOCKED, поэтому пересчёты
+-- на разных экземплярах не сдвигают витрины на одну и ту же разницу дважды
+CREATE TABLE document_rollup_lock (
+    lock_id INT NOT NULL PRIMARY KEY
+);
+
+INSERT INTO document_rollup_lock (lock_id) VALUES (1);
+
+COMMENT ON TABLE document_rollup_lock IS 'Блокировка пересчёта итогов между экземплярами приложения';
+
+--rollback DROP TABLE document_rollup_lock;
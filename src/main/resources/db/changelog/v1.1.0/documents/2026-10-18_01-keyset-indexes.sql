@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset master-detail:document-2
+-- индекс для keyset-пагинации списка документов по (doc_date, document_id)
+CREATE INDEX idx_documents_doc_date_id ON documents (doc_date, document_id);
+
+--rollback DROP INDEX idx_documents_doc_date_id;
@@ -0,0 +1,8 @@
+--liquibase formatted sql
+
+--changeset master-detail:document-3
+-- шаг последовательности = allocationSize сущности Document (pooled-оптимизатор Hibernate):
+-- один nextval выделяет блок из 50 идентификаторов
+ALTER SEQUENCE documents_documents_id_seq INCREMENT BY 50;
+
+--rollback ALTER SEQUENCE documents_documents_id_seq INCREMENT BY 1;
@@ -0,0 +1,10 @@
+--liquibase formatted sql
+
+--changeset master-detail:document-4
+-- версия строки для оптимистической блокировки (@Version); увеличивается при каждом изменении документа,
+-- в том числе при атомарной корректировке total_sum
+ALTER TABLE documents ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+COMMENT ON COLUMN documents.version IS 'Версия строки для оптимистической блокировки';
+
+--rollback ALTER TABLE documents DROP COLUMN version;
@@ -0,0 +1,10 @@
+--liquibase formatted sql
+
+--changeset master-detail:document-5
+-- время последнего изменения документа: валидатор Last-Modified для условных GET;
+-- обновляется вместе с version при каждом изменении документа или его спецификаций
+ALTER TABLE documents ADD COLUMN updated_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL;
+
+COMMENT ON COLUMN documents.updated_at IS 'Время последнего изменения документа';
+
+--rollback ALTER TABLE documents DROP COLUMN updated_at;
@@ -0,0 +1,20 @@
+--liquibase formatted sql
+
+--changeset master-detail:document-6 dbms:postgresql
+-- поиск по префиксу номера (doc_number LIKE 'abc%'): уникальный индекс построен с правилами сортировки базы
+-- и для LIKE не подходит, text_pattern_ops сравнивает строки побайтно
+CREATE INDEX idx_documents_doc_number_pattern ON documents (doc_number text_pattern_ops);
+
+--rollback DROP INDEX idx_documents_doc_number_pattern;
+
+--changeset master-detail:document-7 dbms:postgresql
+-- полнотекстовый поиск по примечанию; выражение должно дословно совпадать с DocumentSearchFunctions.NOTES_TSVECTOR
+CREATE INDEX idx_documents_notes_fts ON documents USING GIN (to_tsvector('russian', coalesce(notes, '')));
+
+--rollback DROP INDEX idx_documents_notes_fts;
+
+--changeset master-detail:document-8
+-- фильтр по диапазону итоговой суммы
+CREATE INDEX idx_documents_total_sum ON documents (total_sum);
+
+--rollback DROP INDEX idx_documents_total_sum;
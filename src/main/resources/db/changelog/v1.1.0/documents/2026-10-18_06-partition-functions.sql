@@ -0,0 +1,56 @@
+--liquibase formatted sql
+
+--changeset master-detail:document-9 dbms:postgresql splitStatements:false runOnChange:true
+-- создание секций documents (по годам doc_date) и document_detail (по диапазонам document_id);
+-- вызываются миграцией секционирования и затем регулярно PartitionMaintenanceJob, чтобы секции
+-- существовали заранее и строки не попадали в секции DEFAULT
+CREATE OR REPLACE FUNCTION ensure_document_partitions(from_year INT, to_year INT) RETURNS INT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    partition_name TEXT;
+    created        INT := 0;
+BEGIN
+    FOR y IN from_year .. to_year LOOP
+        partition_name := 'documents_y' || y;
+        CONTINUE WHEN to_regclass(partition_name) IS NOT NULL;
+        BEGIN
+            EXECUTE format('CREATE TABLE %I PARTITION OF documents FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, make_date(y, 1, 1), make_date(y + 1, 1, 1));
+            created := created + 1;
+        EXCEPTION WHEN check_violation THEN
+            -- строки этого года уже лежат в documents_default: секцию нужно создать вручную, перенеся их
+            RAISE WARNING 'partition % is not created: documents_default has rows for year %', partition_name, y;
+        END;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION ensure_document_detail_partitions(up_to_document_id BIGINT, range_size BIGINT) RETURNS INT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    partition_name TEXT;
+    lower_bound    BIGINT;
+    created        INT := 0;
+BEGIN
+    -- размер диапазона нельзя менять после создания первых секций: новые границы пересекутся со старыми
+    FOR i IN 0 .. (up_to_document_id / range_size)::INT LOOP
+        lower_bound := i * range_size;
+        partition_name := 'document_detail_from_' || lower_bound;
+        CONTINUE WHEN to_regclass(partition_name) IS NOT NULL;
+        BEGIN
+            EXECUTE format('CREATE TABLE %I PARTITION OF document_detail FOR VALUES FROM (%s) TO (%s)',
+                           partition_name, lower_bound, lower_bound + range_size);
+            created := created + 1;
+        EXCEPTION WHEN check_violation THEN
+            RAISE WARNING 'partition % is not created: document_detail_default has rows in its range', partition_name;
+        END;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+--rollback DROP FUNCTION ensure_document_detail_partitions(BIGINT, BIGINT);
+--rollback DROP FUNCTION ensure_document_partitions(INT, INT);
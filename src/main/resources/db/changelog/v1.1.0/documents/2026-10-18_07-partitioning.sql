@@ -0,0 +1,126 @@
+--liquibase formatted sql
+
+--changeset master-detail:document-10 dbms:postgresql splitStatements:false
+-- декларативное секционирование документов по годам doc_date: архив прошлых лет не участвует
+-- в VACUUM и росте индексов текущего года, диапазоны по doc_date (список, поиск) отсекают лишние секции
+ALTER TABLE documents RENAME TO documents_unpartitioned;
+
+CREATE TABLE documents (
+    document_id BIGINT DEFAULT nextval('documents_documents_id_seq') NOT NULL,
+    doc_number  VARCHAR(50)    NOT NULL,
+    doc_date    TIMESTAMP      NOT NULL,
+    total_sum   NUMERIC(18, 2) NOT NULL,
+    notes       TEXT,
+    version     BIGINT    DEFAULT 0              NOT NULL,
+    updated_at  TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL,
+
+    -- ключ секционирования обязан входить в первичный ключ; document_id по-прежнему уникален (последовательность)
+    CONSTRAINT pk_documents PRIMARY KEY (document_id, doc_date)
+) PARTITION BY RANGE (doc_date);
+
+CREATE TABLE documents_default PARTITION OF documents DEFAULT;
+
+-- секции для лет, за которые уже есть документы, и для текущего года с запасом;
+-- дальнейшие годы создаёт PartitionMaintenanceJob
+DO
+$$
+DECLARE
+    data_year INT;
+BEGIN
+    FOR data_year IN SELECT DISTINCT EXTRACT(YEAR FROM doc_date)::INT FROM documents_unpartitioned LOOP
+        PERFORM ensure_document_partitions(data_year, data_year);
+    END LOOP;
+    PERFORM ensure_document_partitions(EXTRACT(YEAR FROM LOCALTIMESTAMP)::INT, EXTRACT(YEAR FROM LOCALTIMESTAMP)::INT + 2);
+END
+$$;
+
+INSERT INTO documents (document_id, doc_number, doc_date, total_sum, notes, version, updated_at)
+SELECT document_id, doc_number, doc_date, total_sum, notes, version, updated_at
+FROM documents_unpartitioned;
+
+-- уникальный индекс секционированной таблицы обязан включать doc_date, поэтому уникальность номера
+-- обеспечивает реестр номеров, который ведут триггеры documents. Ограничение называется как прежнее
+-- uq_documents_docnumber; отложенная (до конца оператора) проверка позволяет обменять номера одним UPDATE
+CREATE TABLE document_numbers (
+    doc_number  VARCHAR(50) NOT NULL,
+    document_id BIGINT      NOT NULL,
+
+    CONSTRAINT uq_documents_docnumber PRIMARY KEY (doc_number) DEFERRABLE INITIALLY IMMEDIATE,
+    CONSTRAINT uq_document_numbers_document_id UNIQUE (document_id)
+);
+
+COMMENT ON TABLE document_numbers IS 'Реестр номеров документов: глобальная уникальность doc_number';
+
+INSERT INTO document_numbers (doc_number, document_id)
+SELECT doc_number, document_id
+FROM documents_unpartitioned;
+
+DROP TABLE documents_unpartitioned;
+
+CREATE INDEX idx_documents_doc_date_id ON documents (doc_date, document_id);
+CREATE INDEX idx_documents_doc_number_pattern ON documents (doc_number text_pattern_ops);
+CREATE INDEX idx_documents_notes_fts ON documents USING GIN (to_tsvector('russian', coalesce(notes, '')));
+CREATE INDEX idx_documents_total_sum ON documents (total_sum);
+
+COMMENT ON TABLE documents IS 'Таблица мастер: документы, секционирована по doc_date';
+COMMENT ON COLUMN documents.document_id IS 'Первичный ключ документа';
+COMMENT ON COLUMN documents.doc_number IS 'Номер документа (уникальный, см. document_numbers)';
+COMMENT ON COLUMN documents.doc_date IS 'Дата документа';
+COMMENT ON COLUMN documents.total_sum IS 'Сумма по документу (агрегат по позициям)';
+COMMENT ON COLUMN documents.notes IS 'Примечание';
+COMMENT ON COLUMN documents.version IS 'Версия строки для оптимистической блокировки';
+COMMENT ON COLUMN documents.updated_at IS 'Время последнего изменения документа';
+
+-- триггеры уровня оператора с таблицами переходов: UPDATE, переносящий строку в другую секцию
+-- (смена doc_date), для корневой таблицы остаётся UPDATE и не вызывает триггеры DELETE/INSERT
+CREATE OR REPLACE FUNCTION documents_register_numbers() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO document_numbers (doc_number, document_id)
+    SELECT doc_number, document_id
+    FROM inserted;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_documents_register_numbers
+    AFTER INSERT ON documents
+    REFERENCING NEW TABLE AS inserted
+    FOR EACH STATEMENT EXECUTE FUNCTION documents_register_numbers();
+
+CREATE OR REPLACE FUNCTION documents_renumber() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    UPDATE document_numbers n
+    SET doc_number = u.doc_number
+    FROM updated u
+    WHERE n.document_id = u.document_id
+      AND n.doc_number <> u.doc_number;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_documents_renumber
+    AFTER UPDATE ON documents
+    REFERENCING NEW TABLE AS updated
+    FOR EACH STATEMENT EXECUTE FUNCTION documents_renumber();
+
+CREATE OR REPLACE FUNCTION documents_cascade_delete() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    DELETE FROM document_detail dd USING deleted d WHERE dd.document_id = d.document_id;
+    DELETE FROM document_numbers n USING deleted d WHERE n.document_id = d.document_id;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_documents_cascade_delete
+    AFTER DELETE ON documents
+    REFERENCING OLD TABLE AS deleted
+    FOR EACH STATEMENT EXECUTE FUNCTION documents_cascade_delete();
+
+-- обратного преобразования нет: откат — восстановление из резервной копии
+--rollback empty
@@ -0,0 +1,36 @@
+package org.example.masterdetail;
+
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+/**
+ * Фабрика документов для интеграционных тестов.
+ */
+public final class TestDocuments {
+
+    private TestDocuments() {
+    }
+
+    /**
+     * Создаёт несохранённый документ с текущей датой и спецификациями на переданные суммы
+     * (наименования Item 0, Item 1, ...). Набор спецификаций можно дополнять.
+     *
+     * @param number номер документа
+     * @param sums   суммы строк спецификации
+     * @return новый документ
+     */
+    public static Document newDocument(String number, BigDecimal... sums) {
+        Document doc = new Document();
+        doc.setDocNumber(number);
+        doc.setDocDate(LocalDateTime.now());
+        doc.setDetails(new ArrayList<>());
+        for (int i = 0; i < sums.length; i++) {
+            doc.getDetails().add(new DocumentDetail(null, doc, "Item " + i, sums[i]));
+        }
+        return doc;
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.masterdetail.controller;
 
+import org.example.masterdetail.dto.CursorPage;
 import org.example.masterdetail.model.Document;
 import org.example.masterdetail.model.DocumentDetail;
 import org.example.masterdetail.repository.DocumentRepository;
@@ -8,14 +9,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -49,6 +56,29 @@ class DocumentControllerIntegrationTest {
                 .andExpect(model().attributeExists("documents"));
     }
 
+    @Test
+    void testListDocumentsPaged() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            documentRepository.save(Document.builder()
+                    .docNumber("DOC-LIST-" + i)
+                    .docDate(LocalDateTime.now())
+                    .totalSum(BigDecimal.ZERO)
+                    .build());
+        }
+
+        MvcResult result = mockMvc.perform(get("/documents").param("size", "2").param("sort", "ID").param("dir", "DESC"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("documents", hasSize(2)))
+                .andReturn();
+        CursorPage<?> page = (CursorPage<?>) result.getModelAndView().getModel().get("page");
+        assertTrue(page.hasNext());
+
+        mockMvc.perform(get("/documents").param("size", "2").param("sort", "ID").param("dir", "DESC")
+                        .param("cursor", page.nextCursor()))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("documents", hasSize(1)));
+    }
+
     @Test
     void testCreateDocument() throws Exception {
         mockMvc.perform(post("/documents")
@@ -136,7 +166,7 @@ class DocumentControllerIntegrationTest {
         Document updatedDocument = documentRepository.findWithDetailsById(document.getId()).orElseThrow();
 
         assertEquals(1, updatedDocument.getDetails().size());
-        DocumentDetail detail = updatedDocument.getDetails().get(0);
+        DocumentDetail detail = updatedDocument.getDetails().iterator().next();
         assertEquals("Test Item", detail.getItemName());
         assertEquals(new BigDecimal("100.00"), detail.getItemSum());
     }
@@ -148,7 +178,7 @@ class DocumentControllerIntegrationTest {
                 .docDate(LocalDateTime.now())
                 .notes("With details to delete")
                 .totalSum(BigDecimal.ZERO)
-                .details(new ArrayList<>())
+                .details(new LinkedHashSet<>())
                 .build();
 
         DocumentDetail detail = new DocumentDetail();
@@ -167,4 +197,308 @@ class DocumentControllerIntegrationTest {
         Document updatedDocument = documentRepository.findWithDetailsById(document.getId()).orElseThrow();
         assertEquals(0, updatedDocument.getDetails().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEditDetailForm() throws Exception {
+        Document document = Document.builder()
+                .docNumber("DOC-DETAIL-FORM")
+                .docDate(LocalDateTime.now())
+                .totalSum(BigDecimal.ZERO)
+                .details(new LinkedHashSet<>())
+                .build();
+        DocumentDetail detail = new DocumentDetail(null, document, "Row to edit", new BigDecimal("12.50"));
+        document.getDetails().add(detail);
+        documentRepository.save(document);
+
+        mockMvc.perform(get("/documents/" + document.getId() + "/details/" + detail.getId() + "/edit"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("detail-form"))
+                .andExpect(content().string(containsString("Row to edit")));
+
+        mockMvc.perform(get("/documents"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Row to edit")));
+    }
+
+    @Test
+    public void testInvalidDetailKeepsRejectedInput() throws Exception {
+        Document document = Document.builder()
+                .docNumber("DOC-DETAIL-INVALID")
+                .docDate(LocalDateTime.now())
+                .totalSum(BigDecimal.ONE)
+                .details(new LinkedHashSet<>())
+                .build();
+        DocumentDetail detail = new DocumentDetail(null, document, "Kept row", BigDecimal.ONE);
+        document.getDetails().add(detail);
+        documentRepository.save(document);
+        String detailUrl = "/documents/" + document.getId() + "/details/" + detail.getId();
+
+        mockMvc.perform(get(detailUrl + "/edit"))
+                .andExpect(content().string(containsString("name=\"itemName\" value=\"Kept row\"")));
+
+        mockMvc.perform(post(detailUrl)
+                        .param("itemName", "Typed name")
+                        .param("itemSum", "twelve")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(view().name("detail-form"))
+                .andExpect(model().attributeHasFieldErrors("detail", "itemSum"))
+                .andExpect(content().string(containsString("action=\"" + detailUrl + "\"")))
+                .andExpect(content().string(containsString("value=\"Typed name\"")))
+                .andExpect(content().string(containsString("Item sum must be a number")));
+
+        assertEquals("Kept row", documentRepository.findWithDetailsById(document.getId()).orElseThrow()
+                .getDetails().iterator().next().getItemName());
+    }
+
+    @Test
+    public void testEditFormPagesDetailsAndSavesHeaderOnly() throws Exception {
+        Document document = Document.builder()
+                .docNumber("DOC-GRID")
+                .docDate(LocalDateTime.now())
+                .totalSum(new BigDecimal("6.00"))
+                .details(new LinkedHashSet<>())
+                .build();
+        for (int i = 1; i <= 3; i++) {
+            document.getDetails().add(new DocumentDetail(null, document, "Grid row " + i, new BigDecimal(i)));
+        }
+        documentRepository.save(document);
+
+        MvcResult form = mockMvc.perform(get("/documents/" + document.getId() + "/edit").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("document-form"))
+                .andExpect(content().string(containsString("Grid row 1")))
+                .andExpect(content().string(containsString("Grid row 2")))
+                .andReturn();
+        assertTrue(!form.getResponse().getContentAsString().contains("Grid row 3"));
+        CursorPage<?> first = (CursorPage<?>) form.getModelAndView().getModel().get("detailPage");
+
+        MvcResult next = mockMvc.perform(get("/documents/" + document.getId() + "/details")
+                        .param("size", "2")
+                        .param("cursor", first.nextCursor()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Grid row 3")))
+                .andReturn();
+        CursorPage<?> second = (CursorPage<?>) next.getModelAndView().getModel().get("detailPage");
+        assertEquals(1, second.content().size());
+        assertTrue(second.hasPrevious() && !second.hasNext());
+
+        // сохранение реквизитов не трогает строки
+        mockMvc.perform(post("/documents/" + document.getId())
+                        .param("docNumber", "DOC-GRID")
+                        .param("docDate", "2025-02-01T12:00")
+                        .param("notes", "Header only")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().is3xxRedirection());
+        Document saved = documentRepository.findWithDetailsById(document.getId()).orElseThrow();
+        assertEquals("Header only", saved.getNotes());
+        assertEquals(3, saved.getDetails().size());
+        assertEquals(0, new BigDecimal("6.00").compareTo(saved.getTotalSum()));
+    }
+
+    @Test
+    public void testHeaderSaveWithStaleVersionIsRejected() throws Exception {
+        Document document = Document.builder()
+                .docNumber("DOC-STALE")
+                .docDate(LocalDateTime.now())
+                .totalSum(BigDecimal.ZERO)
+                .details(new LinkedHashSet<>())
+                .build();
+        document.getDetails().add(new DocumentDetail(null, document, "Stale row", BigDecimal.ONE));
+        documentRepository.save(document);
+        String version = documentRepository.findById(document.getId()).orElseThrow().getVersion().toString();
+
+        mockMvc.perform(get("/documents/" + document.getId() + "/edit"))
+                .andExpect(content().string(containsString("name=\"version\" value=\"" + version + "\"")));
+
+        mockMvc.perform(post("/documents/" + document.getId())
+                        .param("version", version)
+                        .param("docNumber", "DOC-STALE")
+                        .param("docDate", "2025-02-01T12:00")
+                        .param("notes", "First editor")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().is3xxRedirection());
+
+        // вторая вкладка открыта с той же версией
+        mockMvc.perform(post("/documents/" + document.getId())
+                        .param("version", version)
+                        .param("docNumber", "DOC-STALE")
+                        .param("docDate", "2025-02-01T12:00")
+                        .param("notes", "Second editor")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isConflict())
+                .andExpect(view().name("document-form"))
+                .andExpect(model().attributeExists("errorMessage", "detailPage"))
+                .andExpect(content().string(containsString("action=\"/documents/" + document.getId() + "\"")))
+                .andExpect(content().string(containsString("Stale row")));
+
+        assertEquals("First editor", documentRepository.findById(document.getId()).orElseThrow().getNotes());
+    }
+
+    @Test
+    public void testInvalidHeaderKeepsDetailGrid() throws Exception {
+        Document document = Document.builder()
+                .docNumber("DOC-INVALID")
+                .docDate(LocalDateTime.now())
+                .totalSum(BigDecimal.ZERO)
+                .details(new LinkedHashSet<>())
+                .build();
+        document.getDetails().add(new DocumentDetail(null, document, "Kept row", BigDecimal.ONE));
+        documentRepository.save(document);
+
+        mockMvc.perform(post("/documents/" + document.getId())
+                        .param("docNumber", "DOC-INVALID")
+                        .param("docDate", "not a date")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(view().name("document-form"))
+                .andExpect(model().attributeExists("detailPage"))
+                .andExpect(content().string(containsString("action=\"/documents/" + document.getId() + "\"")))
+                .andExpect(content().string(containsString("Kept row")));
+    }
+
+    @Test
+    public void testDetailBatch() throws Exception {
+        Document document = Document.builder()
+                .docNumber("DOC-BATCH-API")
+                .docDate(LocalDateTime.now())
+                .totalSum(new BigDecimal("5.00"))
+                .details(new LinkedHashSet<>())
+                .build();
+        DocumentDetail detail = new DocumentDetail(null, document, "Row", new BigDecimal("5.00"));
+        document.getDetails().add(detail);
+        documentRepository.save(document);
+
+        mockMvc.perform(post("/documents/" + document.getId() + "/details/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"op\":\"ADD\",\"itemName\":\"Added\",\"itemSum\":2.50}," +
+                                "{\"op\":\"DELETE\",\"detailId\":" + detail.getId() + "}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(true))
+                .andExpect(jsonPath("$.totalSum").value(2.5))
+                .andExpect(jsonPath("$.results", hasSize(2)))
+                .andExpect(jsonPath("$.results[1].detailId").value(detail.getId()));
+
+        mockMvc.perform(post("/documents/" + document.getId() + "/details/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"op\":\"UPDATE\",\"detailId\":" + detail.getId() + ",\"itemName\":\"X\",\"itemSum\":1}]"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.applied").value(false))
+                .andExpect(jsonPath("$.results[0].error").value("Detail not found: " + detail.getId()));
+
+        // пакет только из добавлений: ни одна операция не ссылается на существующую строку
+        mockMvc.perform(post("/documents/" + document.getId() + "/details/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"op\":\"ADD\",\"itemName\":\"Only add\",\"itemSum\":1}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalSum").value(3.5));
+    }
+
+    @Test
+    public void testDetailBatchErrorsAreJson() throws Exception {
+        mockMvc.perform(post("/documents/" + Long.MAX_VALUE + "/details/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"op\":\"ADD\",\"itemName\":\"Added\",\"itemSum\":1}]"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.detail").value("Document not found: " + Long.MAX_VALUE));
+
+        mockMvc.perform(post("/documents/1/details/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    public void testEditFormConditionalGet() throws Exception {
+        Document document = Document.builder()
+                .docNumber("DOC-ETAG")
+                .docDate(LocalDateTime.now())
+                .totalSum(BigDecimal.ZERO)
+                .details(new LinkedHashSet<>())
+                .build();
+        DocumentDetail detail = new DocumentDetail(null, document, "Row", new BigDecimal("10.00"));
+        document.getDetails().add(detail);
+        documentRepository.save(document);
+
+        String etag = mockMvc.perform(get("/documents/" + document.getId() + "/edit"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/documents/" + document.getId() + "/edit").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // смена одного наименования строки (без изменения суммы) тоже меняет версию документа
+        mockMvc.perform(post("/documents/" + document.getId() + "/details/" + detail.getId())
+                        .param("itemName", "Renamed row")
+                        .param("itemSum", "10.00")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().is3xxRedirection());
+
+        String changed = mockMvc.perform(get("/documents/" + document.getId() + "/edit").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(view().name("document-form"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    public void testListConditionalGet() throws Exception {
+        documentRepository.save(Document.builder()
+                .docNumber("DOC-LIST-ETAG-1")
+                .docDate(LocalDateTime.now())
+                .totalSum(BigDecimal.ZERO)
+                .build());
+
+        String etag = mockMvc.perform(get("/documents").param("size", "10"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/documents").param("size", "10").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        // другие параметры страницы — другой ETag
+        mockMvc.perform(get("/documents").param("size", "20").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/documents")
+                        .param("docNumber", "DOC-LIST-ETAG-2")
+                        .param("docDate", "2025-01-01T12:00")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().is3xxRedirection());
+
+        mockMvc.perform(get("/documents").param("size", "10").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("DOC-LIST-ETAG-2")));
+    }
+
+    @Test
+    public void testSearchDocuments() throws Exception {
+        documentRepository.save(Document.builder()
+                .docNumber("SRCH-1")
+                .docDate(LocalDateTime.of(2025, 1, 10, 9, 0))
+                .notes("Urgent delivery")
+                .totalSum(BigDecimal.ZERO)
+                .build());
+        documentRepository.save(Document.builder()
+                .docNumber("OTHER-1")
+                .docDate(LocalDateTime.of(2025, 1, 10, 9, 0))
+                .notes("Urgent return")
+                .totalSum(BigDecimal.ZERO)
+                .build());
+
+        mockMvc.perform(get("/documents")
+                        .param("docNumber", "SRCH")
+                        .param("notes", "urgent")
+                        .param("dateFrom", "2025-01-01")
+                        .param("sumFrom", ""))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("documents", hasSize(1)))
+                .andExpect(content().string(containsString("SRCH-1")))
+                .andExpect(content().string(containsString("/documents?docNumber=SRCH&amp;notes=urgent&amp;dateFrom=2025-01-01&amp;sort=")));
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.masterdetail.controller;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class DocumentImportControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void testImportCsvReportsDuplicatesPerRow() throws Exception {
+        documentRepository.save(Document.builder()
+                .docNumber("IMP-EXISTING")
+                .docDate(LocalDateTime.now())
+                .totalSum(BigDecimal.ZERO)
+                .build());
+        String csv = """
+                doc_number,doc_date,notes,item_name,item_sum
+                IMP-1,2025-01-10,"first, with comma",Item A,10.50
+                IMP-1,2025-01-10,,Item B,4.50
+                IMP-EXISTING,2025-01-11,,Item C,1
+                IMP-2,2025-01-12T08:30,,,
+                IMP-1,2025-01-13,,Item D,1
+                IMP-3,2025-01-14,,Item E,not-a-number
+                """;
+
+        mockMvc.perform(post("/documents/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.documentsImported").value(2))
+                .andExpect(jsonPath("$.detailsImported").value(2))
+                .andExpect(jsonPath("$.rowsRejected").value(3))
+                .andExpect(jsonPath("$.errors[0].line").value(7))
+                .andExpect(jsonPath("$.errors[1].docNumber").value("IMP-EXISTING"))
+                .andExpect(jsonPath("$.errors[2].line").value(6));
+
+        Document imported = documentRepository.findByDocNumber("IMP-1").orElseThrow();
+        assertEquals(0, new BigDecimal("15.00").compareTo(imported.getTotalSum()));
+        assertEquals("first, with comma", imported.getNotes());
+        assertEquals(3, documentRepository.count());
+    }
+
+    @Test
+    void testImportNdjson() throws Exception {
+        String ndjson = """
+                {"docNumber":"NDJ-1","docDate":"2025-02-01T10:00","details":[{"itemName":"A","itemSum":1.25},{"itemName":"B","itemSum":"2.75"}]}
+                {"docNumber":"NDJ-2","notes":"no details"}
+                {broken json
+                {"docNumber":"NDJ-2"}
+                """;
+
+        mockMvc.perform(post("/documents/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.documentsImported").value(2))
+                .andExpect(jsonPath("$.detailsImported").value(2))
+                .andExpect(jsonPath("$.rowsRejected").value(2));
+
+        Document imported = documentRepository.findWithDetailsById(
+                documentRepository.findByDocNumber("NDJ-1").orElseThrow().getId()).orElseThrow();
+        assertEquals(2, imported.getDetails().size());
+        assertEquals(0, new BigDecimal("4.00").compareTo(imported.getTotalSum()));
+    }
+
+    @Test
+    void testImportWithoutDocNumberHeaderIsBadRequest() throws Exception {
+        mockMvc.perform(post("/documents/import")
+                        .contentType("text/csv")
+                        .content("number,doc_date\nIMP-1,2025-01-10\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.detail").value("CSV header must contain doc_number column"));
+
+        assertEquals(0, documentRepository.count());
+    }
+
+    @Test
+    void testImportStreamFailureIsServerError() throws Exception {
+        mockMvc.perform(post("/documents/import")
+                        .contentType("text/csv")
+                        .with(failingBody()))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(500));
+    }
+
+    /**
+     * Подменяет тело запроса потоком, который обрывается на первом чтении, как при разрыве соединения.
+     */
+    private static RequestPostProcessor failingBody() {
+        return request -> {
+            MockHttpServletRequest failing = new MockHttpServletRequest(
+                    request.getServletContext(), request.getMethod(), request.getRequestURI()) {
+                @Override
+                public ServletInputStream getInputStream() {
+                    return new ServletInputStream() {
+                        @Override
+                        public int read() throws IOException {
+                            throw new IOException("Connection reset by peer");
+                        }
+
+                        @Override
+                        public boolean isFinished() {
+                            return false;
+                        }
+
+                        @Override
+                        public boolean isReady() {
+                            return true;
+                        }
+
+                        @Override
+                        public void setReadListener(ReadListener readListener) {
+                        }
+                    };
+                }
+            };
+            failing.setContentType(request.getContentType());
+            return failing;
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.masterdetail.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.masterdetail.dto.DocumentHeader;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.service.DocumentReadService;
+import org.example.masterdetail.service.DocumentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.masterdetail.TestDocuments.newDocument;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DocumentReadApiIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private DocumentService documentService;
+    @Autowired
+    private DocumentReadService readService;
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void testGetDocumentByIdAndNumberReflectsJpaWrites() throws Exception {
+        Document saved = documentService.addDocument(newDocument("API-1", BigDecimal.ONE, BigDecimal.TEN));
+        documentService.addDetail(saved.getId(), new DocumentDetail(null, null, "Added", BigDecimal.valueOf(5)));
+
+        JsonNode byId = objectMapper.readTree(restTemplate.getForObject("/api/documents/" + saved.getId(), String.class));
+        JsonNode byNumber = objectMapper.readTree(restTemplate.getForObject("/api/documents/by-number/API-1", String.class));
+
+        assertThat(byId).isEqualTo(byNumber);
+        assertThat(byId.at("/header/docNumber").asText()).isEqualTo("API-1");
+        assertThat(byId.at("/header/totalSum").decimalValue()).isEqualByComparingTo("16");
+        assertThat(byId.get("details")).hasSize(3);
+        assertThat(byId.at("/details/2/itemName").asText()).isEqualTo("Added");
+    }
+
+    @Test
+    void testMissingDocumentReturnsNotFound() {
+        ResponseEntity<String> byId = restTemplate.getForEntity("/api/documents/999999", String.class);
+        ResponseEntity<String> byNumber = restTemplate.getForEntity("/api/documents/by-number/NOPE", String.class);
+
+        assertThat(byId.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(byNumber.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void testDocumentWithoutDetailsHasEmptyList() throws Exception {
+        Document saved = documentService.addDocument(newDocument("API-EMPTY"));
+
+        JsonNode body = objectMapper.readTree(restTemplate.getForObject("/api/documents/" + saved.getId(), String.class));
+
+        assertThat(body.get("details")).isEmpty();
+        assertThat(body.at("/header/totalSum").decimalValue()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void testListPagesByIdKeyset() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(documentService.addDocument(newDocument("API-LIST-" + i)).getId());
+        }
+
+        JsonNode first = objectMapper.readTree(restTemplate.getForObject("/api/documents?limit=3", String.class));
+        JsonNode second = objectMapper.readTree(restTemplate.getForObject(
+                "/api/documents?limit=3&afterId=" + first.get(2).get("id").asLong(), String.class));
+
+        assertThat(first).hasSize(3);
+        assertThat(second).hasSize(2);
+        assertThat(second.get(1).get("id").asLong()).isEqualTo(ids.get(4));
+    }
+
+    @Test
+    void testStreamsHeadersAndDetailsAsNdjson() {
+        Document hot = documentService.addDocument(newDocument("API-HOT", BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE));
+        for (int i = 0; i < 20; i++) {
+            documentService.addDocument(newDocument("API-STREAM-" + i));
+        }
+
+        String headers = restTemplate.getForObject("/api/documents/stream", String.class);
+        String details = restTemplate.getForObject("/api/documents/" + hot.getId() + "/details", String.class);
+
+        assertThat(headers.lines()).hasSize(21).allMatch(line -> line.startsWith("{\"id\":"));
+        assertThat(details.lines()).hasSize(3);
+    }
+
+    @Test
+    void testStreamIsCancelledWhenSubscriberHasEnough() {
+        for (int i = 0; i < 50; i++) {
+            documentService.addDocument(newDocument("API-TAKE-" + i));
+        }
+
+        List<DocumentHeader> firstFive = readService.streamHeaders().take(5).collectList().block();
+
+        assertThat(firstFive).hasSize(5);
+        assertThat(firstFive).extracting(DocumentHeader::docNumber).startsWith("API-TAKE-0");
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.masterdetail.controller;
+
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import org.example.masterdetail.service.Impl.ErrorLogServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private DocumentServiceImpl documentService;
+    @Autowired
+    private ErrorLogServiceImpl errorLogService;
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void testPrometheusEndpointExposesApplicationMetrics() throws Exception {
+        Document doc = new Document();
+        doc.setDocNumber("MET-1");
+        doc.setDocDate(LocalDateTime.now());
+        doc.setDetails(List.of(
+                new DocumentDetail(null, doc, "A", BigDecimal.ONE),
+                new DocumentDetail(null, doc, "B", BigDecimal.TEN)));
+        documentService.addDocument(doc);
+        mockMvc.perform(get("/documents")).andExpect(status().isOk());
+        errorLogService.flush();
+
+        String body = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body)
+                .contains("document_service_seconds_count{", "method=\"addDocument\"")
+                .contains("document_service_seconds_bucket{")
+                .contains("spring_data_repository_invocations_seconds_count{")
+                .contains("hikaricp_connections_active{")
+                .contains("hibernate_statements_total{")
+                .contains("document_details_rows_count{", "operation=\"add\"")
+                .contains("operation=\"page\"")
+                .contains("error_log_entries_total{", "outcome=\"dropped\"")
+                .contains("error_log_queue_size ")
+                .contains("http_server_requests_seconds_bucket{");
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.masterdetail.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ошибки JSON API отдаются как application/problem+json с кодом ошибки, а не страницей error.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class RestApiErrorIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testPurgeWithoutCriteriaIsBadRequest() throws Exception {
+        mockMvc.perform(post("/documents/purge"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.detail").value("Не заданы условия отбора удаляемых документов"));
+    }
+
+    @Test
+    void testReportWithInvertedPeriodIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/reports/documents").param("from", "2026-04-01").param("to", "2026-03-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.detail").value("Начало периода отчёта позже его конца"));
+
+        // без обязательного параметра — тоже 400 в JSON, а не страница error
+        mockMvc.perform(get("/api/reports/documents").param("from", "2026-04-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON));
+    }
+}
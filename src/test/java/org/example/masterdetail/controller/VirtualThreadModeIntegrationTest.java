@@ -0,0 +1,80 @@
+package org.example.masterdetail.controller;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.example.masterdetail.filter.RequestConcurrencyLimitFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "master-detail.concurrency.max-concurrent-requests=1",
+        "master-detail.concurrency.acquire-timeout=100ms"
+})
+class VirtualThreadModeIntegrationTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private RequestConcurrencyLimitFilter limitFilter;
+
+    @Test
+    void testRequestsAreServedByVirtualThreads() {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+
+        assertThat(webServer.getTomcat().getConnector().getProtocolHandler().getExecutor())
+                .isInstanceOf(VirtualThreadExecutor.class);
+        assertThat(restTemplate.getForEntity("/documents", String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void testRequestsBeyondLimitAreRejectedAfterTimeout() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                limitFilter.doFilter(new MockHttpServletRequest("GET", "/documents"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            entered.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        limitFilter.doFilter(new MockHttpServletRequest("GET", "/documents"), rejected, (request, response) -> { });
+        MockHttpServletResponse actuator = new MockHttpServletResponse();
+        limitFilter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), actuator, (request, response) -> { });
+        release.countDown();
+        holder.join();
+
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(actuator.getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        MockHttpServletResponse afterRelease = new MockHttpServletResponse();
+        limitFilter.doFilter(new MockHttpServletRequest("GET", "/documents"), afterRelease, (request, response) -> { });
+        assertThat(afterRelease.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+}
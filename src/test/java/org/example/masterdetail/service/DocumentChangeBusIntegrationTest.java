@@ -0,0 +1,156 @@
+package org.example.masterdetail.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.masterdetail.dto.DocumentChange;
+import org.example.masterdetail.dto.DocumentChangeBatch;
+import org.example.masterdetail.enums.DocumentChangeKind;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.service.Impl.DocumentChangeBusImpl;
+import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.masterdetail.TestDocuments.newDocument;
+
+/**
+ * Фоновая рассылка отключена длинным окном: тесты вызывают flush() сами. Схема не пересоздаётся,
+ * чтобы не сбить последовательности под кэшем второго уровня уже поднятых контекстов.
+ */
+@SpringBootTest(properties = {
+        "spring.liquibase.drop-first=false",
+        "master-detail.change-bus.coalesce-window=1h",
+        "master-detail.change-bus.max-batch-size=2",
+        "master-detail.change-bus.max-pending=5"
+})
+class DocumentChangeBusIntegrationTest {
+
+    @Autowired
+    private DocumentChangeBusImpl changeBus;
+    @Autowired
+    private DocumentChangeTransport transport;
+    @Autowired
+    private DocumentServiceImpl documentService;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<DocumentChangeBatch> published = new CopyOnWriteArrayList<>();
+    private final DocumentChangeTransport.Listener recorder = new DocumentChangeTransport.Listener() {
+        @Override
+        public void onChanges(DocumentChangeBatch batch) {
+            published.add(batch);
+        }
+
+        @Override
+        public void onMissedChanges() {
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+        changeBus.flush();
+        transport.subscribe(recorder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.unsubscribe(recorder);
+    }
+
+    @Test
+    void testRepeatedChangesAreCoalescedAfterCommit() {
+        Document doc = documentService.addDocument(newDocument("BUS-1", BigDecimal.ONE));
+        Long id = doc.getId();
+        documentService.addDetail(id, new DocumentDetail(null, null, "B", BigDecimal.TEN));
+        documentService.updateDocument(id, header("BUS-1-RENAMED"));
+        Document other = documentService.addDocument(newDocument("BUS-2", BigDecimal.ONE));
+        documentService.deleteDocument(other.getId());
+
+        changeBus.flush();
+
+        assertThat(published).hasSize(1);
+        DocumentChangeBatch batch = published.get(0);
+        assertThat(batch.origin()).isEqualTo(changeBus.getInstanceId());
+        assertThat(batch.invalidateAll()).isFalse();
+        assertThat(batch.changes()).containsExactly(
+                new DocumentChange(id, documentRepository.findById(id).orElseThrow().getVersion(), DocumentChangeKind.CREATED),
+                new DocumentChange(other.getId(), null, DocumentChangeKind.DELETED));
+    }
+
+    @Test
+    void testRolledBackChangeIsNotPublished() {
+        Document doc = documentService.addDocument(newDocument("BUS-ROLLBACK", BigDecimal.ONE));
+        changeBus.flush();
+        published.clear();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            changeBus.documentChanged(doc.getId(), DocumentChangeKind.UPDATED);
+            status.setRollbackOnly();
+        });
+        changeBus.flush();
+
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    void testChangesAreSplitIntoNotificationsOfMaxBatchSize() {
+        List<Long> ids = LongStream.range(0, 3)
+                .mapToObj(i -> documentService.addDocument(newDocument("BUS-SPLIT-" + i, BigDecimal.ONE)).getId())
+                .toList();
+
+        changeBus.flush();
+
+        assertThat(published).hasSize(2);
+        assertThat(published).flatExtracting(DocumentChangeBatch::changes)
+                .extracting(DocumentChange::documentId)
+                .containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void testBurstAboveMaxPendingCollapsesIntoInvalidateAll() {
+        changeBus.documentsChanged(LongStream.rangeClosed(1, 10).boxed().toList(), DocumentChangeKind.UPDATED);
+
+        changeBus.flush();
+
+        assertThat(published).containsExactly(new DocumentChangeBatch(changeBus.getInstanceId(), List.of(), true));
+    }
+
+    @Test
+    void testChangeFromAnotherInstanceEvictsLocalCache() {
+        Long id = documentService.addDocument(newDocument("BUS-REMOTE", BigDecimal.ONE)).getId();
+        documentService.findWithDetailsById(id);
+        org.hibernate.Cache cache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+        assertThat(cache.containsEntity(Document.class, id)).isTrue();
+
+        transport.publish(new DocumentChangeBatch(changeBus.getInstanceId(),
+                List.of(new DocumentChange(id, 1L, DocumentChangeKind.UPDATED)), false));
+        assertThat(cache.containsEntity(Document.class, id)).isTrue();
+
+        transport.publish(new DocumentChangeBatch("another-instance",
+                List.of(new DocumentChange(id, 1L, DocumentChangeKind.UPDATED)), false));
+        assertThat(cache.containsEntity(Document.class, id)).isFalse();
+    }
+
+    private static Document header(String number) {
+        Document doc = new Document();
+        doc.setDocNumber(number);
+        doc.setDetails(null);
+        return doc;
+    }
+}
@@ -0,0 +1,253 @@
+package org.example.masterdetail.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentDetailRepository;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.example.masterdetail.TestDocuments.newDocument;
+
+/**
+ * Параллельные изменения одного документа без общей транзакции теста.
+ */
+@SpringBootTest
+class DocumentConcurrencyIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentConcurrencyIntegrationTest.class);
+
+    @Autowired
+    private DocumentServiceImpl documentService;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private DocumentDetailRepository documentDetailRepository;
+    @Autowired
+    private ConflictRetryExecutor retryExecutor;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void testConcurrentMutationsKeepTotalSumConsistent() throws Exception {
+        Document doc = newDocument("STRESS-1");
+        for (int i = 0; i < 20; i++) {
+            doc.getDetails().add(new DocumentDetail(null, doc, "Seed " + i, BigDecimal.valueOf(i)));
+        }
+        Long docId = documentService.addDocument(doc).getId();
+
+        int threads = 16;
+        int operationsPerThread = 40;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        AtomicInteger detailGone = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    try {
+                        randomOperation(docId);
+                    } catch (RuntimeException ex) {
+                        if (ex.getMessage() != null && ex.getMessage().startsWith("Detail not found")) {
+                            // строку успел удалить другой поток
+                            detailGone.incrementAndGet();
+                        } else if (ex instanceof ConcurrencyFailureException) {
+                            // попытки исчерпаны: пользователь получает ошибку конфликта, данные не портятся
+                            conflicts.incrementAndGet();
+                        } else {
+                            unexpected.add(ex);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        Map<String, Object> totals = jdbcTemplate.queryForMap(
+                "SELECT d.total_sum, d.version, (SELECT COALESCE(SUM(dd.item_sum), 0) FROM document_detail dd " +
+                        "WHERE dd.document_id = d.document_id) AS detail_sum FROM documents d WHERE d.document_id = ?", docId);
+        log.info("stress finished: {}, retries {}, reported conflicts {}, vanished details {}", totals,
+                meterRegistry.counter("document.conflict.retries").count(), conflicts.get(), detailGone.get());
+        assertThat(unexpected).isEmpty();
+        assertThat(conflicts.get()).isLessThan(threads * operationsPerThread / 10);
+        assertThat((BigDecimal) totals.get("TOTAL_SUM")).isEqualByComparingTo((BigDecimal) totals.get("DETAIL_SUM"));
+        assertThat(((Number) totals.get("VERSION")).longValue()).isPositive();
+    }
+
+    @Test
+    void testStaleVersionIsRejected() {
+        Long docId = documentService.addDocument(newDocument("VERSION-1")).getId();
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            Document loaded = documentRepository.findById(docId).orElseThrow();
+            // другая транзакция фиксирует изменение документа после чтения
+            Thread other = new Thread(() ->
+                    documentService.addDetail(docId, new DocumentDetail(null, null, "Concurrent", BigDecimal.ONE)));
+            other.start();
+            try {
+                other.join();
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+            loaded.setNotes("stale edit");
+            documentRepository.saveAndFlush(loaded);
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        Document reloaded = documentService.findWithDetailsById(docId);
+        assertThat(reloaded.getNotes()).isNull();
+        assertThat(reloaded.getTotalSum()).isEqualByComparingTo("1");
+    }
+
+    @Test
+    void testDetailCompareAndSetRetriesAfterConcurrentChange() throws Exception {
+        Document doc = newDocument("CAS-1");
+        doc.getDetails().add(new DocumentDetail(null, doc, "Item", BigDecimal.valueOf(100)));
+        Document saved = documentService.addDocument(doc);
+        Long docId = saved.getId();
+        Long detailId = saved.getDetails().iterator().next().getId();
+        double retriesBefore = meterRegistry.counter("document.conflict.retries").count();
+
+        // между чтением строки сервисом и его compare-and-set другая транзакция фиксирует новую сумму строки
+        AtomicBoolean interfered = new AtomicBoolean();
+        DocumentDetailRepository interfering = (DocumentDetailRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{DocumentDetailRepository.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(documentDetailRepository, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                    if ("findRows".equals(method.getName()) && interfered.compareAndSet(false, true)) {
+                        Thread other = new Thread(() -> documentService.updateDetail(docId, detailId,
+                                new DocumentDetail(null, null, "Concurrent", BigDecimal.valueOf(130))));
+                        other.start();
+                        other.join();
+                    }
+                    return result;
+                });
+        DocumentServiceImpl target = AopTestUtils.getUltimateTargetObject(documentService);
+        ReflectionTestUtils.setField(target, "documentDetailRepository", interfering);
+        try {
+            documentService.updateDetail(docId, detailId, new DocumentDetail(null, null, "Fresh", BigDecimal.valueOf(150)));
+        } finally {
+            ReflectionTestUtils.setField(target, "documentDetailRepository", documentDetailRepository);
+        }
+
+        assertThat(interfered).isTrue();
+        assertThat(meterRegistry.counter("document.conflict.retries").count()).isGreaterThan(retriesBefore);
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT item_name, item_sum FROM document_detail WHERE detail_id = ?", detailId);
+        assertThat(row.get("ITEM_NAME")).isEqualTo("Fresh");
+        assertThat((BigDecimal) row.get("ITEM_SUM")).isEqualByComparingTo("150");
+        Map<String, Object> totals = jdbcTemplate.queryForMap(
+                "SELECT d.total_sum, (SELECT COALESCE(SUM(dd.item_sum), 0) FROM document_detail dd " +
+                        "WHERE dd.document_id = d.document_id) AS detail_sum FROM documents d WHERE d.document_id = ?", docId);
+        assertThat((BigDecimal) totals.get("TOTAL_SUM")).isEqualByComparingTo("150");
+        assertThat((BigDecimal) totals.get("TOTAL_SUM")).isEqualByComparingTo((BigDecimal) totals.get("DETAIL_SUM"));
+    }
+
+    @Test
+    void testRetryExecutorRetriesConflictsOutsideTransactionOnly() {
+        AtomicInteger attempts = new AtomicInteger();
+        String result = retryExecutor.execute("test", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("conflict");
+            }
+            return "done";
+        });
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts).hasValue(3);
+
+        attempts.set(0);
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                retryExecutor.run("test", () -> {
+                    attempts.incrementAndGet();
+                    throw new OptimisticLockingFailureException("conflict");
+                }))).isInstanceOf(ConcurrencyFailureException.class);
+        assertThat(attempts).hasValue(1);
+
+        attempts.set(0);
+        assertThatThrownBy(() -> retryExecutor.run("test", () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("conflict");
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(attempts).hasValue(5);
+    }
+
+    private void randomOperation(Long docId) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int choice = random.nextInt(100);
+        if (choice < 50) {
+            documentService.addDetail(docId, new DocumentDetail(null, null, "Added", BigDecimal.valueOf(random.nextInt(1, 100))));
+            return;
+        }
+        if (choice < 90) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT detail_id FROM document_detail WHERE document_id = ?", Long.class, docId);
+            if (ids.isEmpty()) {
+                return;
+            }
+            Long detailId = ids.get(random.nextInt(ids.size()));
+            if (choice < 70) {
+                documentService.updateDetail(docId, detailId,
+                        new DocumentDetail(null, null, "Updated", BigDecimal.valueOf(random.nextInt(1, 100))));
+            } else {
+                documentService.removeDetail(docId, detailId);
+            }
+            return;
+        }
+        Document update = new Document();
+        update.setDocNumber("STRESS-1");
+        update.setNotes("edit " + random.nextInt());
+        if (choice < 97) {
+            update.setDetails(null);
+        } else {
+            update.setDetails(List.of(
+                    new DocumentDetail(null, null, "Replaced A", BigDecimal.valueOf(7)),
+                    new DocumentDetail(null, null, "Replaced B", BigDecimal.valueOf(11))));
+        }
+        documentService.updateDocument(docId, update);
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.masterdetail.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.masterdetail.enums.ExportFormat;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class DocumentExportIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentExportIntegrationTest.class);
+
+    @Autowired
+    private DocumentExportService exportService;
+
+    @Autowired
+    private DocumentServiceImpl documentService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // пул настроен с auto-commit: false, поэтому прямой JDBC выполняется в явной транзакции
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM document_detail");
+            jdbcTemplate.update("DELETE FROM documents");
+        });
+    }
+
+    @Test
+    void testExportNdjsonGroupsDetailsByDocument() throws Exception {
+        Document doc = new Document();
+        doc.setDocNumber("EXP-JSON");
+        doc.setDocDate(LocalDateTime.of(2025, 3, 1, 9, 0));
+        doc.setNotes("quoted \"note\", with comma");
+        doc.setDetails(List.of(
+                new DocumentDetail(null, doc, "A", BigDecimal.valueOf(1)),
+                new DocumentDetail(null, doc, "B", BigDecimal.valueOf(2))));
+        documentService.addDocument(doc);
+        Document empty = new Document();
+        empty.setDocNumber("EXP-EMPTY");
+        empty.setDocDate(LocalDateTime.of(2025, 3, 2, 9, 0));
+        documentService.addDocument(empty);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(exportService.exportDocuments(ExportFormat.NDJSON, out)).isEqualTo(2);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("docNumber").asText()).isEqualTo("EXP-JSON");
+        assertThat(first.get("details")).hasSize(2);
+        assertThat(objectMapper.readTree(lines[1]).get("details")).isEmpty();
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.exportDocuments(ExportFormat.CSV, csv);
+        assertThat(csv.toString(StandardCharsets.UTF_8))
+                .contains("\"quoted \"\"note\"\", with comma\"")
+                .contains(",EXP-EMPTY,2025-03-02T09:00,0.00,,,,");
+    }
+
+    /**
+     * Выгружает 200 000 строк деталей и проверяет, что живая куча (после полной сборки мусора)
+     * не растёт по ходу выгрузки, то есть строки не накапливаются в памяти.
+     */
+    @Test
+    void testExportLargeDatasetKeepsHeapFlat() {
+        int documents = 40_000;
+        int detailsPerDocument = 5;
+        List<Object[]> rows = new ArrayList<>(documents);
+        Timestamp docDate = Timestamp.valueOf(LocalDateTime.of(2025, 1, 1, 0, 0));
+        for (int i = 0; i < documents; i++) {
+            rows.add(new Object[]{"EXP-" + i, docDate, BigDecimal.valueOf(15), "synthetic"});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("INSERT INTO documents (doc_number, doc_date, total_sum, notes) VALUES (?, ?, ?, ?)", rows);
+            jdbcTemplate.update("INSERT INTO document_detail (document_id, item_name, item_sum) " +
+                    "SELECT d.document_id, CONCAT('Item ', x.n), x.n FROM documents d " +
+                    "CROSS JOIN (VALUES (1), (2), (3), (4), (5)) AS x(n)");
+        });
+        rows.clear();
+
+        long baseline = liveHeap();
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream(2 * 1024 * 1024);
+        long exported = exportService.exportDocuments(ExportFormat.CSV, out);
+
+        long growth = out.maxLiveHeap - baseline;
+        log.info("exported {} documents ({} bytes), live heap growth {} KB over {} samples",
+                exported, out.bytes, growth / 1024, out.samples);
+        assertThat(exported).isEqualTo(documents);
+        assertThat(out.lines).isEqualTo(1 + (long) documents * detailsPerDocument);
+        assertThat(out.samples).isGreaterThan(1);
+        assertThat(growth).isLessThan(32L * 1024 * 1024);
+    }
+
+    private static long liveHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Отбрасывает данные, считая байты и строки, и каждые sampleEvery байт замеряет живую кучу.
+     */
+    private static final class HeapSamplingOutputStream extends OutputStream {
+        private final long sampleEvery;
+        private long bytes;
+        private long lines;
+        private long samples;
+        private long maxLiveHeap;
+
+        private HeapSamplingOutputStream(long sampleEvery) {
+            this.sampleEvery = sampleEvery;
+        }
+
+        @Override
+        public void write(int b) {
+            count(b == '\n' ? 1 : 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            int newLines = 0;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    newLines++;
+                }
+            }
+            count(newLines, len);
+        }
+
+        private void count(int newLines, int len) {
+            long before = bytes / sampleEvery;
+            bytes += len;
+            lines += newLines;
+            if (bytes / sampleEvery != before) {
+                samples++;
+                maxLiveHeap = Math.max(maxLiveHeap, liveHeap());
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.dto.DocumentSearchCriteria;
+import org.example.masterdetail.dto.PurgeReport;
+import org.example.masterdetail.errors.CustomValidationException;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentDetailRepository;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "master-detail.purge.chunk-size=2",
+        "master-detail.purge.pause-between-chunks=0"
+})
+class DocumentPurgeIntegrationTest {
+
+    @Autowired
+    private DocumentPurgeService purgeService;
+    @Autowired
+    private DocumentServiceImpl documentService;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private DocumentDetailRepository documentDetailRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+        ids.clear();
+        for (int i = 0; i < 7; i++) {
+            Document doc = new Document();
+            doc.setDocNumber((i < 5 ? "OLD-" : "NEW-") + i);
+            doc.setDocDate(LocalDateTime.of(2025, 1, 1 + i, 12, 0));
+            doc.setDetails(List.of(
+                    new DocumentDetail(null, doc, "A", BigDecimal.ONE),
+                    new DocumentDetail(null, doc, "B", BigDecimal.TEN)));
+            ids.add(documentService.addDocument(doc).getId());
+        }
+    }
+
+    @Test
+    void testPurgeByIdsInChunks() {
+        PurgeReport report = purgeService.purgeByIds(List.of(ids.get(0), ids.get(3), ids.get(5), -1L));
+
+        assertThat(report).isEqualTo(new PurgeReport(3, 6, 2));
+        assertThat(documentRepository.count()).isEqualTo(4);
+        assertThat(documentDetailRepository.count()).isEqualTo(8);
+        assertThat(documentRepository.existsById(ids.get(3))).isFalse();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM document_rollup_queue WHERE document_id = ?", Long.class, ids.get(5)))
+                .isPositive();
+    }
+
+    @Test
+    void testPurgeMatchingCriteria() {
+        // OLD-0 … OLD-4 по номеру, из них со 2 по 4 января — по дате
+        DocumentSearchCriteria criteria = new DocumentSearchCriteria("OLD-", null, null,
+                LocalDate.of(2025, 1, 2), LocalDate.of(2025, 1, 4), null, null);
+
+        PurgeReport report = purgeService.purgeMatching(criteria);
+
+        assertThat(report).isEqualTo(new PurgeReport(3, 6, 2));
+        assertThat(documentRepository.findAll()).extracting(Document::getDocNumber)
+                .containsExactlyInAnyOrder("OLD-0", "OLD-4", "NEW-5", "NEW-6");
+    }
+
+    @Test
+    void testPurgeRequiresCriteria() {
+        assertThatThrownBy(() -> purgeService.purgeMatching(DocumentSearchCriteria.NONE))
+                .isInstanceOf(CustomValidationException.class);
+        assertThat(documentRepository.count()).isEqualTo(7);
+    }
+}
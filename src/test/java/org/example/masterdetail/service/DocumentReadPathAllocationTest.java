@@ -0,0 +1,85 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.dto.DocumentPageRequest;
+import org.example.masterdetail.enums.DetailFetchStrategy;
+import org.example.masterdetail.enums.DocumentSortKey;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнивает объём памяти, выделяемой потоком на чтение одной страницы списка
+ * через управляемые сущности и через read-only проекции.
+ */
+@SpringBootTest
+class DocumentReadPathAllocationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentReadPathAllocationTest.class);
+
+    private static final int DOCUMENTS = 50;
+    private static final int DETAILS_PER_DOCUMENT = 20;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private DocumentServiceImpl documentService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Document doc = new Document();
+            doc.setDocNumber("DOC-ALLOC-" + i);
+            doc.setDocDate(LocalDateTime.now());
+            List<DocumentDetail> details = new ArrayList<>();
+            for (int j = 0; j < DETAILS_PER_DOCUMENT; j++) {
+                details.add(new DocumentDetail(null, doc, "Item" + j, BigDecimal.valueOf(j)));
+            }
+            doc.setDetails(details);
+            documentService.addDocument(doc);
+        }
+    }
+
+    @Test
+    void projectionPathAllocatesLessThanEntityPath() {
+        DocumentPageRequest request = DocumentPageRequest.first(DocumentSortKey.ID, Sort.Direction.ASC, DOCUMENTS);
+
+        long entityBytes = measure(() -> documentService.findDocumentPage(request, DetailFetchStrategy.TWO_PHASE));
+        long projectionBytes = measure(() -> documentService.findDocumentListPage(request));
+
+        log.info("Allocated per page of {} documents x {} details: entities={} bytes, projections={} bytes",
+                DOCUMENTS, DETAILS_PER_DOCUMENT, entityBytes, projectionBytes);
+        assertThat(projectionBytes).isLessThan(entityBytes);
+    }
+
+    private long measure(Runnable action) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            action.run();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / ITERATIONS;
+    }
+}
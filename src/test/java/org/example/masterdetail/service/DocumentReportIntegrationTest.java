@@ -0,0 +1,239 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.config.DocumentReportProperties;
+import org.example.masterdetail.dto.DocumentTotalsRow;
+import org.example.masterdetail.enums.ReportGranularity;
+import org.example.masterdetail.errors.CustomValidationException;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.service.Impl.DocumentReportServiceImpl;
+import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class DocumentReportIntegrationTest {
+
+    private static final String FULL_DAILY_SQL =
+            "SELECT CAST(d.doc_date AS DATE) AS report_day, COUNT(*) AS document_count, SUM(d.total_sum) AS total_sum, " +
+            "SUM((SELECT COUNT(*) FROM document_detail dd WHERE dd.document_id = d.document_id)) AS line_count " +
+            "FROM documents d GROUP BY CAST(d.doc_date AS DATE) ORDER BY report_day";
+
+    private static final String ROLLUP_DAILY_SQL =
+            "SELECT report_day, document_count, total_sum, line_count FROM document_rollup_daily ORDER BY report_day";
+
+    @Autowired
+    private DocumentReportService reportService;
+    @Autowired
+    private DocumentServiceImpl documentService;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private DocumentReportProperties reportProperties;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM document_rollup_queue");
+            jdbcTemplate.update("DELETE FROM document_rollup_state");
+            jdbcTemplate.update("DELETE FROM document_rollup_daily");
+            jdbcTemplate.update("DELETE FROM document_rollup_monthly");
+        });
+        ids.clear();
+        LocalDateTime[] dates = {
+                LocalDateTime.of(2026, 3, 1, 10, 0),
+                LocalDateTime.of(2026, 3, 1, 18, 30),
+                LocalDateTime.of(2026, 3, 15, 9, 0),
+                LocalDateTime.of(2026, 4, 2, 12, 0)
+        };
+        for (int i = 0; i < dates.length; i++) {
+            Document doc = new Document();
+            doc.setDocNumber("REP-" + i);
+            doc.setDocDate(dates[i]);
+            doc.setDetails(List.of(
+                    new DocumentDetail(null, doc, "A", BigDecimal.valueOf(10 + i)),
+                    new DocumentDetail(null, doc, "B", BigDecimal.ONE)));
+            ids.add(documentService.addDocument(doc).getId());
+        }
+    }
+
+    @Test
+    void testRollupsMatchFullRecomputation() {
+        assertThat(reportService.refreshRollups()).isEqualTo(ids.size());
+        assertThat(rollupDaily()).isEqualTo(fullDaily());
+
+        // строки, перенос даты в другой месяц и удаление документа
+        Document first = documentRepository.findWithDetailsById(ids.get(0)).orElseThrow();
+        Long detailId = first.getDetails().stream().filter(d -> "A".equals(d.getItemName())).findFirst().orElseThrow().getId();
+        documentService.updateDetail(ids.get(0), detailId, new DocumentDetail(null, null, "A2", BigDecimal.valueOf(100)));
+        documentService.addDetail(ids.get(1), new DocumentDetail(null, null, "C", BigDecimal.valueOf(5)));
+
+        Document moved = new Document();
+        moved.setDocNumber("REP-2");
+        moved.setDocDate(LocalDateTime.of(2026, 4, 2, 8, 0));
+        moved.setNotes("moved");
+        moved.setDetails(null);
+        documentService.updateDocument(ids.get(2), moved);
+
+        documentService.deleteDocument(ids.get(3));
+
+        reportService.refreshRollups();
+        assertThat(rollupDaily()).isEqualTo(fullDaily());
+        assertThat(count("document_rollup_queue")).isZero();
+
+        List<DocumentTotalsRow> months = reportService.findTotals(ReportGranularity.MONTH,
+                LocalDate.of(2026, 3, 20), LocalDate.of(2026, 4, 30));
+        assertThat(months).hasSize(2);
+        assertThat(months.get(0).period()).isEqualTo(LocalDate.of(2026, 3, 1));
+        assertThat(months.get(0).documentCount()).isEqualTo(2);
+        assertThat(months.get(0).totalSum()).isEqualByComparingTo("118");
+        assertThat(months.get(0).lineCount()).isEqualTo(5);
+        assertThat(months.get(0).averageLineCount()).isEqualByComparingTo("2.50");
+        assertThat(months.get(1).documentCount()).isEqualTo(1);
+        assertThat(months.get(1).totalSum()).isEqualByComparingTo("13");
+    }
+
+    @Test
+    void testEmptyPeriodsAreRemoved() {
+        reportService.refreshRollups();
+        ids.forEach(documentService::deleteDocument);
+
+        assertThat(reportService.refreshRollups()).isEqualTo(ids.size());
+        assertThat(count("document_rollup_daily")).isZero();
+        assertThat(count("document_rollup_monthly")).isZero();
+        assertThat(count("document_rollup_state")).isZero();
+    }
+
+    @Test
+    void testRefreshIsSkippedWhileAnotherInstanceFolds() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // другой экземпляр посреди пачки держит строку-замок
+            Future<?> otherInstance = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.queryForList("SELECT lock_id FROM document_rollup_lock FOR UPDATE", Integer.class);
+                locked.countDown();
+                await(release);
+            }));
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(reportService.refreshRollups()).isZero();
+            assertThat(count("document_rollup_queue")).isEqualTo(ids.size());
+            assertThat(count("document_rollup_state")).isZero();
+
+            release.countDown();
+            otherInstance.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertThat(reportService.refreshRollups()).isEqualTo(ids.size());
+        assertThat(rollupDaily()).isEqualTo(fullDaily());
+    }
+
+    @Test
+    void testConcurrentRefreshesDoNotDoubleApply() throws Exception {
+        // второй экземпляр приложения: свой флаг запуска, общие витрины и очередь
+        DocumentReportService otherInstance =
+                new DocumentReportServiceImpl(jdbcTemplate, namedJdbcTemplate, transactionManager, reportProperties);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 10; round++) {
+                for (Long id : ids) {
+                    documentService.addDetail(id, new DocumentDetail(null, null, "R" + round, BigDecimal.valueOf(round + 1)));
+                }
+                CountDownLatch start = new CountDownLatch(1);
+                Future<Integer> first = executor.submit(() -> {
+                    await(start);
+                    return reportService.refreshRollups();
+                });
+                Future<Integer> second = executor.submit(() -> {
+                    await(start);
+                    return otherInstance.refreshRollups();
+                });
+                start.countDown();
+                first.get(30, TimeUnit.SECONDS);
+                second.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // отметки, пропущенные обоими проходами последнего раунда
+        reportService.refreshRollups();
+
+        assertThat(count("document_rollup_queue")).isZero();
+        assertThat(rollupDaily()).isEqualTo(fullDaily());
+    }
+
+    @Test
+    void testInvalidPeriodIsRejected() {
+        assertThatThrownBy(() -> reportService.findTotals(ReportGranularity.DAY,
+                LocalDate.of(2026, 4, 1), LocalDate.of(2026, 3, 1)))
+                .isInstanceOf(CustomValidationException.class);
+    }
+
+    private List<Map<String, Object>> fullDaily() {
+        return normalize(jdbcTemplate.queryForList(FULL_DAILY_SQL));
+    }
+
+    private List<Map<String, Object>> rollupDaily() {
+        return normalize(jdbcTemplate.queryForList(ROLLUP_DAILY_SQL));
+    }
+
+    private static List<Map<String, Object>> normalize(List<Map<String, Object>> rows) {
+        return rows.stream()
+                .map(row -> Map.<String, Object>of(
+                        "day", row.get("REPORT_DAY").toString(),
+                        "documents", ((Number) row.get("DOCUMENT_COUNT")).longValue(),
+                        "sum", new BigDecimal(row.get("TOTAL_SUM").toString()).stripTrailingZeros(),
+                        "lines", ((Number) row.get("LINE_COUNT")).longValue()))
+                .toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.masterdetail.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.masterdetail.dto.DetailRow;
+import org.example.masterdetail.model.CacheRegions;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.masterdetail.TestDocuments.newDocument;
+
+/**
+ * Кэш второго уровня проверяется без общей транзакции теста: каждая операция сервиса
+ * фиксируется, и следующее чтение идёт через новую сессию.
+ */
+@SpringBootTest
+class DocumentSecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private DocumentServiceImpl documentService;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private boolean statisticsEnabled;
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void restoreStatistics() {
+        statistics.setStatisticsEnabled(statisticsEnabled);
+    }
+
+    @Test
+    void testEditFormReadIsServedFromCache() {
+        Document doc = documentService.addDocument(newDocument("L2-READ", BigDecimal.ONE, BigDecimal.TEN));
+        documentService.findWithDetailsById(doc.getId());
+        statistics.clear();
+
+        Document cached = documentService.findWithDetailsById(doc.getId());
+
+        assertThat(cached.getDetails()).hasSize(2);
+        assertThat(cached.getTotalSum()).isEqualByComparingTo("11");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(CacheRegions.DOCUMENTS).getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics(CacheRegions.DOCUMENT_DETAILS).getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testDetailMutationsNeverServeStaleTotals() {
+        Document doc = documentService.addDocument(newDocument("L2-MUTATE", BigDecimal.ONE, BigDecimal.TEN));
+        Long docId = doc.getId();
+        Long firstDetailId = doc.getDetails().iterator().next().getId();
+        documentService.findWithDetailsById(docId);
+
+        DocumentDetail added = documentService.addDetail(docId, new DocumentDetail(null, null, "Added", BigDecimal.valueOf(5)));
+        Document afterAdd = documentService.findWithDetailsById(docId);
+        assertThat(afterAdd.getTotalSum()).isEqualByComparingTo("16");
+        assertThat(afterAdd.getDetails()).extracting(DocumentDetail::getId).contains(added.getId());
+
+        documentService.findDetailRow(docId, firstDetailId);
+        documentService.updateDetail(docId, firstDetailId, new DocumentDetail(null, null, "Changed", BigDecimal.valueOf(100)));
+        Document afterUpdate = documentService.findWithDetailsById(docId);
+        assertThat(afterUpdate.getTotalSum()).isEqualByComparingTo("115");
+        DetailRow row = documentService.findDetailRow(docId, firstDetailId);
+        assertThat(row.itemName()).isEqualTo("Changed");
+        assertThat(row.itemSum()).isEqualByComparingTo("100");
+
+        documentService.removeDetail(docId, firstDetailId);
+        Document afterRemove = documentService.findWithDetailsById(docId);
+        assertThat(afterRemove.getTotalSum()).isEqualByComparingTo("15");
+        assertThat(afterRemove.getDetails()).extracting(DocumentDetail::getId).doesNotContain(firstDetailId).hasSize(2);
+    }
+
+    @Test
+    void testMutationEvictsOnlyAffectedDocument() {
+        Document first = documentService.addDocument(newDocument("L2-FIRST", BigDecimal.ONE));
+        Document second = documentService.addDocument(newDocument("L2-SECOND", BigDecimal.ONE));
+        documentService.findWithDetailsById(first.getId());
+        documentService.findWithDetailsById(second.getId());
+
+        documentService.addDetail(first.getId(), new DocumentDetail(null, null, "Added", BigDecimal.ONE));
+        statistics.clear();
+        documentService.findWithDetailsById(second.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void testDocNumberQueryCacheSeesNewDocuments() {
+        assertThat(documentRepository.existsByDocNumber("L2-QUERY")).isFalse();
+        statistics.clear();
+        assertThat(documentRepository.existsByDocNumber("L2-QUERY")).isFalse();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        documentService.addDocument(newDocument("L2-QUERY"));
+
+        assertThat(documentRepository.existsByDocNumber("L2-QUERY")).isTrue();
+    }
+
+    @Test
+    void testCacheHitsAndMissesArePublishedAsMetrics() {
+        Document doc = documentService.addDocument(newDocument("L2-METRICS", BigDecimal.ONE));
+        documentService.findWithDetailsById(doc.getId());
+        documentService.findWithDetailsById(doc.getId());
+
+        FunctionCounter hits = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", CacheRegions.DOCUMENTS, "result", "hit")
+                .functionCounter();
+        FunctionCounter misses = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", CacheRegions.DOCUMENTS, "result", "miss")
+                .functionCounter();
+        assertThat(hits).isNotNull();
+        assertThat(misses).isNotNull();
+        assertThat(hits.count()).isPositive();
+    }
+}
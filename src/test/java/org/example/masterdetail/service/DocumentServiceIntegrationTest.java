@@ -1,35 +1,81 @@
 package org.example.masterdetail.service;
 
+import org.example.masterdetail.dto.CursorPage;
+import org.example.masterdetail.dto.DetailBatchResult;
+import org.example.masterdetail.dto.DetailCursor;
+import org.example.masterdetail.dto.DetailOperation;
+import org.example.masterdetail.dto.DetailOperationResult;
+import org.example.masterdetail.dto.DetailPageRequest;
+import org.example.masterdetail.dto.DetailRow;
+import org.example.masterdetail.dto.DocumentCursor;
+import org.example.masterdetail.dto.DocumentListPage;
+import org.example.masterdetail.dto.DocumentPageRequest;
+import org.example.masterdetail.dto.DocumentSearchCriteria;
+import org.example.masterdetail.dto.DocumentSummary;
+import org.example.masterdetail.enums.DetailFetchStrategy;
+import org.example.masterdetail.enums.DetailOperationType;
+import org.example.masterdetail.enums.DetailSortKey;
+import org.example.masterdetail.enums.DocumentSortKey;
+import org.example.masterdetail.errors.DocumentConflictException;
 import org.example.masterdetail.model.Document;
 import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.repository.DocumentDetailRepository;
 import org.example.masterdetail.repository.DocumentRepository;
 import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
 class DocumentServiceIntegrationTest {
 
+    private static final Logger log = LoggerFactory.getLogger(DocumentServiceIntegrationTest.class);
+
     @Autowired
     private DocumentServiceImpl documentService;
 
     @Autowired
     private DocumentRepository documentRepository;
 
+    @Autowired
+    private DocumentDetailRepository documentDetailRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private boolean statisticsEnabled;
+
     @BeforeEach
     void setUp() {
         documentRepository.deleteAll();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+    }
+
+    @AfterEach
+    void restoreStatistics() {
+        // контекст Spring общий для тестовых классов: включённость статистики возвращается как была
+        statistics.setStatisticsEnabled(statisticsEnabled);
     }
 
     @Test
@@ -56,15 +102,135 @@ class DocumentServiceIntegrationTest {
         assertThat(updated.getDocNumber()).isEqualTo("DOC-UPDATED");
     }
 
+    @Test
+    void testUpdateDocumentWithDetailsRejectsStaleVersion() {
+        Document doc = new Document();
+        doc.setDocNumber("DOC-STALE-DETAILS");
+        doc.setDocDate(LocalDateTime.now());
+        doc.setDetails(new ArrayList<>(List.of(new DocumentDetail(null, doc, "Item", BigDecimal.ONE))));
+        doc = documentService.addDocument(doc);
+        entityManager.flush();
+        Long formVersion = doc.getVersion();
+        Long detailId = doc.getDetails().iterator().next().getId();
+
+        Document firstEditor = new Document();
+        firstEditor.setDocNumber("DOC-STALE-DETAILS");
+        firstEditor.setVersion(formVersion);
+        firstEditor.setDetails(new ArrayList<>(List.of(new DocumentDetail(detailId, null, "Item", BigDecimal.TEN))));
+        documentService.updateDocument(doc.getId(), firstEditor);
+        entityManager.flush();
+
+        // вторая вкладка прочитала форму до первого сохранения
+        Document secondEditor = new Document();
+        secondEditor.setDocNumber("DOC-STALE-DETAILS");
+        secondEditor.setVersion(formVersion);
+        secondEditor.setDetails(new ArrayList<>());
+        Long docId = doc.getId();
+        assertThatThrownBy(() -> documentService.updateDocument(docId, secondEditor))
+                .isInstanceOf(DocumentConflictException.class);
+
+        entityManager.flush();
+        entityManager.clear();
+        Document reloaded = documentRepository.findWithDetailsById(docId).orElseThrow();
+        assertThat(reloaded.getDetails()).hasSize(1);
+        assertThat(reloaded.getTotalSum()).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void testUpdateDocumentWritesOnlyChangedDetails() {
+        Document doc = new Document();
+        doc.setDocNumber("DOC-DIFF");
+        doc.setDocDate(LocalDateTime.now());
+        List<DocumentDetail> details = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            details.add(new DocumentDetail(null, doc, "Item" + i, BigDecimal.ONE));
+        }
+        doc.setDetails(details);
+        doc = documentService.addDocument(doc);
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+
+        Document update = new Document();
+        update.setDocNumber("DOC-DIFF");
+        update.setNotes("one line changed");
+        List<DocumentDetail> submitted = new ArrayList<>();
+        for (DocumentDetail detail : doc.getDetails()) {
+            submitted.add(new DocumentDetail(detail.getId(), null, detail.getItemName(), detail.getItemSum()));
+        }
+        submitted.get(500).setItemSum(BigDecimal.TEN);
+        update.setDetails(submitted);
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        documentService.updateDocument(doc.getId(), update);
+        entityManager.flush();
+
+        // проверка номера, документ, его спецификации, UPDATE одной строки и UPDATE документа
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+        assertThat(statistics.getEntityStatistics(DocumentDetail.class.getName()).getUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        entityManager.clear();
+        assertThat(documentRepository.findById(doc.getId()).get().getTotalSum()).isEqualByComparingTo("1009");
+    }
+
+    @Test
+    void testUpdateDocumentSyncsDetailsByDiff() {
+        Document doc = new Document();
+        doc.setDocNumber("DOC-SYNC");
+        doc.setDocDate(LocalDateTime.now());
+        doc.setDetails(List.of(
+                new DocumentDetail(null, doc, "Keep", BigDecimal.ONE),
+                new DocumentDetail(null, doc, "Change", BigDecimal.valueOf(2)),
+                new DocumentDetail(null, doc, "Drop", BigDecimal.valueOf(4))));
+        doc = documentService.addDocument(doc);
+        entityManager.flush();
+        entityManager.clear();
+        List<Long> ids = doc.getDetails().stream().map(DocumentDetail::getId).toList();
+
+        Document update = new Document();
+        update.setDocNumber("DOC-SYNC");
+        update.setDetails(List.of(
+                new DocumentDetail(ids.get(0), null, "Keep", BigDecimal.ONE),
+                new DocumentDetail(ids.get(1), null, "Changed", BigDecimal.valueOf(3)),
+                new DocumentDetail(null, null, "New", BigDecimal.valueOf(10))));
+        documentService.updateDocument(doc.getId(), update);
+        entityManager.flush();
+        entityManager.clear();
+
+        Document found = documentRepository.findWithDetailsById(doc.getId()).get();
+        assertThat(found.getDetails()).extracting(DocumentDetail::getItemName).containsExactly("Keep", "Changed", "New");
+        assertThat(found.getDetails()).extracting(DocumentDetail::getId).startsWith(ids.get(0), ids.get(1));
+        assertThat(found.getTotalSum()).isEqualByComparingTo("14");
+    }
+
     @Test
     void testDeleteDocument() {
         Document doc = new Document();
         doc.setDocNumber("DOC-102");
         doc.setDocDate(LocalDateTime.now());
+        List<DocumentDetail> details = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            details.add(new DocumentDetail(null, doc, "Item" + i, BigDecimal.ONE));
+        }
+        doc.setDetails(details);
         doc = documentService.addDocument(doc);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
 
         documentService.deleteDocument(doc.getId());
+
+        // один DELETE документа, спецификации удаляет каскад БД
+        assertThat(statistics.getEntityStatistics(Document.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(DocumentDetail.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(DocumentDetail.class.getName()).getDeleteCount()).isZero();
         assertThat(documentRepository.count()).isEqualTo(0);
+        assertThat(documentDetailRepository.count()).isEqualTo(0);
+        assertThat(documentRepository.existsByDocNumber("DOC-102")).isFalse();
     }
 
     @Test
@@ -82,7 +248,7 @@ class DocumentServiceIntegrationTest {
 
         Document found = documentRepository.findWithDetailsById(doc.getId()).get();
         assertThat(found.getDetails()).hasSize(1);
-        assertThat(found.getTotalSum()).isEqualTo(BigDecimal.valueOf(100));
+        assertThat(found.getTotalSum()).isEqualByComparingTo(BigDecimal.valueOf(100));
     }
 
     @Test
@@ -100,12 +266,12 @@ class DocumentServiceIntegrationTest {
         doc.setDetails(details);
 
         doc = documentService.addDocument(doc);
-        DocumentDetail savedDetail = doc.getDetails().get(0);
+        DocumentDetail savedDetail = doc.getDetails().iterator().next();
 
         documentService.removeDetail(doc.getId(), savedDetail.getId());
         Document found = documentRepository.findById(doc.getId()).get();
         assertThat(found.getDetails()).isEmpty();
-        assertThat(found.getTotalSum()).isEqualTo(BigDecimal.ZERO);
+        assertThat(found.getTotalSum()).isEqualByComparingTo(BigDecimal.ZERO);
     }
 
     @Test
@@ -123,7 +289,7 @@ class DocumentServiceIntegrationTest {
         doc.setDetails(details);
 
         doc = documentService.addDocument(doc);
-        DocumentDetail existing = doc.getDetails().get(0);
+        DocumentDetail existing = doc.getDetails().iterator().next();
 
         DocumentDetail newDet = new DocumentDetail();
         newDet.setItemName("Item C Updated");
@@ -133,8 +299,155 @@ class DocumentServiceIntegrationTest {
 
         Document found = documentRepository.findById(doc.getId()).get();
         assertThat(found.getDetails()).hasSize(1);
-        assertThat(found.getTotalSum()).isEqualTo(BigDecimal.valueOf(500));
-        assertThat(found.getDetails().get(0).getItemName()).isEqualTo("Item C Updated");
+        assertThat(found.getTotalSum()).isEqualByComparingTo(BigDecimal.valueOf(500));
+        assertThat(found.getDetails().iterator().next().getItemName()).isEqualTo("Item C Updated");
+    }
+
+    @Test
+    void testDetailLookupAndRemovalAreTargeted() {
+        Document doc = new Document();
+        doc.setDocNumber("DOC-TARGETED");
+        doc.setDocDate(LocalDateTime.now());
+        List<DocumentDetail> details = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            details.add(new DocumentDetail(null, doc, "Item" + i, BigDecimal.ONE));
+        }
+        doc.setDetails(details);
+        doc = documentService.addDocument(doc);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<Long> ids = documentRepository.findWithDetailsById(doc.getId()).get().getDetails().stream()
+                .map(DocumentDetail::getId).toList();
+        entityManager.clear();
+        statistics.clear();
+        DocumentDetail last = documentService.findDetail(doc.getId(), ids.get(99));
+
+        // строка ищется по ключу, коллекция документа не загружается
+        assertThat(last.getItemName()).isEqualTo("Item99");
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(Document.class.getName()).getLoadCount()).isZero();
+
+        Document loaded = documentRepository.findWithDetailsById(doc.getId()).get();
+        statistics.clear();
+        DocumentDetail middle = documentService.findDetail(doc.getId(), ids.get(50));
+        loaded.getDetails().remove(middle);
+        entityManager.flush();
+
+        // из множества удаляется одна строка, коллекция не пересоздаётся
+        assertThat(statistics.getEntityDeleteCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        assertThat(statistics.getCollectionRemoveCount()).isZero();
+        assertThat(ids).isSorted();
+    }
+
+    @Test
+    void testDetailMutationsTouchSingleRow() {
+        Document doc = new Document();
+        doc.setDocNumber("DOC-SINGLE-ROW");
+        doc.setDocDate(LocalDateTime.now());
+        List<DocumentDetail> details = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            details.add(new DocumentDetail(null, doc, "Item" + i, BigDecimal.ONE));
+        }
+        doc.setDetails(details);
+        doc = documentService.addDocument(doc);
+        Long detailId = doc.getDetails().iterator().next().getId();
+        entityManager.flush();
+        entityManager.clear();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        DocumentDetail changed = new DocumentDetail();
+        changed.setItemName("Item0 changed");
+        changed.setItemSum(BigDecimal.TEN);
+        documentService.updateDetail(doc.getId(), detailId, changed);
+        documentService.removeDetail(doc.getId(), detailId);
+        DocumentDetail added = new DocumentDetail();
+        added.setItemName("Item new");
+        added.setItemSum(BigDecimal.valueOf(5));
+        documentService.addDetail(doc.getId(), added);
+
+        // ни одна операция не загружает документ и его коллекцию деталей,
+        // читается только сама строка спецификации — проекцией по document_id и detail_id
+        assertThat(statistics.getEntityStatistics(Document.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(DocumentDetail.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+
+        Document found = documentRepository.findWithDetailsById(doc.getId()).get();
+        assertThat(found.getDetails()).hasSize(100);
+        assertThat(found.getTotalSum()).isEqualByComparingTo(BigDecimal.valueOf(104));
+    }
+
+    @Test
+    void testDetailBatchAppliesAllOperationsAtOnce() {
+        Document doc = new Document();
+        doc.setDocNumber("DOC-BATCH");
+        doc.setDocDate(LocalDateTime.now());
+        doc.setDetails(List.of(
+                new DocumentDetail(null, doc, "A", BigDecimal.valueOf(10)),
+                new DocumentDetail(null, doc, "B", BigDecimal.valueOf(20)),
+                new DocumentDetail(null, doc, "C", BigDecimal.valueOf(30))));
+        doc = documentService.addDocument(doc);
+        List<Long> ids = doc.getDetails().stream().map(DocumentDetail::getId).toList();
+        entityManager.flush();
+        entityManager.clear();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<DetailOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            operations.add(new DetailOperation(DetailOperationType.ADD, null, "New" + i, BigDecimal.ONE));
+        }
+        operations.add(new DetailOperation(DetailOperationType.UPDATE, ids.get(0), "A2", BigDecimal.valueOf(15)));
+        operations.add(new DetailOperation(DetailOperationType.DELETE, ids.get(1), null, null));
+        DetailBatchResult result = documentService.applyDetailOperations(doc.getId(), operations);
+
+        // ни документ, ни его коллекция не загружаются
+        assertThat(statistics.getEntityStatistics(Document.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(result.applied()).isTrue();
+        assertThat(result.totalSum()).isEqualByComparingTo("50");
+        assertThat(result.results()).hasSize(7).allMatch(DetailOperationResult::applied)
+                .allMatch(r -> r.detailId() != null);
+
+        Document found = documentRepository.findWithDetailsById(doc.getId()).orElseThrow();
+        assertThat(found.getDetails()).hasSize(7);
+        assertThat(found.getTotalSum()).isEqualByComparingTo("50");
+        assertThat(found.getDetails()).extracting(DocumentDetail::getItemName).contains("A2", "New4").doesNotContain("B");
+    }
+
+    @Test
+    void testDetailBatchIsRejectedAsAWhole() {
+        Document doc = new Document();
+        doc.setDocNumber("DOC-BATCH-REJECTED");
+        doc.setDocDate(LocalDateTime.now());
+        doc.setDetails(List.of(new DocumentDetail(null, doc, "A", BigDecimal.TEN)));
+        doc = documentService.addDocument(doc);
+        Long detailId = doc.getDetails().iterator().next().getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        DetailBatchResult result = documentService.applyDetailOperations(doc.getId(), List.of(
+                new DetailOperation(DetailOperationType.ADD, null, "B", BigDecimal.ONE),
+                new DetailOperation(DetailOperationType.UPDATE, detailId, "A2", BigDecimal.ONE),
+                new DetailOperation(DetailOperationType.DELETE, detailId, null, null),
+                new DetailOperation(DetailOperationType.DELETE, -1L, null, null),
+                new DetailOperation(DetailOperationType.ADD, null, " ", BigDecimal.ONE)));
+
+        assertThat(result.applied()).isFalse();
+        assertThat(result.results()).noneMatch(DetailOperationResult::applied);
+        assertThat(result.results()).extracting(DetailOperationResult::error)
+                .containsExactly(null, null,
+                        "Detail is referenced more than once: " + detailId,
+                        "Detail not found: -1",
+                        "Item name cannot be null");
+        Document found = documentRepository.findWithDetailsById(doc.getId()).orElseThrow();
+        assertThat(found.getDetails()).extracting(DocumentDetail::getItemName).containsExactly("A");
+        assertThat(found.getTotalSum()).isEqualByComparingTo(BigDecimal.TEN);
     }
 
     @Test
@@ -152,4 +465,182 @@ class DocumentServiceIntegrationTest {
         Document loaded = documentRepository.findById(doc.getId()).get();
         assertThat(loaded.getDetails()).hasSize(2);
     }
+
+    @Test
+    void testNoNPlusOneForEachDetailFetchStrategy() {
+        int documents = 10;
+        int detailsPerDocument = 5;
+        for (int i = 0; i < documents; i++) {
+            Document doc = new Document();
+            doc.setDocNumber("DOC-FETCH-" + i);
+            doc.setDocDate(LocalDateTime.now());
+            List<DocumentDetail> details = new ArrayList<>();
+            for (int j = 0; j < detailsPerDocument; j++) {
+                details.add(new DocumentDetail(null, doc, "Item" + j, BigDecimal.valueOf(j)));
+            }
+            doc.setDetails(details);
+            documentService.addDocument(doc);
+        }
+        entityManager.flush();
+        statistics.setStatisticsEnabled(true);
+
+        for (DetailFetchStrategy strategy : DetailFetchStrategy.values()) {
+            entityManager.clear();
+            statistics.clear();
+            long started = System.nanoTime();
+            CursorPage<Document> page = documentService.findDocumentPage(
+                    DocumentPageRequest.first(DocumentSortKey.ID, Sort.Direction.ASC, documents), strategy);
+            int detailCount = page.content().stream().mapToInt(d -> d.getDetails().size()).sum();
+            long elapsedMicros = (System.nanoTime() - started) / 1_000;
+
+            // JOIN_FETCH возвращает по строке на деталь, TWO_PHASE — по строке на заголовок и на деталь
+            long rows = strategy == DetailFetchStrategy.JOIN_FETCH
+                    ? page.content().size() + page.content().stream().mapToLong(d -> Math.max(1, d.getDetails().size())).sum()
+                    : page.content().size() + detailCount;
+            log.info("{}: statements={}, rows={}, entities={}, collections={}, time={} us",
+                    strategy, statistics.getPrepareStatementCount(), rows,
+                    statistics.getEntityLoadCount(), statistics.getCollectionFetchCount(), elapsedMicros);
+
+            assertThat(page.content()).hasSize(documents);
+            assertThat(detailCount).isEqualTo(documents * detailsPerDocument);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void testDocumentPageWalksForwardAndBackward() {
+        for (int i = 0; i < 5; i++) {
+            Document doc = new Document();
+            doc.setDocNumber("DOC-PAGE-" + i);
+            doc.setDocDate(LocalDateTime.of(2025, 1, 1, 12, 0).plusDays(i % 2));
+            documentService.addDocument(doc);
+        }
+
+        DocumentPageRequest first = DocumentPageRequest.first(DocumentSortKey.DOC_DATE, Sort.Direction.DESC, 2);
+        CursorPage<Document> page1 = documentService.findDocumentPage(first);
+        assertThat(page1.content()).hasSize(2);
+        assertThat(page1.hasPrevious()).isFalse();
+        assertThat(page1.hasNext()).isTrue();
+
+        CursorPage<Document> page2 = documentService.findDocumentPage(next(first, page1.nextCursor()));
+        CursorPage<Document> page3 = documentService.findDocumentPage(next(first, page2.nextCursor()));
+        assertThat(page3.content()).hasSize(1);
+        assertThat(page3.hasNext()).isFalse();
+
+        List<Document> all = new ArrayList<>(page1.content());
+        all.addAll(page2.content());
+        all.addAll(page3.content());
+        assertThat(all).extracting(Document::getDocNumber).doesNotHaveDuplicates().hasSize(5);
+        assertThat(all).extracting(Document::getDocDate).isSortedAccordingTo((a, b) -> b.compareTo(a));
+
+        CursorPage<Document> back = documentService.findDocumentPage(next(first, page3.previousCursor()));
+        assertThat(back.content()).extracting(Document::getId)
+                .containsExactlyElementsOf(page2.content().stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void testDetailPageWalksEachSortKey() {
+        Document doc = new Document();
+        doc.setDocNumber("DOC-DETAIL-PAGES");
+        doc.setDocDate(LocalDateTime.now());
+        List<DocumentDetail> details = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // повторяющиеся наименования и суммы: порядок внутри равных ключей задаёт detail_id
+            details.add(new DocumentDetail(null, doc, "Item|" + (i % 3), BigDecimal.valueOf(i % 2)));
+        }
+        doc.setDetails(details);
+        doc = documentService.addDocument(doc);
+        entityManager.flush();
+        entityManager.clear();
+
+        for (DetailSortKey sortKey : DetailSortKey.values()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                List<Long> forward = new ArrayList<>();
+                CursorPage<DetailRow> page = documentService.findDetailPage(
+                        DetailPageRequest.first(doc.getId(), sortKey, direction, 3));
+                forward.addAll(page.content().stream().map(DetailRow::id).toList());
+                while (page.hasNext()) {
+                    page = documentService.findDetailPage(new DetailPageRequest(doc.getId(), sortKey, direction, 3,
+                            DetailCursor.decode(page.nextCursor(), sortKey, direction)));
+                    forward.addAll(page.content().stream().map(DetailRow::id).toList());
+                }
+                assertThat(forward).as("%s %s", sortKey, direction).hasSize(7).doesNotHaveDuplicates();
+
+                // назад от последней страницы — та же последовательность
+                List<Long> backward = new ArrayList<>(page.content().stream().map(DetailRow::id).toList());
+                while (page.hasPrevious()) {
+                    page = documentService.findDetailPage(new DetailPageRequest(doc.getId(), sortKey, direction, 3,
+                            DetailCursor.decode(page.previousCursor(), sortKey, direction)));
+                    backward.addAll(0, page.content().stream().map(DetailRow::id).toList());
+                }
+                assertThat(backward).isEqualTo(forward);
+            }
+        }
+    }
+
+    @Test
+    void testSearchDocuments() {
+        searchable("INV-2025-001", "Urgent delivery to Moscow", LocalDateTime.of(2025, 1, 10, 9, 0), "Steel pipe", "100.00");
+        searchable("INV-2025-002", "Regular order", LocalDateTime.of(2025, 2, 10, 9, 0), "Copper wire", "250.00");
+        searchable("INV_2025-003", "urgent, paid 50%", LocalDateTime.of(2025, 3, 10, 9, 0), "Steel beam", "400.00");
+        searchable("ACT-2025-001", null, LocalDateTime.of(2025, 3, 31, 23, 59), "Service", "50.00");
+
+        assertThat(search(new DocumentSearchCriteria("INV-", null, null, null, null, null, null)))
+                .containsExactly("INV-2025-001", "INV-2025-002");
+        // '_' и '%' во вводе — обычные символы, а не шаблоны LIKE
+        assertThat(search(new DocumentSearchCriteria("INV_", null, null, null, null, null, null)))
+                .containsExactly("INV_2025-003");
+        assertThat(search(new DocumentSearchCriteria(null, "urgent", null, null, null, null, null)))
+                .containsExactly("INV-2025-001", "INV_2025-003");
+        assertThat(search(new DocumentSearchCriteria(null, null, "STEEL", null, null, null, null)))
+                .containsExactly("INV-2025-001", "INV_2025-003");
+        assertThat(search(new DocumentSearchCriteria(null, null, null,
+                LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 31), null, null)))
+                .containsExactly("INV-2025-002", "INV_2025-003", "ACT-2025-001");
+        assertThat(search(new DocumentSearchCriteria(null, null, "steel", null, null, new BigDecimal("200"), null)))
+                .containsExactly("INV_2025-003");
+        assertThat(search(new DocumentSearchCriteria("  ", "", null, null, null, null, new BigDecimal("100"))))
+                .containsExactly("INV-2025-001", "ACT-2025-001");
+    }
+
+    @Test
+    void testSearchResultsArePaged() {
+        for (int i = 0; i < 5; i++) {
+            searchable("FIND-" + i, null, LocalDateTime.of(2025, 1, 1, 12, 0).plusDays(i), "Bolt " + i, "1.00");
+            searchable("SKIP-" + i, null, LocalDateTime.of(2025, 1, 1, 12, 0).plusDays(i), "Nut " + i, "1.00");
+        }
+        DocumentPageRequest first = new DocumentPageRequest(DocumentSortKey.DOC_DATE, Sort.Direction.ASC, 2, null,
+                new DocumentSearchCriteria(null, null, "bolt", null, null, null, null));
+
+        List<String> found = new ArrayList<>();
+        DocumentListPage page = documentService.findDocumentListPage(first);
+        found.addAll(page.page().content().stream().map(DocumentSummary::docNumber).toList());
+        while (page.page().hasNext()) {
+            page = documentService.findDocumentListPage(next(first, page.page().nextCursor()));
+            found.addAll(page.page().content().stream().map(DocumentSummary::docNumber).toList());
+        }
+
+        assertThat(found).containsExactly("FIND-0", "FIND-1", "FIND-2", "FIND-3", "FIND-4");
+    }
+
+    private void searchable(String docNumber, String notes, LocalDateTime docDate, String itemName, String itemSum) {
+        Document doc = new Document();
+        doc.setDocNumber(docNumber);
+        doc.setNotes(notes);
+        doc.setDocDate(docDate);
+        doc.setDetails(List.of(new DocumentDetail(null, doc, itemName, new BigDecimal(itemSum))));
+        documentService.addDocument(doc);
+    }
+
+    private List<String> search(DocumentSearchCriteria criteria) {
+        DocumentPageRequest request = new DocumentPageRequest(DocumentSortKey.DOC_DATE, Sort.Direction.ASC, 20, null, criteria);
+        return documentService.findDocumentListPage(request).page().content().stream()
+                .map(DocumentSummary::docNumber)
+                .toList();
+    }
+
+    private DocumentPageRequest next(DocumentPageRequest request, String token) {
+        return new DocumentPageRequest(request.sortKey(), request.direction(), request.size(),
+                DocumentCursor.decode(token, request.sortKey(), request.direction()), request.filter());
+    }
 }
@@ -0,0 +1,144 @@
+package org.example.masterdetail.service;
+
+import org.example.masterdetail.config.ErrorLogProperties;
+import org.example.masterdetail.enums.ErrorLogOverflowPolicy;
+import org.example.masterdetail.model.ErrorLog;
+import org.example.masterdetail.repository.ErrorLogRepository;
+import org.example.masterdetail.service.Impl.ErrorLogServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ErrorLogServiceIntegrationTest {
+
+    @Autowired
+    private ErrorLogServiceImpl errorLogService;
+
+    @Autowired
+    private ErrorLogRepository errorLogRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        errorLogService.flush();
+        errorLogRepository.deleteAll();
+    }
+
+    @Test
+    void testEntriesAreWrittenInBatches() {
+        for (int i = 0; i < 450; i++) {
+            errorLogService.logError("Тип", "Сообщение " + i);
+        }
+        errorLogService.flush();
+
+        List<ErrorLog> logs = errorLogRepository.findAll();
+        assertThat(logs).hasSize(450);
+        assertThat(logs).allSatisfy(log -> {
+            assertThat(log.getErrorType()).isEqualTo("Тип");
+            assertThat(log.getMessage()).startsWith("Сообщение ");
+        });
+    }
+
+    @Test
+    void testDropPolicyCountsRejectedEntries() {
+        ErrorLogServiceImpl service = newService(5, ErrorLogOverflowPolicy.DROP);
+        for (int i = 0; i < 12; i++) {
+            service.logError("Тип", "Сообщение " + i);
+        }
+
+        assertThat(service.getAcceptedCount()).isEqualTo(5);
+        assertThat(service.getDroppedCount()).isEqualTo(7);
+        service.flush();
+        assertThat(errorLogRepository.count()).isEqualTo(5);
+        assertThat(service.getWrittenCount()).isEqualTo(5);
+    }
+
+    @Test
+    void testSamplePolicyThinsEntriesWhenQueueIsHalfFull() {
+        ErrorLogServiceImpl service = newService(100, ErrorLogOverflowPolicy.SAMPLE);
+        for (int i = 0; i < 150; i++) {
+            service.logError("Тип", "Сообщение " + i);
+        }
+
+        // 50 записей до половины очереди, затем каждая 10-я из оставшихся 100
+        assertThat(service.getAcceptedCount()).isEqualTo(60);
+        assertThat(service.getDroppedCount()).isEqualTo(90);
+    }
+
+    @Test
+    void testBlockPolicyWaitsThenDrops() {
+        ErrorLogProperties properties = properties(1, ErrorLogOverflowPolicy.BLOCK);
+        properties.setBlockTimeout(Duration.ofMillis(50));
+        ErrorLogServiceImpl service = new ErrorLogServiceImpl(jdbcTemplate, transactionManager, properties, new StandardEnvironment());
+
+        service.logError("Тип", "первое");
+        long started = System.nanoTime();
+        service.logError("Тип", "второе");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+        assertThat(service.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testStopFlushesQueuedEntries() {
+        ErrorLogProperties properties = properties(1000, ErrorLogOverflowPolicy.DROP);
+        properties.setFlushInterval(Duration.ofSeconds(30));
+        properties.setBatchSize(1000);
+        ErrorLogServiceImpl service = new ErrorLogServiceImpl(jdbcTemplate, transactionManager, properties, new StandardEnvironment());
+        service.start();
+        for (int i = 0; i < 300; i++) {
+            service.logError("Тип", null);
+        }
+
+        service.stop();
+
+        assertThat(service.isRunning()).isFalse();
+        assertThat(errorLogRepository.count()).isEqualTo(300);
+        assertThat(service.getQueueSize()).isZero();
+    }
+
+    @Test
+    void testFlushAndStopDoNotWaitForIdleWriter() throws InterruptedException {
+        ErrorLogProperties properties = properties(100, ErrorLogOverflowPolicy.DROP);
+        properties.setFlushInterval(Duration.ofSeconds(30));
+        ErrorLogServiceImpl service = new ErrorLogServiceImpl(jdbcTemplate, transactionManager, properties, new StandardEnvironment());
+        service.start();
+        service.logError("Тип", "до простоя");
+        // фоновый поток записывает первую запись и снова ждёт очередь
+        Thread.sleep(200);
+        service.logError("Тип", "во время простоя");
+
+        long started = System.nanoTime();
+        service.flush();
+        service.stop();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(5));
+        assertThat(errorLogRepository.count()).isEqualTo(2);
+    }
+
+    private ErrorLogServiceImpl newService(int capacity, ErrorLogOverflowPolicy policy) {
+        return new ErrorLogServiceImpl(jdbcTemplate, transactionManager, properties(capacity, policy), new StandardEnvironment());
+    }
+
+    private static ErrorLogProperties properties(int capacity, ErrorLogOverflowPolicy policy) {
+        ErrorLogProperties properties = new ErrorLogProperties();
+        properties.setQueueCapacity(capacity);
+        properties.setOverflowPolicy(policy);
+        return properties;
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.masterdetail.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.example.masterdetail.config.ReplicaRoutingProperties;
+import org.example.masterdetail.datasource.ReplicaRoutingContext;
+import org.example.masterdetail.datasource.ReplicaRoutingDataSource;
+import org.example.masterdetail.filter.ReadYourWritesFilter;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.liquibase.drop-first=false",
+        "master-detail.replicas.enabled=true",
+        "master-detail.replicas.nodes[0].name=replica",
+        "master-detail.replicas.nodes[0].url=jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1",
+        "master-detail.replicas.nodes[0].username=sa",
+        "master-detail.replicas.nodes[1].name=unreachable",
+        "master-detail.replicas.nodes[1].url=jdbc:h2:tcp://localhost:1/mem:missing",
+        "master-detail.replicas.nodes[1].username=sa",
+        "master-detail.replicas.connection-timeout=250ms",
+        "master-detail.replicas.lag-query=SELECT 0",
+        "master-detail.replicas.read-your-writes=5s"
+})
+class ReplicaRoutingIntegrationTest {
+
+    private static final String PRIMARY = "TESTDB";
+    private static final String REPLICA = "REPLICADB";
+    private static final String REPLICA_URL = "jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private HikariDataSource primaryDataSource;
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ReadYourWritesFilter readYourWritesFilter;
+    @Autowired
+    private DocumentService documentService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testReadOnlyTransactionsGoToReplica() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        assertThat(databaseName(transactionManager, jdbcTemplate, true)).isEqualTo(REPLICA);
+        assertThat(databaseName(transactionManager, jdbcTemplate, false)).isEqualTo(PRIMARY);
+        assertThat(jdbcTemplate.queryForObject("SELECT DATABASE()", String.class)).isEqualTo(PRIMARY);
+    }
+
+    @Test
+    void testUnreachableReplicaIsTakenOutOfRotation() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        replicaRoutingDataSource.checkReplicas();
+
+        assertThat(replicaRoutingDataSource.availableReplicas()).containsExactly("replica");
+        for (int i = 0; i < 4; i++) {
+            assertThat(databaseName(transactionManager, jdbcTemplate, true)).isEqualTo(REPLICA);
+        }
+    }
+
+    @Test
+    void testRecentWriterReadsFromPrimary() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<String> seen = new ArrayList<>();
+
+        MockHttpServletResponse postResponse = new MockHttpServletResponse();
+        readYourWritesFilter.doFilter(new MockHttpServletRequest("POST", "/documents/1"), postResponse,
+                (request, response) -> seen.add(databaseName(transactionManager, jdbcTemplate, true)));
+        Cookie cookie = postResponse.getCookie("md-primary-until");
+        assertThat(cookie).isNotNull();
+
+        MockHttpServletRequest sticky = new MockHttpServletRequest("GET", "/documents/1");
+        sticky.setCookies(cookie);
+        readYourWritesFilter.doFilter(sticky, new MockHttpServletResponse(),
+                (request, response) -> seen.add(databaseName(transactionManager, jdbcTemplate, true)));
+        readYourWritesFilter.doFilter(new MockHttpServletRequest("GET", "/documents/1"), new MockHttpServletResponse(),
+                (request, response) -> seen.add(databaseName(transactionManager, jdbcTemplate, true)));
+
+        assertThat(seen).containsExactly(PRIMARY, PRIMARY, REPLICA);
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        ReplicaRoutingProperties properties = new ReplicaRoutingProperties();
+        ReplicaRoutingProperties.Node node = new ReplicaRoutingProperties.Node();
+        node.setUrl("jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1");
+        node.setUsername("sa");
+        properties.setNodes(List.of(node));
+        properties.setLagQuery("SELECT 10");
+        properties.setMaxLag(Duration.ofSeconds(5));
+
+        try (ReplicaRoutingDataSource lagging = new ReplicaRoutingDataSource(primaryDataSource, properties)) {
+            LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(lagging);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(proxy);
+            DataSourceTransactionManager jdbcTransactionManager = new DataSourceTransactionManager(proxy);
+
+            assertThat(databaseName(jdbcTransactionManager, jdbcTemplate, true)).isEqualTo(REPLICA);
+            lagging.checkReplicas();
+
+            assertThat(lagging.availableReplicas()).isEmpty();
+            assertThat(databaseName(jdbcTransactionManager, jdbcTemplate, true)).isEqualTo(PRIMARY);
+        }
+    }
+
+    @Test
+    void testReplicaReadsDoNotPopulateSecondLevelCache() {
+        Document doc = new Document();
+        doc.setDocNumber("REPL-" + System.nanoTime());
+        doc.setDocDate(LocalDateTime.of(2026, 5, 1, 10, 0));
+        doc.setDetails(List.of(new DocumentDetail(null, doc, "A", BigDecimal.TEN)));
+        Document saved = documentService.addDocument(doc);
+        Long id = saved.getId();
+        Long detailId = saved.getDetails().iterator().next().getId();
+
+        // реплика отстала: на ней остаётся состояние до изменения
+        replicate(id);
+        documentService.updateDetail(id, detailId, new DocumentDetail(null, null, "A", BigDecimal.valueOf(20)));
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        assertThat(documentService.findDocumentHeader(id).getTotalSum()).isEqualByComparingTo("10");
+        assertThat(documentService.findDetail(id, detailId).getItemSum()).isEqualByComparingTo("10");
+
+        ReplicaRoutingContext.requirePrimary();
+        try {
+            assertThat(documentService.findDocumentHeader(id).getTotalSum()).isEqualByComparingTo("20");
+            assertThat(documentService.findDetail(id, detailId).getItemSum()).isEqualByComparingTo("20");
+        } finally {
+            ReplicaRoutingContext.clear();
+        }
+    }
+
+    /**
+     * Копирует документ и его спецификации с основной базы на реплику в текущем виде.
+     */
+    private void replicate(Long documentId) {
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.execute("CREATE TABLE IF NOT EXISTS documents (document_id BIGINT PRIMARY KEY, doc_number VARCHAR(255), " +
+                "doc_date TIMESTAMP, total_sum NUMERIC(18, 2), notes VARCHAR(1000), version BIGINT, updated_at TIMESTAMP)");
+        replica.execute("CREATE TABLE IF NOT EXISTS document_detail (detail_id BIGINT PRIMARY KEY, document_id BIGINT, " +
+                "item_name VARCHAR(255), item_sum NUMERIC(18, 2))");
+        replica.update("DELETE FROM document_detail WHERE document_id = ?", documentId);
+        replica.update("DELETE FROM documents WHERE document_id = ?", documentId);
+        primary.query("SELECT document_id, doc_number, doc_date, total_sum, notes, version, updated_at " +
+                        "FROM documents WHERE document_id = ?",
+                rs -> {
+                    replica.update("INSERT INTO documents VALUES (?, ?, ?, ?, ?, ?, ?)", rs.getLong(1), rs.getString(2),
+                            rs.getTimestamp(3), rs.getBigDecimal(4), rs.getString(5), rs.getLong(6), rs.getTimestamp(7));
+                }, documentId);
+        primary.query("SELECT detail_id, document_id, item_name, item_sum FROM document_detail WHERE document_id = ?",
+                rs -> {
+                    replica.update("INSERT INTO document_detail VALUES (?, ?, ?, ?)",
+                            rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getBigDecimal(4));
+                }, documentId);
+    }
+
+    private static String databaseName(PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate,
+                                       boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+    }
+}
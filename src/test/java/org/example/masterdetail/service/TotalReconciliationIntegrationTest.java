@@ -0,0 +1,150 @@
+package org.example.masterdetail.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.masterdetail.config.TotalReconciliationProperties;
+import org.example.masterdetail.dto.ReconciliationReport;
+import org.example.masterdetail.enums.ErrorType;
+import org.example.masterdetail.model.Document;
+import org.example.masterdetail.model.DocumentDetail;
+import org.example.masterdetail.model.ErrorLog;
+import org.example.masterdetail.repository.DocumentRepository;
+import org.example.masterdetail.repository.ErrorLogRepository;
+import org.example.masterdetail.service.Impl.DocumentServiceImpl;
+import org.example.masterdetail.service.Impl.ErrorLogServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "master-detail.reconciliation.enabled=false",
+        "master-detail.reconciliation.chunk-size=3",
+        "master-detail.reconciliation.max-documents-per-second=0"
+})
+class TotalReconciliationIntegrationTest {
+
+    @Autowired
+    private TotalReconciliationService reconciliationService;
+    @Autowired
+    private TotalReconciliationProperties properties;
+    @Autowired
+    private DocumentServiceImpl documentService;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private ErrorLogRepository errorLogRepository;
+    @Autowired
+    private ErrorLogServiceImpl errorLogService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+        errorLogService.flush();
+        errorLogRepository.deleteAll();
+        ids.clear();
+        for (int i = 0; i < 10; i++) {
+            Document doc = new Document();
+            doc.setDocNumber("REC-" + i);
+            doc.setDocDate(LocalDateTime.now());
+            if (i % 2 == 0) {
+                doc.setDetails(List.of(
+                        new DocumentDetail(null, doc, "A", BigDecimal.valueOf(i)),
+                        new DocumentDetail(null, doc, "B", BigDecimal.ONE)));
+            }
+            ids.add(documentService.addDocument(doc).getId());
+        }
+    }
+
+    @Test
+    void testDriftedTotalsAreFixedAndReported() {
+        // расхождения, внесённые в обход приложения; документ 3 без спецификаций
+        setTotalSum(ids.get(0), "100");
+        setTotalSum(ids.get(3), "7");
+        setTotalSum(ids.get(8), "0");
+        Long versionBefore = version(ids.get(3));
+        // устаревший итог попадает в кэш второго уровня
+        entityManagerFactory.getCache().evictAll();
+        assertThat(documentService.findWithDetailsById(ids.get(0)).getTotalSum()).isEqualByComparingTo("100");
+        double fixedBefore = outcome("fixed");
+
+        ReconciliationReport report = reconciliationService.reconcileAll();
+
+        assertThat(report).isEqualTo(new ReconciliationReport(10, 3, 3, 0));
+        assertThat(totalSum(ids.get(0))).isEqualByComparingTo("1");
+        assertThat(totalSum(ids.get(3))).isEqualByComparingTo("0");
+        assertThat(totalSum(ids.get(8))).isEqualByComparingTo("9");
+        assertThat(version(ids.get(3))).isEqualTo(versionBefore + 1);
+        assertThat(documentService.findWithDetailsById(ids.get(0)).getTotalSum()).isEqualByComparingTo("1");
+        assertThat(outcome("fixed") - fixedBefore).isEqualTo(3);
+
+        errorLogService.flush();
+        assertThat(errorLogRepository.findAll())
+                .extracting(ErrorLog::getErrorType)
+                .containsOnly(ErrorType.TOTAL_SUM_MISMATCH.getMessage())
+                .hasSize(3);
+    }
+
+    @Test
+    void testConsistentTotalsAreLeftUntouched() {
+        Long versionBefore = version(ids.get(2));
+
+        ReconciliationReport report = reconciliationService.reconcileAll();
+
+        assertThat(report).isEqualTo(new ReconciliationReport(10, 0, 0, 0));
+        assertThat(version(ids.get(2))).isEqualTo(versionBefore);
+    }
+
+    @Test
+    void testScanRateIsThrottled() {
+        properties.setMaxDocumentsPerSecond(40);
+        try {
+            long started = System.nanoTime();
+
+            ReconciliationReport report = reconciliationService.reconcileAll();
+
+            // 10 документов при 40 в секунду — не быстрее 250 мс
+            assertThat(report.scanned()).isEqualTo(10);
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(240));
+        } finally {
+            properties.setMaxDocumentsPerSecond(0);
+        }
+    }
+
+    private void setTotalSum(Long id, String value) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE documents SET total_sum = ? WHERE document_id = ?", new BigDecimal(value), id));
+    }
+
+    private BigDecimal totalSum(Long id) {
+        return jdbcTemplate.queryForObject("SELECT total_sum FROM documents WHERE document_id = ?", BigDecimal.class, id);
+    }
+
+    private Long version(Long id) {
+        return jdbcTemplate.queryForObject("SELECT version FROM documents WHERE document_id = ?", Long.class, id);
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter("document.reconciliation.documents", "outcome", outcome).count();
+    }
+}